@@ -0,0 +1,172 @@
+package bench;
+
+import dao.PooledDataSource;
+import dao.SchemaMigrator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import model.Event;
+import model.Model;
+import model.PasswordHasher;
+
+/**
+ * Seeded SQLite databases for the benchmarks.
+ * <p>
+ * A database for a given row count has that many events, users, orders and order items,
+ * generated with recursive CTEs in one transaction and reused by later runs. Event i is
+ * "Event i/10" on day i%7 at "Venue i%100", so each title has about ten shows; every
+ * tenth event is disabled. User i is "user" + i with the password {@link #PASSWORD}.
+ * Order i belongs to a scattered user and has one line for a scattered event.
+ * </p>
+ */
+public final class BenchDatabase {
+    // Directory for seeded databases; the jmh task points it at benchmarks/build/bench-db
+    private static final Path DIR = Path.of(System.getProperty("bench.db.dir", "build/bench-db"));
+    private static final int POOL_SIZE = 8;
+    private static final int SEATS = 1_000_000;
+    // Same property and default as the application, so logins never rehash
+    private static final int PASSWORD_ITERATIONS = Integer.getInteger("eventapp.password.iterations", 600_000);
+
+    /** The password of every seeded user. */
+    public static final String PASSWORD = "benchmark";
+
+    private static final String NUMBERS = "WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < ?) ";
+    private static final String DAY = "substr('MonTueWedThuFriSatSun', (%1$s %% 7) * 3 + 1, 3)";
+    // The event of order i's single line
+    private static final String LINES = NUMBERS
+            + ", line(i, e, q) AS (SELECT i, 1 + (i * 7919) % ?, 1 + i % 4 FROM n) ";
+
+    // Private constructor to prevent instantiation
+    private BenchDatabase() {}
+
+    /**
+     * Returns the JDBC URL of the seeded database, creating it first if needed.
+     * @param rows the number of rows per table
+     */
+    public static synchronized String url(int rows) throws IOException, SQLException {
+        Path file = DIR.resolve("seed-" + rows + ".db");
+        if (!Files.exists(file)) {
+            Files.createDirectories(DIR);
+            Path partial = DIR.resolve("seed-" + rows + ".db.partial");
+            Files.deleteIfExists(partial);
+            seed(partial, rows);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return "jdbc:sqlite:" + file.toAbsolutePath();
+    }
+
+    /**
+     * Returns the URL of a fresh copy of the seeded database, for benchmarks that write.
+     * @param rows the number of rows per table
+     */
+    public static String copy(int rows) throws IOException, SQLException {
+        Path seed = Path.of(url(rows).substring("jdbc:sqlite:".length()));
+        Path copy = DIR.resolve("work-" + rows + "-" + ProcessHandle.current().pid() + ".db");
+        Files.copy(seed, copy, StandardCopyOption.REPLACE_EXISTING);
+        copy.toFile().deleteOnExit();
+        return "jdbc:sqlite:" + copy.toAbsolutePath();
+    }
+
+    /**
+     * Opens a pool on the seeded database.
+     * @param rows the number of rows per table
+     */
+    public static PooledDataSource open(int rows) throws IOException, SQLException {
+        return new PooledDataSource(url(rows), POOL_SIZE);
+    }
+
+    /**
+     * Constructs the application Model on the seeded database, with orders written
+     * straight to the database. Must be called before anything else touches
+     * {@link dao.Database}, as its URL is read once.
+     * @param rows the number of rows per table
+     */
+    public static Model model(int rows) throws IOException, SQLException {
+        System.setProperty("eventapp.db.url", url(rows));
+        System.setProperty("eventapp.order.journal", "");
+        return new Model();
+    }
+
+    /**
+     * Returns the event seeded with the given ID, as the DAOs would load it.
+     */
+    public static Event event(int eventId) {
+        return new Event(eventId, "Event " + eventId / 10, day(eventId), "Venue " + eventId % 100,
+                10 + eventId % 50, SEATS, SEATS, eventId % 10 != 0);
+    }
+
+    /**
+     * Returns the username of the seeded user with the given ID.
+     */
+    public static String username(int userId) {
+        return "user" + userId;
+    }
+
+    private static String day(int eventId) {
+        return "MonTueWedThuFriSatSun".substring(eventId % 7 * 3, eventId % 7 * 3 + 3);
+    }
+
+    private static void seed(Path file, int rows) throws SQLException {
+        PooledDataSource dataSource = new PooledDataSource("jdbc:sqlite:" + file.toAbsolutePath(), 1);
+        try {
+            SchemaMigrator.migrate(dataSource);
+            String password = new PasswordHasher(PASSWORD_ITERATIONS).hash(PASSWORD);
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    insert(conn, NUMBERS
+                            + "INSERT INTO events (event_id, title, date, location, total_seats, available_seats, enabled, price) "
+                            + "SELECT i, 'Event ' || (i / 10), " + DAY.formatted("i") + ", 'Venue ' || (i % 100), "
+                            + SEATS + ", " + SEATS + ", i % 10 <> 0, 10 + i % 50 FROM n", rows);
+                    try (PreparedStatement ps = conn.prepareStatement(NUMBERS
+                            + "INSERT INTO users (user_id, username, password, role, preferred_name) "
+                            + "SELECT i, 'user' || i, ?, 'user', 'User ' || i FROM n")) {
+                        ps.setInt(1, rows);
+                        ps.setString(2, password);
+                        ps.executeUpdate();
+                    }
+                    insert(conn, LINES
+                            + "INSERT INTO orders (order_id, user_id, order_date, total_price) "
+                            + "SELECT i, 1 + (i * 104729) % ?, "
+                            + "strftime('%Y-%m-%dT%H:%M:%S', '2026-01-01', '+' || (i % 8760) || ' hours'), "
+                            + "q * (10 + e % 50) FROM line", rows, rows, rows);
+                    insert(conn, LINES
+                            + "INSERT INTO order_items (order_item_id, order_id, event_id, quantity, price_per_ticket, "
+                            + "event_title, event_day, event_venue) "
+                            + "SELECT i, i, e, q, 10 + e % 50, 'Event ' || (e / 10), " + DAY.formatted("e") + ", "
+                            + "'Venue ' || (e % 100) FROM line", rows, rows);
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("UPDATE order_sequence SET next_value = " + (rows + 1) + " WHERE name = 'orders'");
+                        // The same aggregates migration 4 builds from existing orders
+                        stmt.executeUpdate("INSERT INTO sales_by_event (event_id, tickets, revenue, orders) "
+                                + "SELECT event_id, SUM(quantity), SUM(quantity * price_per_ticket), COUNT(DISTINCT order_id) "
+                                + "FROM order_items GROUP BY event_id");
+                        stmt.executeUpdate("INSERT INTO sales_by_hour (hour, tickets, revenue, orders) "
+                                + "SELECT substr(o.order_date, 1, 13), SUM(oi.quantity), SUM(oi.quantity * oi.price_per_ticket), "
+                                + "COUNT(DISTINCT o.order_id) "
+                                + "FROM orders o JOIN order_items oi ON oi.order_id = o.order_id "
+                                + "GROUP BY substr(o.order_date, 1, 13)");
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    private static void insert(Connection conn, String sql, int... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) ps.setInt(i + 1, params[i]);
+            ps.executeUpdate();
+        }
+    }
+}
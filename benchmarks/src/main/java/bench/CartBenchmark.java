@@ -0,0 +1,92 @@
+package bench;
+
+import dao.CachingEventDao;
+import dao.EventDao;
+import dao.EventDaoImpl;
+import dao.PooledDataSource;
+import java.util.concurrent.TimeUnit;
+import model.Cart;
+import model.Event;
+import model.SeatHoldManager;
+import model.SeatInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A quantity change followed by the cart total, on the current cart and on the old
+ * HashMap cart. Compare gc.alloc.rate.norm (bytes per operation) from the gc profiler,
+ * which the jmh task enables. Both carts share the same hold manager, whose own
+ * allocation is included in both. The catalog does not matter here, so this runs on the
+ * smallest seeded database only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CartBenchmark {
+    @Param({"5", "20"})
+    public int lines;
+
+    private PooledDataSource dataSource;
+    private SeatHoldManager holds;
+    private Event[] events;
+    private Cart cart;
+    private LegacyCart legacyCart;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = BenchDatabase.open(1000);
+        EventDao eventDao = new CachingEventDao(new EventDaoImpl(dataSource));
+        holds = new SeatHoldManager(new SeatInventory(eventDao), 600_000);
+        cart = new Cart(holds, "cart");
+        legacyCart = new LegacyCart(holds, "legacy-cart");
+        events = new Event[lines];
+        for (int i = 0; i < lines; i++) {
+            // Skip the disabled events, every tenth
+            events[i] = eventDao.getEventById(1 + i + i / 9);
+            if (!cart.addToCart(events[i], 1) || !legacyCart.addToCart(events[i], 1)) {
+                throw new IllegalStateException("Seeded event has no free seats");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cart.clear();
+        legacyCart.clear();
+        holds.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public double cart() {
+        Event event = nextEvent();
+        cart.updateQuantity(event, 1 + next % 3);
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public double legacyCart() {
+        Event event = nextEvent();
+        legacyCart.updateQuantity(event, 1 + next % 3);
+        return legacyCart.getTotal();
+    }
+
+    private Event nextEvent() {
+        next++;
+        return events[next % events.length];
+    }
+}
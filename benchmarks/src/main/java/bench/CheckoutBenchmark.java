@@ -0,0 +1,74 @@
+package bench;
+
+import dao.Database;
+import java.util.concurrent.TimeUnit;
+import model.BookingService;
+import model.Cart;
+import model.Model;
+import model.Order;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The checkout total: the cart total alone, and the order built from the cart with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CheckoutBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "20"})
+    public int lines;
+
+    private Model model;
+    private BookingService booking;
+    private Cart cart;
+    private User user;
+
+    @Setup
+    public void setup() throws Exception {
+        model = BenchDatabase.model(rows);
+        booking = model.getBookingService();
+        cart = booking.newCart();
+        // Lines are added to the cart directly, as BookingService refuses events whose day has passed
+        for (int i = 1; i <= lines; i++) {
+            if (!cart.addToCart(model.getEventDao().getEventById(i * (rows / lines)), 2)) {
+                throw new IllegalStateException("Seeded event has no free seats");
+            }
+        }
+        user = model.getUserDao().getUserByUsername(BenchDatabase.username(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        cart.clear();
+        model.shutdown();
+        Database.shutdown();
+    }
+
+    @Benchmark
+    public double computeTotal() {
+        return booking.computeTotal(cart);
+    }
+
+    @Benchmark
+    public Order buildOrder() {
+        return booking.buildOrder(user, cart);
+    }
+}
@@ -0,0 +1,67 @@
+package bench;
+
+import dao.EventDaoImpl;
+import dao.PooledDataSource;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The uncached event DAO, as the catalog cache sees it on a load or a miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventDaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PooledDataSource dataSource;
+    private EventDaoImpl events;
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = BenchDatabase.open(rows);
+        events = new EventDaoImpl(dataSource);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Event> getAllEvents() {
+        return events.getAllEvents();
+    }
+
+    @Benchmark
+    public List<Event> getEventsByTitle() {
+        return events.getEventsByTitle(randomEvent().getTitle());
+    }
+
+    @Benchmark
+    public boolean eventExists() throws Exception {
+        return events.eventExists(randomEvent());
+    }
+
+    private Event randomEvent() {
+        return BenchDatabase.event(1 + ThreadLocalRandom.current().nextInt(rows));
+    }
+}
@@ -0,0 +1,82 @@
+package bench;
+
+import dao.EventDaoImpl;
+import dao.OrderDaoImpl;
+import dao.PooledDataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import model.ExportFormat;
+import model.OrderExporter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exporting every order to a file. The "orders" secondary result is orders written per
+ * second. The peak heap comes from {@link PeakHeapProfiler} and should stay flat as the
+ * number of orders grows, since orders are streamed rather than loaded; the heap is capped
+ * so that a regression shows up as an OutOfMemoryError at 1M rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ExportBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"TEXT", "CSV", "JSONL"})
+    public ExportFormat format;
+
+    private PooledDataSource dataSource;
+    private OrderExporter exporter;
+    private Path file;
+
+    /**
+     * Orders exported in the current iteration, reported as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Exported {
+        public long orders;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            orders = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = BenchDatabase.open(rows);
+        exporter = new OrderExporter(new OrderDaoImpl(dataSource, new EventDaoImpl(dataSource)));
+        file = Files.createTempFile("orders", "." + format.getExtension());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        dataSource.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int exportAll(Exported exported) throws Exception {
+        int written = exporter.exportAll(file, format, (done, total) -> {});
+        exported.orders += written;
+        return written;
+    }
+}
@@ -0,0 +1,68 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import model.Event;
+import model.SeatHoldManager;
+
+/**
+ * The cart as it was before lines were keyed by event ID: a HashMap from Event to a boxed
+ * quantity, with the total summed over the map on every call. Kept only as a baseline
+ * for {@link CartBenchmark}.
+ */
+class LegacyCart {
+    private final SeatHoldManager holds;
+    private final String ownerId;
+    private final Map<Event, Integer> items = new HashMap<>();
+
+    LegacyCart(SeatHoldManager holds, String ownerId) {
+        this.holds = holds;
+        this.ownerId = ownerId;
+    }
+
+    boolean addToCart(Event event, int quantity) {
+        Event line = lineFor(event);
+        int newQuantity = items.getOrDefault(line, 0) + quantity;
+        if (!holds.hold(ownerId, event.getEventId(), newQuantity)) return false;
+        items.put(line, newQuantity);
+        holds.renew(ownerId);
+        return true;
+    }
+
+    boolean updateQuantity(Event event, int quantity) {
+        Event line = lineFor(event);
+        if (quantity <= 0) {
+            items.remove(line);
+            holds.release(ownerId, event.getEventId());
+            holds.renew(ownerId);
+            return true;
+        }
+        if (!holds.hold(ownerId, event.getEventId(), quantity)) return false;
+        items.put(line, quantity);
+        holds.renew(ownerId);
+        return true;
+    }
+
+    /**
+     * What BookingService.computeTotal did for this cart.
+     */
+    double getTotal() {
+        double total = 0;
+        for (Map.Entry<Event, Integer> line : items.entrySet()) {
+            total += line.getKey().getPrice() * line.getValue();
+        }
+        return total;
+    }
+
+    void clear() {
+        items.clear();
+        holds.releaseAll(ownerId);
+    }
+
+    private Event lineFor(Event event) {
+        for (Event line : items.keySet()) {
+            if (line.getEventId() == event.getEventId()) return line;
+        }
+        return event;
+    }
+}
@@ -0,0 +1,87 @@
+package bench;
+
+import dao.PooledDataSource;
+import dao.UserDaoImpl;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.AccountService;
+import model.CredentialVerifier;
+import model.LoginThrottle;
+import model.PasswordHasher;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Logins by four concurrent clients, set up as in Model. Throughput mode gives logins per
+ * second; sample mode gives the latency distribution, including p0.99, in the JSON results.
+ * A cold login checks the password hash; a cached login is a repeat login the credential
+ * cache answers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class LoginBenchmark {
+    // PBKDF2 iterations; the seeded hashes use the same property and default
+    private static final int PASSWORD_ITERATIONS = Integer.getInteger("eventapp.password.iterations", 600_000);
+    private static final int PASSWORD_THREADS = Runtime.getRuntime().availableProcessors();
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PooledDataSource dataSource;
+    private CredentialVerifier credentials;
+    private AccountService accounts;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = BenchDatabase.open(rows);
+        credentials = new CredentialVerifier(new PasswordHasher(PASSWORD_ITERATIONS), PASSWORD_THREADS,
+                10_000, 10 * 60 * 1000);
+        accounts = new AccountService(new UserDaoImpl(dataSource), credentials,
+                new LoginThrottle(5, 5 * 60 * 1000, 10_000));
+        // Remember user 1 for the cached logins
+        accounts.login(BenchDatabase.username(1), BenchDatabase.PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        credentials.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public User coldLogin() throws Exception {
+        String username = BenchDatabase.username(2 + nextUser.getAndIncrement() % (rows - 1));
+        credentials.forget(username);
+        return login(username);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public User cachedLogin() throws Exception {
+        return login(BenchDatabase.username(1));
+    }
+
+    private User login(String username) throws Exception {
+        User user = accounts.login(username, BenchDatabase.PASSWORD);
+        if (user == null) throw new IllegalStateException("Login refused for " + username);
+        return user;
+    }
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import dao.Database;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.Event;
+import model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The customer event list, served from the catalog cache once it is loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ModelBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Model model;
+
+    @Setup
+    public void setup() throws Exception {
+        model = BenchDatabase.model(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.shutdown();
+        Database.shutdown();
+    }
+
+    @Benchmark
+    public List<Event> getAllEnabledEvents() {
+        return model.getAllEvents(false);
+    }
+}
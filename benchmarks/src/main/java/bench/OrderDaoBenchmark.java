@@ -0,0 +1,67 @@
+package bench;
+
+import dao.EventDaoImpl;
+import dao.OrderDaoImpl;
+import dao.PooledDataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.Event;
+import model.Order;
+import model.OrderItem;
+import model.OrderResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing single orders and reading the full order history. Runs on a copy of the
+ * seeded database, since every order takes seats and adds rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderDaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PooledDataSource dataSource;
+    private OrderDaoImpl orders;
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = new PooledDataSource(BenchDatabase.copy(rows), 8);
+        orders = new OrderDaoImpl(dataSource, new EventDaoImpl(dataSource));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public OrderResult addOrder() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Event event = BenchDatabase.event(1 + random.nextInt(rows));
+        Order order = new Order(null, LocalDateTime.now(), List.of(new OrderItem(event, 1)), event.getPrice());
+        return orders.addOrder(order, 1 + random.nextInt(rows));
+    }
+
+    @Benchmark
+    public List<Order> getAllOrders() throws Exception {
+        return orders.getAllOrders();
+    }
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import dao.OrderIdAllocator;
+import dao.PooledDataSource;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Order ID allocation by concurrent checkouts. A block size of 1 takes a database
+ * transaction per ID; larger blocks take one per block. The sequence does not depend on
+ * the size of the tables, so this runs on a copy of the smallest seeded database only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderIdAllocatorBenchmark {
+    @Param({"1", "16", "64"})
+    public int blockSize;
+
+    private PooledDataSource dataSource;
+    private OrderIdAllocator allocator;
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = new PooledDataSource(BenchDatabase.copy(1000), 8);
+        allocator = new OrderIdAllocator(dataSource, blockSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int nextId() throws Exception {
+        return allocator.nextId();
+    }
+}
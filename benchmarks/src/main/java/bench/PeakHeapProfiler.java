@@ -0,0 +1,78 @@
+package bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the most heap in use at any point during each iteration, as "·peak.heap" in MB.
+ * <p>
+ * Heap use peaks just before a collection, so the profiler records the heap in use at the
+ * start of every collection, and at the end of the iteration for any garbage not yet
+ * collected. Enabled with {@code -prof bench.PeakHeapProfiler}; the jmh task always adds it.
+ * </p>
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+    private final AtomicLong peak = new AtomicLong();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = (notification, handback) -> {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) return;
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long used = 0;
+        for (MemoryUsage usage : info.getGcInfo().getMemoryUsageBeforeGc().values()) used += usage.getUsed();
+        record(used);
+    };
+
+    @Override
+    public String getDescription() {
+        return "Peak heap in use per iteration";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        peak.set(0);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+        record(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        record(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // Never added
+            }
+        }
+        emitters.clear();
+        return List.of(new ScalarResult("·peak.heap", peak.get() / (1024.0 * 1024.0), "MB", AggregationPolicy.MAX));
+    }
+
+    private void record(long used) {
+        peak.accumulateAndGet(used, Math::max);
+    }
+}
@@ -0,0 +1,126 @@
+package bench;
+
+import dao.CachingEventDao;
+import dao.EventDao;
+import dao.EventDaoImpl;
+import dao.OrderDaoImpl;
+import dao.PooledDataSource;
+import dao.UserDaoImpl;
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.BookingService;
+import model.Cart;
+import model.SeatHoldManager;
+import model.SeatInventory;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Reservations per second from eight threads at once: seats reserved and sold in the
+ * in-memory inventory, seats reserved and released on one event every thread wants, and
+ * whole orders placed through BookingService. Runs on a copy of the seeded database, since
+ * placed orders add rows; every event has a million seats, so none sells out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReservationBenchmark {
+    private static final int HOT_EVENT = 1;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PooledDataSource dataSource;
+    private EventDao eventDao;
+    private UserDaoImpl userDao;
+    private SeatInventory inventory;
+    private SeatHoldManager holds;
+    private BookingService booking;
+
+    /**
+     * A buyer per benchmark thread, with their own cart.
+     */
+    @State(Scope.Thread)
+    public static class Buyer {
+        User user;
+        Cart cart;
+
+        @Setup
+        public void setup(ReservationBenchmark bench, ThreadParams thread) throws Exception {
+            user = bench.userDao.getUserByUsername(BenchDatabase.username(1 + thread.getThreadIndex()));
+            cart = bench.booking.newCart();
+        }
+
+        @TearDown
+        public void tearDown() {
+            cart.clear();
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = new PooledDataSource(BenchDatabase.copy(rows), 8);
+        eventDao = new CachingEventDao(new EventDaoImpl(dataSource));
+        userDao = new UserDaoImpl(dataSource);
+        inventory = new SeatInventory(eventDao);
+        holds = new SeatHoldManager(inventory, 60_000);
+        booking = new BookingService(eventDao, new OrderDaoImpl(dataSource, eventDao), userDao, inventory, holds,
+                Clock.systemDefaultZone());
+    }
+
+    @TearDown
+    public void tearDown() {
+        holds.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        int eventId = enabledEvent();
+        if (!inventory.tryReserve(eventId, 1)) throw new IllegalStateException("Seeded event sold out");
+        inventory.commit(eventId, 1);
+        return true;
+    }
+
+    @Benchmark
+    public boolean reserveContended() {
+        if (!inventory.tryReserve(HOT_EVENT, 1)) throw new IllegalStateException("Seeded event sold out");
+        inventory.release(HOT_EVENT, 1);
+        return true;
+    }
+
+    @Benchmark
+    public String placeOrder(Buyer buyer) throws Exception {
+        // Added to the cart directly, as BookingService refuses events whose day has passed
+        if (!buyer.cart.addToCart(BenchDatabase.event(enabledEvent()), 1)) {
+            throw new IllegalStateException("Seeded event sold out");
+        }
+        String orderNumber = booking.placeOrder(buyer.user, buyer.cart, booking.buildOrder(buyer.user, buyer.cart));
+        buyer.cart.clear();
+        return orderNumber;
+    }
+
+    // Every tenth seeded event is disabled
+    private int enabledEvent() {
+        int eventId = 1 + ThreadLocalRandom.current().nextInt(rows);
+        return eventId % 10 == 0 ? eventId - 1 : eventId;
+    }
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import dao.PooledDataSource;
+import dao.UserDaoImpl;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The user lookup every login starts with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserDaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private PooledDataSource dataSource;
+    private UserDaoImpl users;
+
+    @Setup
+    public void setup() throws Exception {
+        dataSource = BenchDatabase.open(rows);
+        users = new UserDaoImpl(dataSource);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public User getUserByUsername() throws Exception {
+        return users.getUserByUsername(BenchDatabase.username(1 + ThreadLocalRandom.current().nextInt(rows)));
+    }
+}
@@ -0,0 +1,28 @@
+import java.io.IOException;
+import java.sql.SQLException;
+
+import api.ApiServer;
+import dao.Database;
+import metrics.Log;
+import model.Model;
+
+/**
+ * Runs the booking engine as an HTTP/JSON backend instead of the desktop client.
+ * The port is the first argument, or -Deventapp.api.port, or 8080.
+ */
+public class ApiMain {
+	public static void main(String[] args) throws IOException, SQLException {
+		Thread.setDefaultUncaughtExceptionHandler((thread, e) -> Log.error("uncaught", e));
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("eventapp.api.port", 8080);
+		Model model = new Model();
+		model.setup();
+		ApiServer server = new ApiServer(model, port);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(2);
+			model.shutdown();
+			Database.shutdown();
+		}, "api-shutdown"));
+		server.start();
+		System.out.println("Event API listening on http://localhost:" + server.getPort() + "/api/");
+	}
+}
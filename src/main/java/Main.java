@@ -10,6 +10,8 @@ import javafx.scene.layout.GridPane;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.layout.Pane;
 
+import dao.Database;
+import metrics.Log;
 import model.Model;
 import controller.LoginController;
 import controller.AdminController;
@@ -51,7 +53,14 @@ public class Main extends Application {
 		}
 	}
 
+	@Override
+	public void stop() {
+		model.shutdown();
+		Database.shutdown();
+	}
+
 	public static void main(String[] args) {
+		Thread.setDefaultUncaughtExceptionHandler((thread, e) -> Log.error("uncaught", e));
 		launch(args);
 	}
 }
@@ -0,0 +1,211 @@
+package api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+import model.Days;
+
+/**
+ * Local load generator for {@link ApiServer}.
+ * <p>
+ * Each simulated user runs on a virtual thread: it signs up (ignoring "already exists"),
+ * logs in, then repeatedly lists events, adds one seat of a bookable event to its cart and
+ * checks out. Prints throughput and latency percentiles per request when done.
+ * </p>
+ * <p>
+ * A throttled sign-up or login (429) is retried after the Retry-After delay a few times;
+ * a user whose login still fails counts as a failure and stops. Seat conflicts (409) are
+ * counted as sold out; any other non-200 answer, except a duplicate sign-up, is a failure.
+ * </p>
+ * Usage: {@code ApiLoadClient [baseUrl] [users] [iterationsPerUser]},
+ * defaults {@code http://localhost:8080 200 20}.
+ */
+public class ApiLoadClient {
+    // Tries of a sign-up or login the server keeps throttling
+    private static final int THROTTLED_ATTEMPTS = 5;
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder soldOut = new LongAdder();
+    private final List<long[]> latencies = new ArrayList<>();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public ApiLoadClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        new ApiLoadClient(baseUrl).run(users, iterations);
+    }
+
+    /**
+     * Runs the load and prints a summary.
+     * @param users the number of concurrent simulated users
+     * @param iterations the browse/add/checkout rounds per user
+     */
+    public void run(int users, int iterations) throws InterruptedException {
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                int user = u;
+                pool.submit(() -> simulateUser(user, iterations));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] all;
+        synchronized (latencies) {
+            all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        }
+        System.out.printf("users=%d iterations=%d requests=%d failures=%d checkouts=%d soldOut=%d%n",
+                users, iterations, requests.sum(), failures.sum(), checkouts.sum(), soldOut.sum());
+        System.out.printf("elapsed=%.2fs throughput=%.0f req/s%n", seconds, requests.sum() / seconds);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), maxNanos.get() / 1e6);
+        }
+    }
+
+    private void simulateUser(int user, int iterations) {
+        LongStream.Builder samples = LongStream.builder();
+        try {
+            String name = "load" + user;
+            String credentials = Json.write(Map.of("username", name, "password", "pw" + user, "preferredName", name));
+            Timed signup = callRetrying("/api/signup", credentials, samples);
+            // 400 means the user exists from an earlier run
+            if (signup.status != 200 && signup.status != 400) failures.increment();
+            Timed login = callRetrying("/api/login", credentials, samples);
+            if (login.status != 200) {
+                failures.increment();
+                return;
+            }
+            String token = (String) Json.parseObject(login.body).get("token");
+            for (int i = 0; i < iterations; i++) {
+                Timed events = call("GET", "/api/events?limit=20", token, null);
+                samples.add(events.nanos);
+                if (events.status != 200) {
+                    failures.increment();
+                    return;
+                }
+                List<Object> bookable = bookable((List<?>) Json.parseObject(events.body).get("events"));
+                if (bookable.isEmpty()) return;
+                Object eventId = bookable.get((user + i) % bookable.size());
+                Timed add = call("POST", "/api/cart", token, Json.write(Map.of("eventId", eventId, "quantity", 1)));
+                samples.add(add.nanos);
+                if (add.status != 200) {
+                    count(add);
+                    continue;
+                }
+                Timed checkout = call("POST", "/api/checkout", token, null);
+                samples.add(checkout.nanos);
+                if (checkout.status == 200) checkouts.increment();
+                else count(checkout);
+            }
+        } catch (Exception e) {
+            failures.increment();
+        } finally {
+            synchronized (latencies) {
+                latencies.add(samples.build().toArray());
+            }
+        }
+    }
+
+    /**
+     * Posts a body without a token, retrying after the Retry-After delay while the server
+     * answers 429.
+     */
+    private Timed callRetrying(String path, String body, LongStream.Builder samples) throws Exception {
+        Timed response = null;
+        for (int attempt = 0; attempt < THROTTLED_ATTEMPTS; attempt++) {
+            if (response != null) Thread.sleep(response.retryAfterMillis);
+            response = call("POST", path, null, body);
+            samples.add(response.nanos);
+            if (response.status != 429) break;
+        }
+        return response;
+    }
+
+    /**
+     * Counts a refused cart or checkout request: a seat conflict is sold out, anything else a failure.
+     */
+    private void count(Timed response) {
+        if (response.status == 409) soldOut.increment();
+        else failures.increment();
+    }
+
+    /**
+     * Returns the IDs of the listed events that have seats left and are not in the past.
+     */
+    private static List<Object> bookable(List<?> events) {
+        List<Object> ids = new ArrayList<>();
+        if (events == null) return ids;
+        int today = Days.indexOf(Days.today(Clock.systemDefaultZone()));
+        for (Object item : events) {
+            Map<?, ?> event = (Map<?, ?>) item;
+            if (event.get("available") instanceof Number available && available.intValue() > 0
+                    && Days.indexOf((String) event.get("day")) >= today) {
+                ids.add(event.get("eventId"));
+            }
+        }
+        return ids;
+    }
+
+    private Timed call(String method, String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        if (body != null) request.header("Content-Type", "application/json");
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        long nanos = System.nanoTime() - start;
+        requests.increment();
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        long retryAfterMillis = response.headers().firstValueAsLong("Retry-After").orElse(1) * 1000;
+        return new Timed(response.statusCode(), response.body(), nanos, retryAfterMillis);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+
+    /**
+     * One response with its round-trip time.
+     */
+    private static final class Timed {
+        private final int status;
+        private final String body;
+        private final long nanos;
+        private final long retryAfterMillis;
+
+        private Timed(int status, String body, long nanos, long retryAfterMillis) {
+            this.status = status;
+            this.body = body;
+            this.nanos = nanos;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+}
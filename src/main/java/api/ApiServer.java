@@ -0,0 +1,513 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import metrics.Log;
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+import model.BookingService;
+import model.Cart;
+import model.CartItem;
+import model.CatalogService;
+import model.Event;
+import model.EventFilter;
+import model.LoginThrottledException;
+import model.Model;
+import model.Order;
+import model.OrderItem;
+import model.Session;
+import model.SessionRegistry;
+import model.User;
+
+/**
+ * Embedded HTTP/JSON API over the booking engine.
+ * <p>
+ * Every request runs on its own virtual thread. Clients log in with
+ * {@code POST /api/login} and send the returned token as {@code Authorization: Bearer <token>};
+ * each token names a session in the model's {@link SessionRegistry} with its own user and
+ * cart, so many users can book through one process. Idle sessions expire.
+ * </p>
+ * <pre>
+ * POST   /api/signup                    {username, password, preferredName}
+ * POST   /api/login                     {username, password} -> {token, ...}
+ * POST   /api/logout
+ * GET    /api/events?after=&amp;limit=&amp;day=&amp;title=
+ * GET    /api/events/{id}
+ * GET    /api/cart
+ * POST   /api/cart                      {eventId, quantity}   adds seats
+ * PUT    /api/cart                      {eventId, quantity}   sets seats, 0 removes
+ * DELETE /api/cart
+ * POST   /api/checkout
+ * GET    /api/orders?after=&amp;limit=
+ * GET    /api/admin/orders?after=&amp;limit=
+ * POST   /api/admin/events              {title, venue, day, price, total, available}
+ * PUT    /api/admin/events/{id}         {title, venue, day, price, total, available}
+ * DELETE /api/admin/events/{id}
+ * PUT    /api/admin/events/{id}/enabled {enabled}
+ * </pre>
+ * Validation errors answer 400, seat conflicts 409, missing or expired tokens 401,
+ * non-admin access to /api/admin 403 and throttled logins 429 with a Retry-After header.
+ * Disabled events are hidden from customers: they are listed only for admins passing
+ * {@code all=true}, and looking one up by id answers 404 unless the session is an admin's.
+ * <p>
+ * {@code GET /metrics} serves the application metrics in the Prometheus text format.
+ * Every API request is timed by method and route, with ids replaced by {@code {id}};
+ * unexpected failures (500) are logged.
+ * </p>
+ */
+public class ApiServer {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int BACKLOG = 4096;
+    // Path segments that may appear in a route label; anything else is reported as unmatched
+    private static final Set<String> ROUTE_SEGMENTS = Set.of(
+            "signup", "login", "logout", "events", "cart", "checkout", "orders", "admin", "enabled");
+
+    private final Model model;
+    private final BookingService booking;
+    private final CatalogService catalog;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SessionRegistry sessions;
+    private final MetricsRegistry metrics;
+
+    /**
+     * Creates a server bound to the given port; call {@link #start()} to accept requests.
+     * @param model the application model whose services handle the requests
+     * @param port the TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ApiServer(Model model, int port) throws IOException {
+        this.model = model;
+        this.booking = model.getBookingService();
+        this.catalog = model.getCatalogService();
+        this.sessions = model.getSessionRegistry();
+        this.metrics = Metrics.registry();
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given delay for running ones to finish.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status = 200;
+        Object body;
+        try {
+            body = route(exchange);
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (LoginThrottledException e) {
+            status = 429;
+            body = error(e.getMessage());
+            exchange.getResponseHeaders().set("Retry-After", Long.toString((e.getRetryAfterMillis() + 999) / 1000));
+        } catch (IllegalStateException e) {
+            status = 409;
+            body = error(e.getMessage());
+        } catch (Exception e) {
+            status = 500;
+            body = error(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            Log.error("api.request_failed", e, "method", exchange.getRequestMethod(),
+                    "path", exchange.getRequestURI().getPath());
+        }
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try {
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            String method = switch (exchange.getRequestMethod()) {
+                case "GET", "POST", "PUT", "DELETE" -> exchange.getRequestMethod();
+                default -> "other";
+            };
+            String route = routeLabel(exchange.getRequestURI().getPath());
+            metrics.timer("eventapp_http_request_seconds", "API requests, including writing the response.",
+                    "method", method, "route", route).recordSince(start, status >= 500);
+            metrics.counter("eventapp_http_responses_total", "API responses by status.",
+                    "method", method, "route", route, "status", Integer.toString(status)).increment();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder text = new StringBuilder(8192);
+        metrics.writePrometheus(text);
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Returns the route of a request path for metrics, e.g. {@code /api/admin/events/{id}},
+     * so label values stay few whatever clients send.
+     */
+    private static String routeLabel(String path) {
+        StringBuilder route = new StringBuilder("/api");
+        String[] segments = path.substring("/api/".length()).split("/");
+        if (segments.length > 4) return "unmatched";
+        for (String segment : segments) {
+            if (!segment.isEmpty() && segment.chars().allMatch(Character::isDigit)) {
+                route.append("/{id}");
+            } else if (ROUTE_SEGMENTS.contains(segment)) {
+                route.append('/').append(segment);
+            } else {
+                return "unmatched";
+            }
+        }
+        return route.toString();
+    }
+
+    private Object route(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String resource = path[0];
+        switch (resource) {
+            case "signup":
+                requireMethod(method, "POST");
+                return signup(body(exchange));
+            case "login":
+                requireMethod(method, "POST");
+                return login(body(exchange));
+            default:
+                break;
+        }
+        Session session = session(exchange);
+        switch (resource) {
+            case "logout":
+                requireMethod(method, "POST");
+                logout(session);
+                return Map.of("loggedOut", true);
+            case "events":
+                requireMethod(method, "GET");
+                if (path.length > 1) return eventJson(visibleEvent(session, path[1]));
+                return events(session, query);
+            case "cart":
+                return cart(session, method, exchange);
+            case "checkout":
+                requireMethod(method, "POST");
+                return checkout(session);
+            case "orders": {
+                requireMethod(method, "GET");
+                int limit = pageSize(query);
+                return ordersPage(booking.getOrderHistory(session.getUser(), intParam(query, "after", 0), limit), limit);
+            }
+            case "admin":
+                if (!"admin".equals(session.getUser().getRole())) throw new ApiException(403, "Admin access required");
+                return admin(method, path, query, exchange);
+            default:
+                throw new ApiException(404, "Unknown resource " + resource);
+        }
+    }
+
+    private Object signup(Map<String, Object> body) throws Exception {
+        User user = model.getAccountService().signup(string(body, "username"), string(body, "password"),
+                string(body, "preferredName"));
+        if (user == null) throw new IllegalArgumentException("Cannot create user");
+        return Map.of("username", user.getUsername());
+    }
+
+    private Object login(Map<String, Object> body) throws Exception {
+        User user = model.getAccountService().login(string(body, "username"), string(body, "password"));
+        if (user == null) throw new ApiException(401, "Wrong username or password");
+        Session session = sessions.create(user, true);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", session.getToken());
+        result.put("username", user.getUsername());
+        result.put("preferredName", user.getPreferredName());
+        result.put("role", user.getRole());
+        return result;
+    }
+
+    private void logout(Session session) {
+        sessions.remove(session.getToken());
+    }
+
+    private Object events(Session session, Map<String, String> query) {
+        boolean includeDisabled = "admin".equals(session.getUser().getRole()) && "true".equals(query.get("all"));
+        EventFilter filter = new EventFilter(includeDisabled, query.get("title"), query.get("day"));
+        int limit = pageSize(query);
+        List<Event> page = catalog.getEventsPage(intParam(query, "after", 0), limit, filter);
+        List<Object> events = new ArrayList<>(page.size());
+        for (Event event : page) events.add(eventJson(event));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("events", events);
+        result.put("next", page.size() < limit ? null : page.get(page.size() - 1).getEventId());
+        return result;
+    }
+
+    private Object cart(Session session, String method, HttpExchange exchange) throws Exception {
+        Cart cart = session.getCart();
+        // Requests of one session are applied one at a time, so the reply shows this change
+        synchronized (cart) {
+            switch (method) {
+                case "GET":
+                    break;
+                case "POST": {
+                    Map<String, Object> body = body(exchange);
+                    booking.addToCart(cart, event(body.get("eventId")), integer(body, "quantity"));
+                    break;
+                }
+                case "PUT": {
+                    Map<String, Object> body = body(exchange);
+                    booking.updateQuantity(cart, event(body.get("eventId")), integer(body, "quantity"));
+                    break;
+                }
+                case "DELETE":
+                    cart.clear();
+                    break;
+                default:
+                    throw new ApiException(405, "Method " + method + " not allowed");
+            }
+            return cartJson(cart);
+        }
+    }
+
+    private Object checkout(Session session) throws Exception {
+        synchronized (session.getCart()) {
+            double total = booking.computeTotal(session.getCart());
+            String orderNumber = booking.checkout(session.getUser(), session.getCart());
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("orderNo", orderNumber);
+            result.put("total", total);
+            return result;
+        }
+    }
+
+    private Object admin(String method, String[] path, Map<String, String> query, HttpExchange exchange)
+            throws Exception {
+        String resource = path.length > 1 ? path[1] : "";
+        if (resource.equals("orders")) {
+            requireMethod(method, "GET");
+            int limit = pageSize(query);
+            return ordersPage(model.getOrdersPage(intParam(query, "after", 0), limit), limit);
+        }
+        if (!resource.equals("events")) throw new ApiException(404, "Unknown resource admin/" + resource);
+        if (path.length == 2) {
+            requireMethod(method, "POST");
+            Event event = eventFromJson(body(exchange), 0, true);
+            catalog.addEvent(event);
+            return eventJson(event);
+        }
+        Event existing = event(path[2]);
+        if (path.length == 4 && path[3].equals("enabled")) {
+            requireMethod(method, "PUT");
+            Object enabled = body(exchange).get("enabled");
+            if (!(enabled instanceof Boolean)) throw new IllegalArgumentException("enabled must be true or false");
+            catalog.setEventEnabled(existing.getEventId(), (Boolean) enabled);
+            return eventJson(event(path[2]));
+        }
+        switch (method) {
+            case "PUT": {
+                Event updated = eventFromJson(body(exchange), existing.getEventId(), existing.isEnabled());
+                catalog.updateEvent(updated);
+                return eventJson(updated);
+            }
+            case "DELETE":
+                catalog.deleteEvent(existing.getEventId());
+                return Map.of("deleted", existing.getEventId());
+            default:
+                throw new ApiException(405, "Method " + method + " not allowed");
+        }
+    }
+
+    private Session session(HttpExchange exchange) throws ApiException {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) throw new ApiException(401, "Missing bearer token");
+        Session session = sessions.get(header.substring("Bearer ".length()).trim());
+        if (session == null) throw new ApiException(401, "Unknown or expired token");
+        return session;
+    }
+
+    private Event event(Object id) throws ApiException {
+        int eventId;
+        try {
+            eventId = id instanceof Number n ? n.intValue() : Integer.parseInt(String.valueOf(id));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid event id " + id);
+        }
+        Event event = model.getEventDao().getEventById(eventId);
+        if (event == null) throw new ApiException(404, "No event " + eventId);
+        return event;
+    }
+
+    /**
+     * Looks up an event as the session may see it; disabled events exist only for admins.
+     */
+    private Event visibleEvent(Session session, Object id) throws ApiException {
+        Event event = event(id);
+        if (!event.isEnabled() && !"admin".equals(session.getUser().getRole())) {
+            throw new ApiException(404, "No event " + event.getEventId());
+        }
+        return event;
+    }
+
+    private Map<String, Object> eventJson(Event event) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("eventId", event.getEventId());
+        json.put("title", event.getTitle());
+        json.put("venue", event.getVenue());
+        json.put("day", event.getDay());
+        json.put("price", event.getPrice());
+        json.put("total", event.getTotal());
+        json.put("sold", event.getSold());
+        json.put("available", booking.getAvailableSeats(event));
+        json.put("enabled", event.isEnabled());
+        return json;
+    }
+
+    private Event eventFromJson(Map<String, Object> body, int eventId, boolean enabled) {
+        return new Event(eventId, string(body, "title"), string(body, "day"), string(body, "venue"),
+                number(body, "price").doubleValue(), integer(body, "total"), integer(body, "available"), enabled);
+    }
+
+    private Map<String, Object> cartJson(Cart cart) {
+        List<Object> items = new ArrayList<>();
+        for (CartItem item : cart.getCartItems()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("eventId", item.getEvent().getEventId());
+            json.put("title", item.getEvent().getTitle());
+            json.put("day", item.getEvent().getDay());
+            json.put("quantity", item.getQuantity());
+            json.put("held", item.getHeldQuantity());
+            items.add(json);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("items", items);
+        json.put("total", booking.computeTotal(cart));
+        return json;
+    }
+
+    private Map<String, Object> ordersPage(List<Order> page, int limit) {
+        List<Object> orders = new ArrayList<>(page.size());
+        for (Order order : page) {
+            List<Object> items = new ArrayList<>();
+            for (OrderItem item : order.getItems()) {
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("eventId", item.getEventId());
+                json.put("title", item.getTitle());
+                json.put("day", item.getDay());
+                json.put("venue", item.getVenue());
+                json.put("quantity", item.getQuantity());
+                json.put("pricePerTicket", item.getPricePerTicket());
+                items.add(json);
+            }
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("orderNo", order.getOrderNumber());
+            json.put("date", order.getDateTime().toString());
+            json.put("customer", order.getCustomerName());
+            json.put("total", order.getTotalPrice());
+            json.put("items", items);
+            orders.add(json);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("orders", orders);
+        result.put("next", page.size() < limit ? null : Integer.parseInt(page.get(page.size() - 1).getOrderNumber()));
+        return result;
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("error", message);
+    }
+
+    private static void requireMethod(String method, String expected) throws ApiException {
+        if (!method.equals(expected)) throw new ApiException(405, "Method " + method + " not allowed");
+    }
+
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        return Json.parseObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int pageSize(Map<String, String> query) {
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, intParam(query, "limit", DEFAULT_PAGE_SIZE)));
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static String string(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static Number number(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof Number n)) throw new IllegalArgumentException(name + " must be a number");
+        return n;
+    }
+
+    private static int integer(Map<String, Object> body, String name) {
+        return number(body, name).intValue();
+    }
+
+    /**
+     * A failure with a specific HTTP status.
+     */
+    private static final class ApiException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package controller;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -11,24 +12,36 @@ import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import model.Model;
 import model.Event;
+import model.EventFilter;
+import model.EventImporter;
+import model.User;
+import java.io.File;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.Optional;
+import metrics.Log;
 
 /**
  * Controller for the Admin Dashboard.
  * Handles event management, order viewing, and admin account actions.
  */
 public class AdminController {
+    private static final int EVENT_PAGE_SIZE = 100;
+    private static final int ORDER_PAGE_SIZE = 200;
+
     private final Model model;
     private final Stage stage;
 
@@ -41,6 +54,7 @@ public class AdminController {
     @FXML private TableColumn<Event, Integer> soldCol;
     @FXML private TableColumn<Event, Integer> totalCol;
     @FXML private TableColumn<Event, Integer> remainingCol;
+    @FXML private TableColumn<Event, Integer> heldCol;
     @FXML private TableColumn<Event, Boolean> enableCol;
     @FXML private Button addEventBtn;
     @FXML private Button deleteEventBtn;
@@ -48,11 +62,17 @@ public class AdminController {
     @FXML private Button enableEventBtn;
     @FXML private Button disableEventBtn;
     @FXML private Button viewOrdersBtn;
+    @FXML private Button exportOrdersBtn;
+    @FXML private Button importEventsBtn;
+    @FXML private Button salesBtn;
     @FXML private Label adminMessage;
     @FXML private MenuItem adminChangePasswordMenu;
     @FXML private MenuItem adminLogoutMenu;
 
     private Event selectedEvent;
+    private PagedTableLoader<Event> eventLoader;
+    // Held seats per event ID, read with each page in the background for the held column
+    private final Map<Integer, Integer> heldSeats = new ConcurrentHashMap<>();
 
     public AdminController(Stage stage, Model model) {
         this.stage = stage;
@@ -67,7 +87,15 @@ public class AdminController {
             welcomeLabel.setText("Welcome!");
         }
         setupTableColumns();
-        eventTable.setItems(getGroupedEvents());
+        eventLoader = new PagedTableLoader<>(eventTable,
+            (afterId, limit) -> {
+                List<Event> page = model.getEventsPage(afterId, limit, EventFilter.ALL);
+                for (Event event : page) heldSeats.put(event.getEventId(), model.getHeldSeats(event));
+                return page;
+            },
+            Event::getEventId, EVENT_PAGE_SIZE,
+            error -> adminMessage.setText("Error: " + FxAsync.message(error)));
+        reloadEvents();
         eventTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> selectedEvent = newSel);
         addEventBtn.setOnAction(_ -> handleAddEvent());
         deleteEventBtn.setOnAction(_ -> handleDeleteEvent());
@@ -75,6 +103,9 @@ public class AdminController {
         enableEventBtn.setOnAction(_ -> handleEnableEvent());
         disableEventBtn.setOnAction(_ -> handleDisableEvent());
         viewOrdersBtn.setOnAction(_ -> handleViewOrders());
+        exportOrdersBtn.setOnAction(_ -> handleExportOrders());
+        importEventsBtn.setOnAction(_ -> handleImportEvents());
+        salesBtn.setOnAction(_ -> SalesDashboard.show(stage, model.getAnalyticsDao()));
         adminChangePasswordMenu.setOnAction(_ -> handleAdminChangePassword());
         adminLogoutMenu.setOnAction(_ -> handleAdminLogout());
     }
@@ -87,12 +118,55 @@ public class AdminController {
         soldCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getSold()));
         totalCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getTotal()));
         remainingCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getRemaining()));
+        heldCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+            heldSeats.getOrDefault(cell.getValue().getEventId(), 0)));
         enableCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().isEnabled()));
     }
 
-    private ObservableList<Event> getGroupedEvents() {
-        List<Event> all = model.getAllEvents(true);
-        return FXCollections.observableArrayList(all);
+    /**
+     * Reloads the event table in the background, page by page as the admin scrolls.
+     */
+    private void reloadEvents() {
+        heldSeats.clear();
+        eventLoader.reload();
+    }
+
+    /**
+     * Runs an event change in the background, then shows its outcome and reloads the table.
+     * @param action names the change in metrics and logs
+     * @param change returns the message to show on success
+     */
+    private void applyChange(String action, Callable<String> change) {
+        adminMessage.setText("Saving...");
+        FxAsync.supply(action, change, result -> {
+            adminMessage.setText(result);
+            reloadEvents();
+        }, error -> adminMessage.setText(FxAsync.errorText(error)));
+    }
+
+    /**
+     * Parses the Title;Venue;Day;Price;TotalSeats;AvailableSeats format of the add/modify dialogs.
+     * Field rules (day, seats, duplicates) are checked by the catalog service when saving.
+     * @return the parsed event, or null after showing why the input was rejected
+     */
+    private Event parseEvent(String input, int eventId, boolean enabled) {
+        String[] parts = input.split(";");
+        if (parts.length != 6) {
+            adminMessage.setText("Invalid input format.");
+            return null;
+        }
+        try {
+            String title = parts[0].trim();
+            String venue = parts[1].trim();
+            String day = parts[2].trim();
+            double price = Double.parseDouble(parts[3].trim());
+            int total = Integer.parseInt(parts[4].trim());
+            int available = Integer.parseInt(parts[5].trim());
+            return new Event(eventId, title, day, venue, price, total, available, enabled);
+        } catch (NumberFormatException ex) {
+            adminMessage.setText("Error: " + ex.getMessage());
+            return null;
+        }
     }
 
     private void handleAddEvent() {
@@ -101,44 +175,12 @@ public class AdminController {
         dialog.setContentText("Enter details:");
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()) {
-            String[] parts = result.get().split(";");
-            if (parts.length != 6) {
-                adminMessage.setText("Invalid input format.");
-                return;
-            }
-            try {
-                String title = parts[0].trim();
-                String day = parts[2].trim();
-                String venue = parts[1].trim();
-                double price = Double.parseDouble(parts[3].trim());
-                int total = Integer.parseInt(parts[4].trim());
-                int available = Integer.parseInt(parts[5].trim());
-                boolean enabled = true;
-                // Validate day field
-                if (!day.matches("Mon|Tue|Wed|Thu|Fri|Sat|Sun")) {
-                    adminMessage.setText("Day must be one of: Mon, Tue, Wed, Thu, Fri, Sat, Sun.");
-                    return;
-                }
-                // Prevent duplicate event (same day, title, and venue)
-                boolean duplicate = model.getAllEvents(true).stream()
-                    .anyMatch(e -> e.getTitle().equalsIgnoreCase(title)
-                        && e.getDay().equalsIgnoreCase(day)
-                        && e.getVenue().equalsIgnoreCase(venue));
-                if (duplicate) {
-                    adminMessage.setText("An event with the same title, day, and venue already exists.");
-                    return;
-                }
-                Event event = new Event(title, day, venue, price, total, available, enabled);
-                if (model.eventExists(event)) {
-                    adminMessage.setText("Duplicate event detected.");
-                    return;
-                }
-                model.addEvent(event);
-                eventTable.setItems(getGroupedEvents());
-                adminMessage.setText("Event added.");
-            } catch (Exception ex) {
-                adminMessage.setText("Error: " + ex.getMessage());
-            }
+            Event event = parseEvent(result.get(), 0, true);
+            if (event == null) return;
+            applyChange("addEvent", () -> {
+                model.getCatalogService().addEvent(event);
+                return "Event added.";
+            });
         }
     }
 
@@ -151,13 +193,11 @@ public class AdminController {
         confirm.setHeaderText("Confirm Delete");
         confirm.showAndWait();
         if (confirm.getResult() == ButtonType.YES) {
-            try {
-                model.deleteEvent(selectedEvent.getEventId());
-                eventTable.setItems(getGroupedEvents());
-                adminMessage.setText("Event deleted.");
-            } catch (Exception ex) {
-                adminMessage.setText("Error: " + ex.getMessage());
-            }
+            int eventId = selectedEvent.getEventId();
+            applyChange("deleteEvent", () -> {
+                model.deleteEvent(eventId);
+                return "Event deleted.";
+            });
         }
     }
 
@@ -178,57 +218,12 @@ public class AdminController {
         dialog.setContentText("Edit details:");
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()) {
-            String[] parts = result.get().split(";");
-            if (parts.length != 6) {
-                adminMessage.setText("Invalid input format.");
-                return;
-            }
-            try {
-                String title = parts[0].trim();
-                String venue = parts[1].trim();
-                String day = parts[2].trim();
-                double price = Double.parseDouble(parts[3].trim());
-                int total = Integer.parseInt(parts[4].trim());
-                int available = Integer.parseInt(parts[5].trim());
-                if (total < 0 || available < 0 || available > total) {
-                    adminMessage.setText("Invalid seat numbers.");
-                    return;
-                }
-                // Validate day field
-                if (!day.matches("Mon|Tue|Wed|Thu|Fri|Sat|Sun")) {
-                    adminMessage.setText("Day must be one of: Mon, Tue, Wed, Thu, Fri, Sat, Sun.");
-                    return;
-                }
-                // Prevent duplicate event (same day, title, and venue, but not itself)
-                boolean duplicate = model.getAllEvents(true).stream()
-                    .anyMatch(e -> e.getEventId() != selectedEvent.getEventId()
-                        && e.getTitle().equalsIgnoreCase(title)
-                        && e.getDay().equalsIgnoreCase(day)
-                        && e.getVenue().equalsIgnoreCase(venue));
-                if (duplicate) {
-                    adminMessage.setText("An event with the same title, day, and venue already exists.");
-                    return;
-                }
-                Event updated = new Event(
-                    selectedEvent.getEventId(),
-                    title,
-                    day,
-                    venue,
-                    price,
-                    total,
-                    available,
-                    selectedEvent.isEnabled()
-                );
-                if (model.eventExists(updated)) {
-                    adminMessage.setText("Duplicate event detected.");
-                    return;
-                }
-                model.updateEvent(updated);
-                eventTable.setItems(getGroupedEvents());
-                adminMessage.setText("Event modified.");
-            } catch (Exception ex) {
-                adminMessage.setText("Error: " + ex.getMessage());
-            }
+            Event updated = parseEvent(result.get(), selectedEvent.getEventId(), selectedEvent.isEnabled());
+            if (updated == null) return;
+            applyChange("modifyEvent", () -> {
+                model.getCatalogService().updateEvent(updated);
+                return "Event modified.";
+            });
         }
     }
 
@@ -237,13 +232,11 @@ public class AdminController {
             adminMessage.setText("Select an event to enable.");
             return;
         }
-        try {
-            model.setEventEnabled(selectedEvent.getEventId(), true);
-            eventTable.setItems(getGroupedEvents());
-            adminMessage.setText("Event enabled.");
-        } catch (Exception ex) {
-            adminMessage.setText("Error: " + ex.getMessage());
-        }
+        int eventId = selectedEvent.getEventId();
+        applyChange("enableEvent", () -> {
+            model.setEventEnabled(eventId, true);
+            return "Event enabled.";
+        });
     }
 
     private void handleDisableEvent() {
@@ -251,17 +244,26 @@ public class AdminController {
             adminMessage.setText("Select an event to disable.");
             return;
         }
-        try {
-            model.setEventEnabled(selectedEvent.getEventId(), false);
-            eventTable.setItems(getGroupedEvents());
-            adminMessage.setText("Event disabled.");
-        } catch (Exception ex) {
-            adminMessage.setText("Error: " + ex.getMessage());
-        }
+        int eventId = selectedEvent.getEventId();
+        applyChange("disableEvent", () -> {
+            model.setEventEnabled(eventId, false);
+            return "Event disabled.";
+        });
     }
 
     private void handleViewOrders() {
-        List<model.Order> orders = model.getOrders();
+        Task<List<model.Order>> load = new Task<>() {
+            @Override
+            protected List<model.Order> call() throws Exception {
+                updateMessage("Loading orders...");
+                return model.getOrdersPage(0, ORDER_PAGE_SIZE);
+            }
+        };
+        FxAsync.withProgress("allOrders", stage, "All Orders", load, this::showOrders,
+            error -> adminMessage.setText("Failed to load orders: " + FxAsync.message(error)));
+    }
+
+    private void showOrders(List<model.Order> orders) {
         Dialog<Void> dialog = new Dialog<>();
         dialog.setTitle("All Orders");
         dialog.setHeaderText("All Orders");
@@ -276,14 +278,17 @@ public class AdminController {
         TableColumn<model.Order, String> customerCol = new TableColumn<>("Customer");
         customerCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getCustomerName()));
         orderTable.getColumns().addAll(orderNoCol, dateCol, totalCol, customerCol);
-        orderTable.setItems(FXCollections.observableArrayList(orders));
+        PagedTableLoader<model.Order> orderLoader = new PagedTableLoader<>(orderTable,
+            model::getOrdersPage, order -> Integer.parseInt(order.getOrderNumber()), ORDER_PAGE_SIZE,
+            error -> adminMessage.setText("Failed to load orders: " + FxAsync.message(error)));
+        orderLoader.start(orders);
 
         TableView<model.OrderItem> itemTable = new TableView<>();
         TableColumn<model.OrderItem, String> eventCol = new TableColumn<>("Event");
-        eventCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getEvent().getTitle()));
+        eventCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getTitle()));
         TableColumn<model.OrderItem, String> detailsCol = new TableColumn<>("Details");
         detailsCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(
-            cell.getValue().getEvent().getDay() + ", " + cell.getValue().getEvent().getVenue()
+            cell.getValue().getDay() + ", " + cell.getValue().getVenue()
         ));
         TableColumn<model.OrderItem, Integer> qtyCol = new TableColumn<>("Quantity");
         qtyCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getQuantity()));
@@ -314,31 +319,73 @@ public class AdminController {
         dialog.showAndWait();
     }
 
+    private void handleExportOrders() {
+        FileChooser fileChooser = OrderExportSupport.newFileChooser();
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null) return;
+        OrderExportSupport.export(stage, file, fileChooser, model::exportAllOrders, adminMessage::setText);
+    }
+
+    /**
+     * Imports events in bulk from an events.dat-style or CSV file chosen by the admin.
+     */
+    private void handleImportEvents() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Events");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Event Files", "*.dat", "*.csv"),
+            new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) return;
+        Task<EventImporter.Result> task = new Task<>() {
+            @Override
+            protected EventImporter.Result call() throws Exception {
+                updateMessage("Reading " + file.getName() + "...");
+                return model.importEvents(file.toPath(), rows -> updateMessage("Read " + rows + " rows"));
+            }
+        };
+        task.setOnCancelled(_ -> adminMessage.setText("Import cancelled; no events were added."));
+        FxAsync.withProgress("importEvents", stage, "Import Events", task, result -> {
+            adminMessage.setText("Imported " + result.getImported() + " events; " + result.getDuplicates()
+                + " duplicates skipped, " + result.getErrorCount() + " invalid rows.");
+            reloadEvents();
+            if (result.getErrorCount() > 0) showImportErrors(result);
+        }, error -> adminMessage.setText("Import failed: " + FxAsync.message(error)));
+    }
+
+    private void showImportErrors(EventImporter.Result result) {
+        StringBuilder sb = new StringBuilder();
+        for (EventImporter.RowError error : result.getErrors()) sb.append(error).append('\n');
+        if (result.getErrorCount() > result.getErrors().size()) {
+            sb.append("... and ").append(result.getErrorCount() - result.getErrors().size()).append(" more.");
+        }
+        TextArea text = new TextArea(sb.toString());
+        text.setEditable(false);
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setHeaderText(result.getErrorCount() + " rows could not be imported");
+        alert.getDialogPane().setContent(text);
+        alert.showAndWait();
+    }
+
     private void handleAdminChangePassword() {
         TextInputDialog dialog = new TextInputDialog();
         dialog.setHeaderText("Change Password");
         dialog.setContentText("Enter new password:");
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()) {
-            String newPassword = result.get().trim();
-            if (newPassword.isEmpty()) {
-                adminMessage.setText("Password cannot be empty.");
-                return;
-            }
-            try {
-                boolean changed = model.getUserDao().changePassword(model.getCurrentUser().getUsername(), newPassword);
+            User user = model.getCurrentUser();
+            FxAsync.supply("changePassword", () -> model.getAccountService().changePassword(user, result.get()), changed -> {
                 if (changed) {
                     adminMessage.setText("Password changed successfully. Please use the new password next time.");
                 } else {
                     adminMessage.setText("Failed to change password.");
                 }
-            } catch (Exception e) {
-                adminMessage.setText("Error: " + e.getMessage());
-            }
+            }, error -> adminMessage.setText(FxAsync.errorText(error)));
         }
     }
 
     private void handleAdminLogout() {
+        model.logout();
         stage.close();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/LoginView.fxml"));
@@ -347,7 +394,7 @@ public class AdminController {
             Pane root = loader.load();
             loginController.showStage(root);
         } catch (Exception e) {
-            e.printStackTrace();
+            Log.error("ui.login_view_failed", e, "from", "admin");
         }
     }
 
@@ -0,0 +1,208 @@
+package controller;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import javafx.stage.Window;
+import metrics.Log;
+import metrics.Metrics;
+import metrics.Timer;
+import model.LoginThrottledException;
+
+/**
+ * Runs database work off the JavaFX Application Thread.
+ * <p>
+ * Work is executed on virtual threads; results and failures are handed back on the
+ * FX thread, so callbacks may touch controls directly. Controllers must never call
+ * DAOs or Model methods that hit the database from an event handler directly.
+ * </p>
+ * <p>
+ * Every piece of work is named by an action such as {@code "checkout"} and timed in
+ * {@code eventapp_ui_action_seconds}. Only the work itself is timed, not the dialogs
+ * around it, so the figures show what the user waited for. Failures other than
+ * rejected input are also logged, since the user only sees them as a message.
+ * </p>
+ */
+public final class FxAsync {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Private constructor to prevent instantiation
+    private FxAsync() {}
+
+    /**
+     * Database work that may throw.
+     */
+    @FunctionalInterface
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    /**
+     * Starts a computation in the background without any FX thread callback.
+     * @param action names the work in metrics and logs
+     * @param work the computation, run off the FX thread
+     * @return a future completing with the result, or exceptionally with the failure
+     */
+    public static <T> CompletableFuture<T> submit(String action, Callable<T> work) {
+        Timer timer = timer(action);
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                T result = work.call();
+                timer.recordSince(start, false);
+                return result;
+            } catch (Exception e) {
+                timer.recordSince(start, true);
+                logFailure(action, e);
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Runs a computation in the background.
+     * @param action names the work in metrics and logs
+     * @param work the computation, run off the FX thread
+     * @param onSuccess receives the result on the FX thread
+     * @param onFailure receives the failure cause on the FX thread
+     * @return a future completing with the result
+     */
+    public static <T> CompletableFuture<T> supply(String action, Callable<T> work, Consumer<T> onSuccess,
+                                                  Consumer<Throwable> onFailure) {
+        CompletableFuture<T> future = submit(action, work);
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(cause(error));
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Runs work with no result in the background.
+     * @param action names the work in metrics and logs
+     * @param work the work, run off the FX thread
+     * @param onSuccess run on the FX thread when the work completes
+     * @param onFailure receives the failure cause on the FX thread
+     * @return a future completing when the work is done
+     */
+    public static CompletableFuture<Void> run(String action, Work work, Runnable onSuccess,
+                                              Consumer<Throwable> onFailure) {
+        return supply(action, () -> {
+            work.run();
+            return null;
+        }, ignored -> onSuccess.run(), onFailure);
+    }
+
+    /**
+     * Runs a cancellable task in the background while a small progress window is shown.
+     * The window reflects the task's progress and message and offers a Cancel button.
+     * @param action names the task in metrics and logs
+     * @param owner the window the progress dialog belongs to
+     * @param title the progress dialog text shown before the task reports a message
+     * @param task the task to run
+     * @param onSuccess receives the result on the FX thread
+     * @param onFailure receives the failure cause on the FX thread; not called on cancel
+     * @return the running task
+     */
+    public static <T> Task<T> withProgress(String action, Window owner, String title, Task<T> task,
+                                           Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Timer timer = timer(action);
+        long start = System.nanoTime();
+        Label message = new Label(title);
+        task.messageProperty().addListener((obs, oldMsg, newMsg) -> {
+            if (newMsg != null && !newMsg.isEmpty()) message.setText(newMsg);
+        });
+        ProgressBar bar = new ProgressBar();
+        bar.setPrefWidth(260);
+        bar.progressProperty().bind(task.progressProperty());
+        Button cancel = new Button("Cancel");
+        cancel.setOnAction(e -> task.cancel(true));
+        VBox box = new VBox(10, message, bar, cancel);
+        box.setAlignment(Pos.CENTER);
+        box.setPadding(new Insets(15));
+
+        Stage dialog = new Stage(StageStyle.UTILITY);
+        if (owner != null) {
+            dialog.initOwner(owner);
+            dialog.initModality(Modality.WINDOW_MODAL);
+        }
+        dialog.setTitle(title);
+        dialog.setScene(new Scene(box));
+        dialog.setOnCloseRequest(e -> task.cancel(true));
+
+        // Handlers are added rather than set so callers can still use setOnCancelled etc.
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> {
+            timer.recordSince(start, false);
+            dialog.close();
+            onSuccess.accept(task.getValue());
+        });
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e -> {
+            timer.recordSince(start, true);
+            logFailure(action, task.getException());
+            dialog.close();
+            onFailure.accept(task.getException());
+        });
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, e -> dialog.close());
+        EXECUTOR.execute(task);
+        dialog.show();
+        return task;
+    }
+
+    private static Timer timer(String action) {
+        return Metrics.registry().timer("eventapp_ui_action_seconds",
+                "Background work started from the user interface.", "action", action);
+    }
+
+    /**
+     * Logs failures the user cannot fix by correcting their input. Rejected input,
+     * conflicts such as sold-out events and throttled logins are expected and not logged.
+     */
+    private static void logFailure(String action, Throwable error) {
+        if (error instanceof IllegalArgumentException || error instanceof IllegalStateException
+                || error instanceof LoginThrottledException) {
+            return;
+        }
+        Log.warn("ui.action_failed", error, "action", action);
+    }
+
+    /**
+     * Unwraps the CompletionException a failed future reports.
+     */
+    static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Returns the text to show for a failure: validation messages (IllegalArgumentException)
+     * as they are, anything else prefixed with "Error: ".
+     */
+    public static String errorText(Throwable error) {
+        return error instanceof IllegalArgumentException ? message(error) : "Error: " + message(error);
+    }
+
+    /**
+     * Returns a readable message for a failure reported by one of the methods above.
+     */
+    public static String message(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+}
@@ -1,5 +1,7 @@
 package controller;
 
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -8,11 +10,21 @@ import javafx.beans.property.*;
 import javafx.collections.*;
 import javafx.scene.*;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import model.BookingService;
+import model.Cart;
+import model.Days;
 import model.Event;
+import model.EventFilter;
+import model.EventQuery;
+import model.EventSearchResult;
 import model.Model;
 import model.Order;
 import model.OrderItem;
+import model.Session;
+import model.SoldOutException;
+import model.User;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TableColumn;
@@ -20,6 +32,8 @@ import javafx.scene.control.Label;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.fxml.FXMLLoader;
+import javafx.util.Duration;
+import metrics.Log;
 
 /**
  * Controller for the Home (user) dashboard.
@@ -27,10 +41,21 @@ import javafx.fxml.FXMLLoader;
  */
 @SuppressWarnings({"unused", "unchecked"})
 public class HomeController {
+    private static final int EVENT_PAGE_SIZE = 100;
+    private static final int ORDER_PAGE_SIZE = 200;
+    private static final int SEARCH_LIMIT = 500;
+    private static final String ANY_DAY = "Any day";
+
     private Model model;
     private Stage stage;
 
     @FXML private Label welcomeLabel;
+    @FXML private TextField searchField;
+    @FXML private ComboBox<String> dayFilterBox;
+    @FXML private TextField minPriceField;
+    @FXML private TextField maxPriceField;
+    @FXML private CheckBox availableOnlyBox;
+    @FXML private Label searchSummary;
     @FXML private TableView<Event> eventTable;
     @FXML private TableColumn<Event, String> titleCol;
     @FXML private TableColumn<Event, String> venueCol;
@@ -55,6 +80,9 @@ public class HomeController {
     @FXML private MenuItem logoutMenu;
 
     private Event selectedEvent;
+    private PagedTableLoader<Event> eventLoader;
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(200));
+    private int searchGeneration;
 
     public HomeController() {
         // No-arg constructor for FXML loader
@@ -68,6 +96,20 @@ public class HomeController {
     public void setStageAndModel(Stage parentStage, Model model) {
         this.stage = new Stage();
         this.model = model;
+        eventLoader = new PagedTableLoader<>(eventTable,
+            (afterId, limit) -> model.getEventsPage(afterId, limit, EventFilter.ENABLED),
+            Event::getEventId, EVENT_PAGE_SIZE,
+            error -> cartMessage.setText("Failed to load events: " + FxAsync.message(error)));
+        // Search as the user types, once typing pauses
+        dayFilterBox.getItems().add(ANY_DAY);
+        dayFilterBox.getItems().addAll(Days.NAMES);
+        dayFilterBox.setValue(ANY_DAY);
+        searchDelay.setOnFinished(_ -> loadEvents());
+        searchField.textProperty().addListener((_, __, ___) -> searchDelay.playFromStart());
+        minPriceField.textProperty().addListener((_, __, ___) -> searchDelay.playFromStart());
+        maxPriceField.textProperty().addListener((_, __, ___) -> searchDelay.playFromStart());
+        dayFilterBox.valueProperty().addListener((_, __, ___) -> loadEvents());
+        availableOnlyBox.selectedProperty().addListener((_, __, ___) -> loadEvents());
         // Restore all event handlers and validation logic
         refreshView();
         // Listen for event selection changes
@@ -86,11 +128,11 @@ public class HomeController {
         exportOrdersMenu.setOnAction(_ -> handleExportOrders());
         logoutMenu.setOnAction(_ -> handleLogout());
         // Disable checkout if cart is empty
-        checkoutBtn.setDisable(model.getCart().getItems().isEmpty());
+        checkoutBtn.setDisable(model.getCart().isEmpty());
         // Enable/disable remove button based on cart contents
         eventTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             selectedEvent = newValue;
-            if (selectedEvent == null || !model.getCart().getItems().containsKey(selectedEvent)) {
+            if (selectedEvent == null || !model.getCart().contains(selectedEvent)) {
                 removeFromCartBtn.setDisable(true);
             } else {
                 removeFromCartBtn.setDisable(false);
@@ -115,9 +157,71 @@ public class HomeController {
         soldCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getSold()));
         totalCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getTotal()));
         remainingCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getRemaining()));
-        // Load events from the model
-        List<Event> events = model.getAllEvents(false);
-        eventTable.setItems(FXCollections.observableArrayList(events));
+        loadEvents();
+    }
+
+    /**
+     * Shows the events matching the search box and filters, or pages through the whole
+     * catalog when none are set.
+     */
+    private void loadEvents() {
+        int generation = ++searchGeneration;
+        EventQuery query = new EventQuery(searchField.getText());
+        query.setDay(ANY_DAY.equals(dayFilterBox.getValue()) ? null : dayFilterBox.getValue());
+        query.setAvailableOnly(availableOnlyBox.isSelected());
+        query.setLimit(SEARCH_LIMIT);
+        try {
+            query.setMinPrice(parsePrice(minPriceField.getText()));
+            query.setMaxPrice(parsePrice(maxPriceField.getText()));
+        } catch (NumberFormatException e) {
+            searchSummary.setText("Prices must be numbers.");
+            return;
+        }
+        if (query.isEmpty()) {
+            searchSummary.setText("");
+            // Load events page by page in the background
+            eventLoader.reload();
+            return;
+        }
+        FxAsync.supply("searchEvents", () -> model.searchEvents(query), result -> {
+            // A newer search was started meanwhile
+            if (generation != searchGeneration) return;
+            eventLoader.show(result.getEvents());
+            searchSummary.setText(describe(result));
+        }, error -> searchSummary.setText("Search failed: " + FxAsync.message(error)));
+    }
+
+    private static Double parsePrice(String text) {
+        return text == null || text.isBlank() ? null : Double.valueOf(text.trim());
+    }
+
+    /**
+     * Summarizes a search: how many events match and where they are.
+     */
+    private static String describe(EventSearchResult result) {
+        StringBuilder sb = new StringBuilder();
+        int total = result.getTotalMatches();
+        if (result.getEvents().size() < total) {
+            sb.append("Showing ").append(result.getEvents().size()).append(" of ");
+        }
+        sb.append(total).append(total == 1 ? " match" : " matches");
+        appendCounts(sb, result.getDayCounts(), Days.NAMES.size());
+        appendCounts(sb, result.getVenueCounts(), 3);
+        return sb.toString();
+    }
+
+    private static void appendCounts(StringBuilder sb, Map<String, Integer> counts, int max) {
+        if (counts.isEmpty()) return;
+        sb.append("  |  ");
+        int shown = 0;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            if (shown == max) {
+                sb.append(", ...");
+                break;
+            }
+            if (shown++ > 0) sb.append(", ");
+            sb.append(count.getKey()).append(' ').append(count.getValue());
+        }
     }
 
     @FXML
@@ -134,30 +238,16 @@ public class HomeController {
             cartMessage.setText("Select an event first.");
             return;
         }
-        // Prevent adding events for days earlier than today
-        String today = getTodayDayString();
-        int todayIdx = getDayIndex(today);
-        int eventIdx = getDayIndex(selectedEvent.getDay());
-        if (eventIdx < todayIdx) {
-            cartMessage.setText("Cannot add past events to cart.");
-            return;
-        }
-        int qty = parseQuantity();
-        if (qty <= 0) {
-            cartMessage.setText("Enter a valid quantity.");
-            return;
-        }
-        int available = selectedEvent.getRemaining();
-        int inCart = model.getCart().getItems().getOrDefault(selectedEvent, 0);
-        if (qty + inCart > available) {
-            cartMessage.setText("Not enough seats available. Only " + (available - inCart) + " left.");
-            return;
-        }
-        model.getCart().addToCart(selectedEvent, qty);
-        cartMessage.setText("Added to cart.");
-        quantityField.setText(""); // Reset quantity field after adding
-        checkoutBtn.setDisable(model.getCart().getItems().isEmpty());
-        removeFromCartBtn.setDisable(!model.getCart().getItems().containsKey(selectedEvent));
+        Event event = selectedEvent;
+        Cart cart = model.getCart();
+        int quantity = parseQuantity();
+        // Adding to the cart holds the seats; it fails if they are no longer free
+        FxAsync.run("addToCart", () -> model.getBookingService().addToCart(cart, event, quantity), () -> {
+            cartMessage.setText("Added to cart.");
+            quantityField.setText(""); // Reset quantity field after adding
+            checkoutBtn.setDisable(cart.isEmpty());
+            removeFromCartBtn.setDisable(!cart.contains(event));
+        }, error -> cartMessage.setText(cartError(error)));
     }
 
     /**
@@ -169,20 +259,22 @@ public class HomeController {
             cartMessage.setText("Select an event first.");
             return;
         }
+        Event event = selectedEvent;
+        Cart cart = model.getCart();
         int qty = parseQuantity();
-        if (qty < 0) {
-            cartMessage.setText("Enter a valid quantity.");
-            return;
-        }
-        int available = selectedEvent.getRemaining();
-        if (qty > available) {
-            cartMessage.setText("Not enough seats available. Only " + available + " left.");
-            return;
-        }
-        model.getCart().updateQuantity(selectedEvent, qty);
-        cartMessage.setText(qty == 0 ? "Removed from cart." : "Cart updated.");
-        checkoutBtn.setDisable(model.getCart().getItems().isEmpty());
-        removeFromCartBtn.setDisable(selectedEvent == null || !model.getCart().getItems().containsKey(selectedEvent));
+        FxAsync.run("updateCart", () -> model.getBookingService().updateQuantity(cart, event, qty), () -> {
+            cartMessage.setText(qty == 0 ? "Removed from cart." : "Cart updated.");
+            checkoutBtn.setDisable(cart.isEmpty());
+            removeFromCartBtn.setDisable(!cart.contains(event));
+        }, error -> cartMessage.setText(cartError(error)));
+    }
+
+    /**
+     * Returns the text to show when the cart could not be changed: sold-out and
+     * validation messages as they are, anything else as an error.
+     */
+    private static String cartError(Throwable error) {
+        return error instanceof SoldOutException ? FxAsync.message(error) : FxAsync.errorText(error);
     }
 
     /**
@@ -195,7 +287,7 @@ public class HomeController {
         }
         model.getCart().removeFromCart(selectedEvent);
         cartMessage.setText("Removed from cart.");
-        checkoutBtn.setDisable(model.getCart().getItems().isEmpty());
+        checkoutBtn.setDisable(model.getCart().isEmpty());
         removeFromCartBtn.setDisable(true);
     }
 
@@ -204,9 +296,12 @@ public class HomeController {
      */
     private void handleViewCart() {
         StringBuilder sb = new StringBuilder();
-        model.getCart().getItems().forEach((event, qty) -> {
-            sb.append(event.getTitle()).append(" (" + event.getDay() + "): ").append(qty).append("\n");
-        });
+        for (model.CartItem item : model.getCart().getCartItems()) {
+            Event event = item.getEvent();
+            sb.append(event.getTitle()).append(" (" + event.getDay() + "): ").append(item.getQuantity());
+            if (!item.isFullyHeld()) sb.append(" (hold expired)");
+            sb.append("\n");
+        }
         if (sb.length() == 0) sb.append("Cart is empty.");
         Alert alert = new Alert(Alert.AlertType.INFORMATION, sb.toString(), ButtonType.OK);
         alert.setHeaderText("Your Cart");
@@ -217,37 +312,34 @@ public class HomeController {
      * Handles the checkout process, including validation, confirmation, and order creation.
      */
     private void handleCheckout() {
-        if (model.getCart().getItems().isEmpty()) {
+        if (model.getCart().isEmpty()) {
             cartMessage.setText("Cart is empty. Cannot checkout.");
             checkoutBtn.setDisable(true);
             return;
-        } else {
-            checkoutBtn.setDisable(false);
         }
-        StringBuilder warnings = new StringBuilder();
-        // Check for seat availability
-        model.getCart().getItems().forEach((event, qty) -> {
-            if (qty > event.getRemaining()) {
-                warnings.append(event.getTitle()).append(" (" + event.getDay() + ") - only ")
-                    .append(event.getRemaining()).append(" left.\n");
+        BookingService booking = model.getBookingService();
+        Cart cart = model.getCart();
+        checkoutBtn.setDisable(true);
+        // Validation reads seat availability, so it runs off the FX thread like the order itself
+        FxAsync.supply("validateCheckout", () -> booking.validateCheckout(cart), warnings -> {
+            checkoutBtn.setDisable(cart.isEmpty());
+            if (!warnings.isEmpty()) {
+                cartMessage.setText("Checkout failed. Issues:\n" + String.join("\n", warnings));
+                return;
             }
+            confirmCheckout(booking, cart);
+        }, error -> {
+            checkoutBtn.setDisable(cart.isEmpty());
+            cartMessage.setText("Checkout failed: " + FxAsync.message(error));
         });
-        // Check for event date validity
-        String today = getTodayDayString();
-        int todayIdx = getDayIndex(today);
-        for (Event event : model.getCart().getItems().keySet()) {
-            int eventIdx = getDayIndex(event.getDay());
-            if (eventIdx < todayIdx) {
-                warnings.append(event.getTitle()).append(" (" + event.getDay() + ") - cannot book past events.\n");
-            }
-        }
-        if (warnings.length() > 0) {
-            cartMessage.setText("Checkout failed. Issues:\n" + warnings);
-            return;
-        }
-        // Calculate total price
-        double total = model.getCart().getItems().entrySet().stream()
-            .mapToDouble(e -> e.getKey().getPrice() * e.getValue()).sum();
+    }
+
+    /**
+     * Asks the user to confirm the total and enter the confirmation code, then places the
+     * order for a cart that passed validation.
+     */
+    private void confirmCheckout(BookingService booking, Cart cart) {
+        double total = booking.computeTotal(cart);
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, "Total price: $" + String.format("%.2f", total) + "\nProceed to payment?", ButtonType.YES, ButtonType.NO);
         confirm.setHeaderText("Confirm Checkout");
         confirm.showAndWait();
@@ -264,37 +356,44 @@ public class HomeController {
             cartMessage.setText("Invalid confirmation code. Payment failed.");
             return;
         }
-        // Simulate booking: update sold count in event objects (in-memory only)
-        model.getCart().getItems().forEach((event, qty) -> {
-            try {
-                java.lang.reflect.Field soldField = event.getClass().getDeclaredField("sold");
-                soldField.setAccessible(true);
-                soldField.setInt(event, event.getSold() + qty);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
-        });
         // Save order
-        List<model.OrderItem> orderItems = new java.util.ArrayList<>();
-        model.getCart().getItems().forEach((event, qty) -> {
-            orderItems.add(new model.OrderItem(event, qty));
+        Order order = booking.buildOrder(model.getCurrentUser(), cart);
+        checkoutBtn.setDisable(true);
+        cartMessage.setText("Processing payment...");
+        // Seats are reserved atomically for the whole cart; nothing is booked on failure
+        Session session = model.getCurrentSession();
+        FxAsync.supply("checkout", () -> model.addOrder(session, order), orderNumber -> {
+            model.clearCart();
+            refreshView();
+            cartMessage.setText("Checkout successful! Payment confirmed. Order No: " + orderNumber);
+        }, error -> {
+            checkoutBtn.setDisable(model.getCart().isEmpty());
+            cartMessage.setText("Checkout failed: " + FxAsync.message(error));
+            refreshView();
         });
-        String orderNumber = model.getNextOrderNumber();
-        java.time.LocalDateTime now = java.time.LocalDateTime.now();
-        String customerName = model.getCurrentUser() != null ? model.getCurrentUser().getPreferredName() : "";
-        model.Order order = new model.Order(orderNumber, now, orderItems, total, customerName);
-        model.addOrder(order);
-        model.clearCart();
-        eventTable.refresh();
-        cartMessage.setText("Checkout successful! Payment confirmed. Order No: " + orderNumber);
     }
 
     /**
      * Displays the current user's order history in a popup window.
      */
     private void handleViewOrders() {
-        // Use DB-backed method to get only current user's orders
-        List<Order> userOrders = model.getOrdersForCurrentUser();
+        // Use DB-backed method to get only current user's orders; later pages load on scroll
+        Task<List<Order>> load = new Task<>() {
+            @Override
+            protected List<Order> call() throws Exception {
+                updateMessage("Loading orders...");
+                return model.getOrdersPageForCurrentUser(0, ORDER_PAGE_SIZE);
+            }
+        };
+        FxAsync.withProgress("orderHistory", eventTable.getScene().getWindow(), "Order History", load, this::showOrders,
+            error -> cartMessage.setText("Failed to load orders: " + FxAsync.message(error)));
+    }
+
+    /**
+     * Shows the order history popup, starting with the given first page of orders.
+     * @param userOrders The first page of the current user's orders.
+     */
+    private void showOrders(List<Order> userOrders) {
         if (userOrders.isEmpty()) {
             Alert alert = new Alert(Alert.AlertType.INFORMATION, "No orders found.", ButtonType.OK);
             alert.setHeaderText("Order History");
@@ -309,18 +408,21 @@ public class HomeController {
         TableColumn<Order, Double> totalCol = new TableColumn<>("Total");
         totalCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getTotalPrice()));
         orderTable.getColumns().addAll(orderNumCol, dateCol, totalCol);
-        orderTable.setItems(FXCollections.observableArrayList(userOrders));
+        PagedTableLoader<Order> orderLoader = new PagedTableLoader<>(orderTable,
+            model::getOrdersPageForCurrentUser, order -> Integer.parseInt(order.getOrderNumber()), ORDER_PAGE_SIZE,
+            error -> cartMessage.setText("Failed to load orders: " + FxAsync.message(error)));
+        orderLoader.start(userOrders);
         orderTable.setPrefHeight(200);
 
         TableView<OrderItem> itemTable = new TableView<>();
         TableColumn<OrderItem, String> eventCol = new TableColumn<>("Event");
-        eventCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getEvent().getTitle()));
+        eventCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getTitle()));
         TableColumn<OrderItem, String> dayCol = new TableColumn<>("Day");
-        dayCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getEvent().getDay()));
+        dayCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getDay()));
         TableColumn<OrderItem, Integer> qtyCol = new TableColumn<>("Quantity");
         qtyCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getQuantity()));
         TableColumn<OrderItem, Double> priceCol = new TableColumn<>("Price");
-        priceCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getEvent().getPrice()));
+        priceCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getPricePerTicket()));
         itemTable.getColumns().addAll(eventCol, dayCol, qtyCol, priceCol);
         itemTable.setPrefHeight(150);
 
@@ -348,28 +450,17 @@ public class HomeController {
     }
 
     /**
-     * Exports all orders to a user-selected text file.
+     * Exports the current user's orders to a user-selected file.
+     * The format follows the chosen extension: text, CSV or JSON Lines.
      */
     private void handleExportOrders() {
-        FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Export Orders");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        FileChooser fileChooser = OrderExportSupport.newFileChooser();
         Stage fileStage = new Stage();
         java.io.File file = fileChooser.showSaveDialog(fileStage);
         if (file == null) return;
-        List<Order> orders = model.getOrders();
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(file)) {
-            for (Order order : orders) {
-                writer.println("Order No: " + order.getOrderNumber() + " | Date: " + order.getDateTime() + " | Total: $" + String.format("%.2f", order.getTotalPrice()));
-                for (OrderItem item : order.getItems()) {
-                    writer.println("   - " + item.getEvent().getTitle() + " (" + item.getEvent().getDay() + ") x " + item.getQuantity());
-                }
-                writer.println();
-            }
-            cartMessage.setText("Orders exported to: " + file.getAbsolutePath());
-        } catch (Exception ex) {
-            cartMessage.setText("Failed to export orders: " + ex.getMessage());
-        }
+        OrderExportSupport.export(eventTable.getScene().getWindow(), file, fileChooser,
+            (path, format, progress) -> model.exportOrdersForCurrentUser(path, format, progress),
+            cartMessage::setText);
     }
 
     /**
@@ -381,21 +472,14 @@ public class HomeController {
         dialog.setContentText("Enter new password:");
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()) {
-            String newPassword = result.get().trim();
-            if (newPassword.isEmpty()) {
-                cartMessage.setText("Password cannot be empty.");
-                return;
-            }
-            try {
-                boolean changed = model.getUserDao().changePassword(model.getCurrentUser().getUsername(), newPassword);
+            User user = model.getCurrentUser();
+            FxAsync.supply("changePassword", () -> model.getAccountService().changePassword(user, result.get()), changed -> {
                 if (changed) {
                     cartMessage.setText("Password changed successfully. Please use the new password next time.");
                 } else {
                     cartMessage.setText("Failed to change password.");
                 }
-            } catch (Exception e) {
-                cartMessage.setText("Error: " + e.getMessage());
-            }
+            }, error -> cartMessage.setText(FxAsync.errorText(error)));
         }
     }
 
@@ -403,6 +487,7 @@ public class HomeController {
      * Logs out the current user and returns to the login screen.
      */
     private void handleLogout() {
+        model.logout();
         // Close this window
         stage.close();
         // Show the login window again
@@ -413,7 +498,7 @@ public class HomeController {
             Pane root = loader.load();
             loginController.showStage(root);
         } catch (Exception e) {
-            e.printStackTrace();
+            Log.error("ui.login_view_failed", e, "from", "home");
         }
     }
 
@@ -439,39 +524,4 @@ public class HomeController {
         stage.setTitle("Home");
         stage.show();
     }
-
-    /**
-     * Gets the current day of week as a 3-letter string (e.g., "Mon").
-     */
-    private String getTodayDayString() {
-        java.time.DayOfWeek day = java.time.LocalDate.now().getDayOfWeek();
-        switch (day) {
-            case MONDAY: return "Mon";
-            case TUESDAY: return "Tue";
-            case WEDNESDAY: return "Wed";
-            case THURSDAY: return "Thu";
-            case FRIDAY: return "Fri";
-            case SATURDAY: return "Sat";
-            case SUNDAY: return "Sun";
-            default: return "";
-        }
-    }
-
-    /**
-     * Returns the index of the given 3-letter day string (Mon=0, ..., Sun=6).
-     * @param day The day string.
-     * @return The index, or -1 if invalid.
-     */
-    private int getDayIndex(String day) {
-        switch (day) {
-            case "Mon": return 0;
-            case "Tue": return 1;
-            case "Wed": return 2;
-            case "Thu": return 3;
-            case "Fri": return 4;
-            case "Sat": return 5;
-            case "Sun": return 6;
-            default: return -1;
-        }
-    }
 }
@@ -56,6 +56,32 @@ public class LoginController {
         }
     }
 
+    /**
+     * Opens the dashboard matching the user's role and hides the login window.
+     * @param user The authenticated user.
+     */
+    private void showDashboard(User user) {
+        model.setCurrentUser(user);
+        Stage currentStage = (Stage) login.getScene().getWindow();
+        if ("admin".equals(user.getRole())) {
+            showAdminDashboard();
+            currentStage.hide();
+            return;
+        }
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/HomeView.fxml"));
+            HomeController homeController = new HomeController();
+            loader.setController(homeController);
+            VBox root = loader.load();
+            homeController.setStageAndModel(stage, model);
+            homeController.showStage(root);
+            currentStage.hide(); // Hide the login window after successful login
+        } catch (IOException e) {
+            message.setText(e.getMessage());
+            message.setTextFill(Color.RED);
+        }
+    }
+
     /**
      * Initializes the login and signup button actions.
      */
@@ -63,36 +89,26 @@ public class LoginController {
     public void initialize() {
         // Login button action
         login.setOnAction(_ -> {
-            if (!name.getText().isEmpty() && !password.getText().isEmpty()) {
-                try {
-                    User user = model.getUserDao().getUser(name.getText(), password.getText());
-                    if (user != null) {
-                        model.setCurrentUser(user);
-                        Stage currentStage = (Stage) login.getScene().getWindow();
-                        if ("admin".equals(user.getRole())) {
-                            showAdminDashboard();
-                            currentStage.hide();
-                        } else {
-                            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/HomeView.fxml"));
-                            HomeController homeController = new HomeController();
-                            loader.setController(homeController);
-                            VBox root = loader.load();
-                            homeController.setStageAndModel(stage, model);
-                            homeController.showStage(root);
-                            currentStage.hide(); // Hide the login window after successful login
-                        }
-                    } else {
-                        message.setText("Wrong username or password");
-                        message.setTextFill(Color.RED);
-                    }
-                } catch (Exception e) {
-                    message.setText(e.getMessage());
+            String username = name.getText();
+            String pass = password.getText();
+            // Look the user up off the FX thread; navigation happens once the result is back
+            login.setDisable(true);
+            message.setText("Signing in...");
+            message.setTextFill(Color.BLACK);
+            FxAsync.supply("login", () -> model.getAccountService().login(username, pass), user -> {
+                login.setDisable(false);
+                message.setText("");
+                if (user != null) {
+                    showDashboard(user);
+                } else {
+                    message.setText("Wrong username or password");
                     message.setTextFill(Color.RED);
                 }
-            } else {
-                message.setText("Empty username or password");
+            }, error -> {
+                login.setDisable(false);
+                message.setText(FxAsync.message(error));
                 message.setTextFill(Color.RED);
-            }
+            });
             name.clear();
             password.clear();
         });
@@ -0,0 +1,80 @@
+package controller;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import javafx.concurrent.Task;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import model.ExportFormat;
+import model.OrderExporter;
+
+/**
+ * Order export steps shared by the Home and Admin dashboards.
+ */
+final class OrderExportSupport {
+    /**
+     * Starts an export of some scope of orders.
+     */
+    @FunctionalInterface
+    interface Export {
+        int run(Path file, ExportFormat format, OrderExporter.Progress progress) throws Exception;
+    }
+
+    // Private constructor to prevent instantiation
+    private OrderExportSupport() {}
+
+    /**
+     * Returns a save dialog offering every export format.
+     */
+    static FileChooser newFileChooser() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Orders");
+        for (ExportFormat format : ExportFormat.values()) {
+            fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter(format.getDescription(), "*." + format.getExtension()));
+        }
+        return fileChooser;
+    }
+
+    /**
+     * Runs an export in the background behind a cancellable progress window.
+     * @param owner the window the progress dialog belongs to
+     * @param file the file chosen in the save dialog
+     * @param fileChooser the dialog the file was chosen with; its selected filter picks the
+     *                    format when the file name has no known extension
+     * @param export the export to run
+     * @param status receives the outcome message on the FX thread
+     */
+    static void export(Window owner, File file, FileChooser fileChooser, Export export, Consumer<String> status) {
+        ExportFormat format = formatFor(file, fileChooser);
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                updateMessage("Counting orders...");
+                return export.run(file.toPath(), format, (exported, total) -> {
+                    updateProgress(exported, Math.max(total, 1));
+                    updateMessage("Exported " + exported + " of " + total + " orders");
+                });
+            }
+        };
+        task.setOnCancelled(_ -> status.accept("Export cancelled."));
+        FxAsync.withProgress("exportOrders", owner, "Export Orders", task,
+            count -> status.accept("Exported " + count + " orders to: " + file.getAbsolutePath()),
+            error -> status.accept("Failed to export orders: " + FxAsync.message(error)));
+    }
+
+    private static ExportFormat formatFor(File file, FileChooser fileChooser) {
+        String name = file.getName().toLowerCase();
+        for (ExportFormat format : ExportFormat.values()) {
+            if (name.endsWith("." + format.getExtension())) return format;
+        }
+        FileChooser.ExtensionFilter selected = fileChooser.getSelectedExtensionFilter();
+        if (selected != null) {
+            for (ExportFormat format : ExportFormat.values()) {
+                if (format.getDescription().equals(selected.getDescription())) return format;
+            }
+        }
+        return ExportFormat.TEXT;
+    }
+}
@@ -0,0 +1,238 @@
+package controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+/**
+ * Fills a TableView page by page as the user scrolls.
+ * <p>
+ * Pages are fetched with keyset pagination: each request passes the key of the last row
+ * already shown, so every page costs the same to load. When the user scrolls into the
+ * last fifth of the loaded rows the next page is appended. The page after that is
+ * fetched in the background as soon as a page arrives, so scrolling rarely waits on
+ * the database.
+ * <p>
+ * At most {@link #MAX_PAGES} pages are held at a time. Appending a page beyond that drops
+ * the first one; scrolling back to the top of the window fetches the page before it again
+ * from its remembered start key and drops the last one, so memory stays flat however far
+ * the user scrolls. A page fetched again shows the rows as they are now.
+ * </p>
+ * @param <T> the row type
+ */
+final class PagedTableLoader<T> {
+    private static final double LOAD_THRESHOLD = 0.8;
+    private static final int MAX_PAGES = 5;
+
+    /**
+     * Fetches one page; runs off the FX thread.
+     */
+    @FunctionalInterface
+    interface PageSource<T> {
+        /**
+         * @param afterKey the key of the last row already loaded, or 0 for the first page
+         * @param limit the page size
+         * @return up to limit rows; fewer means there are no more pages
+         */
+        List<T> fetch(int afterKey, int limit) throws Exception;
+    }
+
+    private final TableView<T> table;
+    private final PageSource<T> source;
+    private final ToIntFunction<T> keyOf;
+    private final int pageSize;
+    private final Consumer<Throwable> onError;
+
+    // All state below is only touched on the FX thread
+    private int generation;
+    private int cursor;
+    // The key each page was fetched after, by page number, for every page reached so far
+    private final List<Integer> pageKeys = new ArrayList<>();
+    // The page number of the first row shown, and the row count of each page shown
+    private int firstPage;
+    private final Deque<Integer> pageRows = new ArrayDeque<>();
+    private boolean loading;
+    private boolean exhausted;
+    private CompletableFuture<List<T>> prefetched;
+    private ScrollBar scrollBar;
+
+    /**
+     * Constructs a loader; call {@link #reload()} or {@link #start(List)} to show the first page.
+     * @param table the table to fill
+     * @param source fetches pages
+     * @param keyOf extracts the pagination key from a row
+     * @param pageSize rows per page
+     * @param onError receives load failures on the FX thread
+     */
+    PagedTableLoader(TableView<T> table, PageSource<T> source, ToIntFunction<T> keyOf, int pageSize,
+                     Consumer<Throwable> onError) {
+        this.table = table;
+        this.source = source;
+        this.keyOf = keyOf;
+        this.pageSize = pageSize;
+        this.onError = onError;
+        // The scroll bar only exists once the table has a skin
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::attachScrollBar));
+        Platform.runLater(this::attachScrollBar);
+    }
+
+    /**
+     * Discards the loaded rows and loads the first page again.
+     */
+    void reload() {
+        reset();
+        loadNext();
+    }
+
+    /**
+     * Shows a first page that has already been fetched.
+     * @param firstPage the rows of the first page
+     */
+    void start(List<T> firstPage) {
+        reset();
+        append(firstPage, 0);
+    }
+
+    /**
+     * Shows a fixed list of rows and loads no further pages, e.g. search results.
+     * @param rows the rows to show
+     */
+    void show(List<T> rows) {
+        reset();
+        table.getItems().addAll(rows);
+        exhausted = true;
+    }
+
+    private void reset() {
+        generation++;
+        cursor = 0;
+        pageKeys.clear();
+        firstPage = 0;
+        pageRows.clear();
+        loading = false;
+        exhausted = false;
+        prefetched = null;
+        table.setItems(FXCollections.observableArrayList());
+    }
+
+    private void loadNext() {
+        if (loading || exhausted) return;
+        loading = true;
+        int afterKey = cursor;
+        CompletableFuture<List<T>> page = prefetched != null ? prefetched : fetch(afterKey);
+        prefetched = null;
+        whenLoaded(page, rows -> append(rows, afterKey));
+    }
+
+    private void loadPrevious() {
+        if (loading || firstPage == 0) return;
+        loading = true;
+        whenLoaded(fetch(pageKeys.get(firstPage - 1)), this::prepend);
+    }
+
+    private void whenLoaded(CompletableFuture<List<T>> page, Consumer<List<T>> show) {
+        int gen = generation;
+        page.whenComplete((rows, error) -> Platform.runLater(() -> {
+            // A reload happened meanwhile; this page belongs to the old list
+            if (gen != generation) return;
+            loading = false;
+            if (error != null) {
+                onError.accept(FxAsync.cause(error));
+            } else {
+                show.accept(rows);
+            }
+        }));
+    }
+
+    private void append(List<T> rows, int afterKey) {
+        if (!rows.isEmpty()) {
+            int page = firstPage + pageRows.size();
+            if (page < pageKeys.size()) {
+                pageKeys.set(page, afterKey);
+            } else {
+                pageKeys.add(afterKey);
+            }
+            int top = firstVisibleIndex();
+            table.getItems().addAll(rows);
+            pageRows.addLast(rows.size());
+            if (pageRows.size() > MAX_PAGES) {
+                int dropped = pageRows.removeFirst();
+                table.getItems().remove(0, dropped);
+                firstPage++;
+                if (top >= 0) table.scrollTo(Math.max(0, top - dropped));
+            }
+        }
+        if (rows.size() < pageSize) {
+            exhausted = true;
+            return;
+        }
+        cursor = keyOf.applyAsInt(rows.get(rows.size() - 1));
+        prefetched = fetch(cursor);
+        // Keep loading until the rows overflow the viewport, otherwise no scrolling can trigger the next page
+        if (scrollBar != null && !scrollBar.isVisible()) loadNext();
+    }
+
+    private void prepend(List<T> rows) {
+        int top = firstVisibleIndex();
+        table.getItems().addAll(0, rows);
+        pageRows.addFirst(rows.size());
+        firstPage--;
+        if (pageRows.size() > MAX_PAGES) {
+            int size = table.getItems().size();
+            table.getItems().remove(size - pageRows.removeLast(), size);
+            // Forward loading resumes after the new last row
+            cursor = keyOf.applyAsInt(table.getItems().get(table.getItems().size() - 1));
+            exhausted = false;
+            prefetched = null;
+        }
+        if (top >= 0) table.scrollTo(top + rows.size());
+    }
+
+    private CompletableFuture<List<T>> fetch(int afterKey) {
+        return FxAsync.submit("loadPage", () -> source.fetch(afterKey, pageSize));
+    }
+
+    private void attachScrollBar() {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL && bar != scrollBar) {
+                scrollBar = bar;
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> checkScroll());
+                bar.visibleProperty().addListener((obs, wasVisible, visible) -> checkScroll());
+                checkScroll();
+                return;
+            }
+        }
+    }
+
+    private void checkScroll() {
+        if (scrollBar == null || table.getItems().isEmpty()) return;
+        int top = firstVisibleIndex();
+        if (firstPage > 0 && top >= 0 && top < pageSize / 2) {
+            loadPrevious();
+            return;
+        }
+        double range = scrollBar.getMax() - scrollBar.getMin();
+        if (!scrollBar.isVisible() || scrollBar.getValue() >= scrollBar.getMin() + range * LOAD_THRESHOLD) {
+            loadNext();
+        }
+    }
+
+    // Index of the first row on screen, or -1 if the table is not showing yet
+    private int firstVisibleIndex() {
+        if (!(table.lookup(".virtual-flow") instanceof VirtualFlow<?> flow)) return -1;
+        IndexedCell<?> cell = flow.getFirstVisibleCell();
+        return cell != null ? cell.getIndex() : -1;
+    }
+}
@@ -0,0 +1,144 @@
+package controller;
+
+import dao.AnalyticsDao;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import model.SalesSummary;
+
+/**
+ * Window with sales charts for admins, drawn from the precomputed sales aggregates.
+ */
+final class SalesDashboard {
+    // Events beyond this many are left out of the per-event chart
+    private static final int TOP_EVENTS = 15;
+
+    private final AnalyticsDao analytics;
+    private final Stage stage = new Stage();
+    private final Label summary = new Label("Loading...");
+    private final TabPane tabs = new TabPane();
+    private final Button rebuildBtn = new Button("Rebuild from orders");
+
+    private SalesDashboard(Window owner, AnalyticsDao analytics) {
+        this.analytics = analytics;
+        rebuildBtn.setOnAction(_ -> rebuild());
+        HBox header = new HBox(10, summary, rebuildBtn);
+        header.setAlignment(Pos.CENTER_LEFT);
+        header.setPadding(new Insets(10));
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        BorderPane root = new BorderPane(tabs);
+        root.setTop(header);
+        stage.initOwner(owner);
+        stage.setTitle("Sales");
+        stage.setScene(new Scene(root, 900, 600));
+    }
+
+    /**
+     * Opens the dashboard and loads the charts in the background.
+     * @param owner the window the dashboard belongs to
+     * @param analytics the sales aggregates
+     */
+    static void show(Window owner, AnalyticsDao analytics) {
+        SalesDashboard dashboard = new SalesDashboard(owner, analytics);
+        dashboard.stage.show();
+        dashboard.load();
+    }
+
+    private void load() {
+        FxAsync.supply("salesDashboard", () -> new Data(analytics), this::display,
+            error -> summary.setText("Failed to load sales: " + FxAsync.message(error)));
+    }
+
+    private void rebuild() {
+        rebuildBtn.setDisable(true);
+        summary.setText("Rebuilding from orders...");
+        FxAsync.run("rebuildSales", analytics::rebuild, () -> {
+            rebuildBtn.setDisable(false);
+            load();
+        }, error -> {
+            rebuildBtn.setDisable(false);
+            summary.setText("Rebuild failed: " + FxAsync.message(error));
+        });
+    }
+
+    private void display(Data data) {
+        int tickets = 0;
+        int orders = 0;
+        double revenue = 0;
+        for (SalesSummary day : data.byDate) {
+            tickets += day.getTickets();
+            orders += day.getOrders();
+            revenue += day.getRevenue();
+        }
+        summary.setText(String.format("%d orders, %d tickets, $%.2f revenue", orders, tickets, revenue));
+        List<SalesSummary> topEvents = data.byEvent.subList(0, Math.min(TOP_EVENTS, data.byEvent.size()));
+        tabs.getTabs().setAll(
+            new Tab("Top events", barChart("Revenue (AUD)", topEvents, SalesSummary::getRevenue)),
+            new Tab("Venues", barChart("Revenue (AUD)", data.byVenue, SalesSummary::getRevenue)),
+            new Tab("Event days", barChart("Tickets", data.byWeekday, SalesSummary::getTickets)),
+            new Tab("Sales by date", lineChart("Revenue (AUD)", data.byDate, SalesSummary::getRevenue)),
+            new Tab("Sales by hour", barChart("Tickets", data.byHour, SalesSummary::getTickets)));
+    }
+
+    private static BarChart<String, Number> barChart(String valueName, List<SalesSummary> rows,
+                                                     ToDoubleFunction<SalesSummary> value) {
+        BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setLegendVisible(false);
+        chart.setAnimated(false);
+        chart.getYAxis().setLabel(valueName);
+        chart.getData().add(series(rows, value));
+        return chart;
+    }
+
+    private static LineChart<String, Number> lineChart(String valueName, List<SalesSummary> rows,
+                                                       ToDoubleFunction<SalesSummary> value) {
+        LineChart<String, Number> chart = new LineChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setLegendVisible(false);
+        chart.setAnimated(false);
+        chart.getYAxis().setLabel(valueName);
+        chart.getData().add(series(rows, value));
+        return chart;
+    }
+
+    private static XYChart.Series<String, Number> series(List<SalesSummary> rows, ToDoubleFunction<SalesSummary> value) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        for (SalesSummary row : rows) {
+            series.getData().add(new XYChart.Data<>(row.getLabel(), value.applyAsDouble(row)));
+        }
+        return series;
+    }
+
+    /**
+     * Everything the charts show, loaded off the FX thread.
+     */
+    private static final class Data {
+        private final List<SalesSummary> byEvent;
+        private final List<SalesSummary> byVenue;
+        private final List<SalesSummary> byWeekday;
+        private final List<SalesSummary> byDate;
+        private final List<SalesSummary> byHour;
+
+        private Data(AnalyticsDao analytics) throws Exception {
+            byEvent = analytics.getSalesByEvent();
+            byVenue = analytics.getSalesByVenue();
+            byWeekday = analytics.getSalesByWeekday();
+            byDate = analytics.getSalesByDate();
+            byHour = analytics.getSalesByHourOfDay();
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package controller;
 
-import java.sql.SQLException;
-
 import javafx.fxml.FXML;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -11,7 +9,6 @@ import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import model.Model;
-import model.User;
 
 public class SignupController {
 	@FXML
@@ -40,28 +37,24 @@ public class SignupController {
 	@FXML
 	public void initialize() {
 		createUser.setOnAction(event -> {
-			if (!username.getText().isEmpty() && !password.getText().isEmpty() && !preferredName.getText().isEmpty()) {
-				try {
-					User user = model.getUserDao().createUser(
-							username.getText(),
-							password.getText(),
-							preferredName.getText()
-					);
-					if (user != null) {
-						status.setText("Created " + user.getUsername());
-						status.setTextFill(Color.GREEN);
-					} else {
-						status.setText("Cannot create user");
-						status.setTextFill(Color.RED);
-					}
-				} catch (SQLException e) {
-					status.setText(e.getMessage());
+			String name = username.getText();
+			String pass = password.getText();
+			String preferred = preferredName.getText();
+			createUser.setDisable(true);
+			FxAsync.supply("signup", () -> model.getAccountService().signup(name, pass, preferred), user -> {
+				createUser.setDisable(false);
+				if (user != null) {
+					status.setText("Created " + user.getUsername());
+					status.setTextFill(Color.GREEN);
+				} else {
+					status.setText("Cannot create user");
 					status.setTextFill(Color.RED);
 				}
-			} else {
-				status.setText("All fields are required");
+			}, error -> {
+				createUser.setDisable(false);
+				status.setText(FxAsync.message(error));
 				status.setTextFill(Color.RED);
-			}
+			});
 		});
 
 		close.setOnAction(event -> {
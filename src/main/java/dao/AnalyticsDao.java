@@ -0,0 +1,32 @@
+package dao;
+
+import java.util.List;
+import model.SalesSummary;
+
+/**
+ * Read access to the sales aggregates maintained as orders are placed.
+ * Every query reads the aggregate tables only, so its cost grows with the number of
+ * events or hours with sales, never with the number of orders.
+ */
+public interface AnalyticsDao {
+    /** @return totals per event, labelled "title (day, venue)", highest revenue first */
+    List<SalesSummary> getSalesByEvent() throws Exception;
+
+    /** @return totals per venue, highest revenue first */
+    List<SalesSummary> getSalesByVenue() throws Exception;
+
+    /** @return totals per event day, Monday first */
+    List<SalesSummary> getSalesByWeekday() throws Exception;
+
+    /** @return totals per calendar date of sale (yyyy-MM-dd), oldest first */
+    List<SalesSummary> getSalesByDate() throws Exception;
+
+    /** @return totals per hour of the day of sale (00 to 23) */
+    List<SalesSummary> getSalesByHourOfDay() throws Exception;
+
+    /**
+     * Recomputes every aggregate from order_items, e.g. after orders were changed by hand.
+     * @return the number of events with sales
+     */
+    int rebuild() throws Exception;
+}
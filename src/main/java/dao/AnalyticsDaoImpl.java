@@ -0,0 +1,183 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import model.Days;
+import model.Order;
+import model.OrderItem;
+import model.SalesSummary;
+
+/**
+ * Sales aggregates kept in the sales_by_event and sales_by_hour tables.
+ * <p>
+ * {@link OrderDaoImpl} calls {@link #recordOrders} inside the transaction that inserts
+ * the orders, so the aggregates are always exactly as committed as the orders. Venue and
+ * weekday totals are derived from sales_by_event joined with events; date and hour-of-day
+ * totals from sales_by_hour.
+ * </p>
+ */
+public class AnalyticsDaoImpl implements AnalyticsDao {
+    private static final String UPSERT_EVENT =
+            "INSERT INTO sales_by_event (event_id, tickets, revenue, orders) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (event_id) DO UPDATE SET tickets = tickets + excluded.tickets, "
+            + "revenue = revenue + excluded.revenue, orders = orders + excluded.orders";
+    private static final String UPSERT_HOUR =
+            "INSERT INTO sales_by_hour (hour, tickets, revenue, orders) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (hour) DO UPDATE SET tickets = tickets + excluded.tickets, "
+            + "revenue = revenue + excluded.revenue, orders = orders + excluded.orders";
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs an AnalyticsDaoImpl that borrows connections from the given data source.
+     * @param dataSource the pooled data source
+     */
+    public AnalyticsDaoImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Adds orders to the aggregates. Must run in the transaction that inserts the orders.
+     * @param conn the orders' connection, with auto-commit off
+     * @param orders the orders being saved
+     * @throws SQLException if a database error occurs
+     */
+    static void recordOrders(Connection conn, Collection<Order> orders) throws SQLException {
+        if (orders.isEmpty()) return;
+        // {tickets, revenue, orders} per event and per hour
+        Map<Integer, double[]> byEvent = new HashMap<>();
+        Map<String, double[]> byHour = new HashMap<>();
+        Set<Integer> orderEvents = new HashSet<>();
+        for (Order order : orders) {
+            double[] hour = byHour.computeIfAbsent(order.getDateTime().toString().substring(0, 13), h -> new double[3]);
+            hour[2]++;
+            orderEvents.clear();
+            for (OrderItem item : order.getItems()) {
+                double[] totals = byEvent.computeIfAbsent(item.getEventId(), id -> new double[3]);
+                totals[0] += item.getQuantity();
+                totals[1] += item.getLineTotal();
+                // Lines of one event are merged so its order count goes up once per order
+                if (orderEvents.add(item.getEventId())) totals[2]++;
+                hour[0] += item.getQuantity();
+                hour[1] += item.getLineTotal();
+            }
+        }
+        upsert(conn, UPSERT_EVENT, byEvent, PreparedStatement::setInt);
+        upsert(conn, UPSERT_HOUR, byHour, PreparedStatement::setString);
+    }
+
+    private static <K> void upsert(Connection conn, String sql, Map<K, double[]> rows, KeySetter<K> key)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Map.Entry<K, double[]> row : rows.entrySet()) {
+                key.set(ps, 1, row.getKey());
+                ps.setInt(2, (int) row.getValue()[0]);
+                ps.setDouble(3, row.getValue()[1]);
+                ps.setInt(4, (int) row.getValue()[2]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public List<SalesSummary> getSalesByEvent() throws Exception {
+        return query("SELECT e.title, e.date, e.location, s.tickets, s.revenue, s.orders "
+                + "FROM sales_by_event s JOIN events e ON e.event_id = s.event_id ORDER BY s.revenue DESC",
+                rs -> rs.getString(1) + " (" + rs.getString(2) + ", " + rs.getString(3) + ")");
+    }
+
+    @Override
+    public List<SalesSummary> getSalesByVenue() throws Exception {
+        return query("SELECT e.location, SUM(s.tickets), SUM(s.revenue), SUM(s.orders) "
+                + "FROM sales_by_event s JOIN events e ON e.event_id = s.event_id "
+                + "GROUP BY e.location ORDER BY SUM(s.revenue) DESC", rs -> rs.getString(1));
+    }
+
+    @Override
+    public List<SalesSummary> getSalesByWeekday() throws Exception {
+        List<SalesSummary> rows = query("SELECT e.date, SUM(s.tickets), SUM(s.revenue), SUM(s.orders) "
+                + "FROM sales_by_event s JOIN events e ON e.event_id = s.event_id GROUP BY e.date",
+                rs -> rs.getString(1));
+        rows.sort(Comparator.comparingInt(row -> Days.indexOf(row.getLabel())));
+        return rows;
+    }
+
+    @Override
+    public List<SalesSummary> getSalesByDate() throws Exception {
+        return query("SELECT substr(hour, 1, 10), SUM(tickets), SUM(revenue), SUM(orders) "
+                + "FROM sales_by_hour GROUP BY substr(hour, 1, 10) ORDER BY 1", rs -> rs.getString(1));
+    }
+
+    @Override
+    public List<SalesSummary> getSalesByHourOfDay() throws Exception {
+        return query("SELECT substr(hour, 12, 2), SUM(tickets), SUM(revenue), SUM(orders) "
+                + "FROM sales_by_hour GROUP BY substr(hour, 12, 2) ORDER BY 1", rs -> rs.getString(1));
+    }
+
+    @Override
+    public int rebuild() throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM sales_by_event");
+                stmt.executeUpdate("DELETE FROM sales_by_hour");
+                int events = stmt.executeUpdate("INSERT INTO sales_by_event (event_id, tickets, revenue, orders) "
+                        + "SELECT event_id, SUM(quantity), SUM(quantity * price_per_ticket), COUNT(DISTINCT order_id) "
+                        + "FROM order_items GROUP BY event_id");
+                stmt.executeUpdate("INSERT INTO sales_by_hour (hour, tickets, revenue, orders) "
+                        + "SELECT substr(o.order_date, 1, 13), SUM(oi.quantity), SUM(oi.quantity * oi.price_per_ticket), "
+                        + "COUNT(DISTINCT o.order_id) "
+                        + "FROM orders o JOIN order_items oi ON oi.order_id = o.order_id "
+                        + "GROUP BY substr(o.order_date, 1, 13)");
+                conn.commit();
+                return events;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Reads rows of (label columns..., tickets, revenue, orders); the last three columns
+     * are always the totals.
+     */
+    private List<SalesSummary> query(String sql, Label label) throws SQLException {
+        List<SalesSummary> rows = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                rows.add(new SalesSummary(label.of(rs), rs.getInt(columns - 2), rs.getDouble(columns - 1),
+                        rs.getInt(columns)));
+            }
+        }
+        return rows;
+    }
+
+    @FunctionalInterface
+    private interface Label {
+        String of(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface KeySetter<K> {
+        void set(PreparedStatement ps, int index, K key) throws SQLException;
+    }
+}
@@ -0,0 +1,303 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import model.Event;
+import model.EventFilter;
+import model.EventQuery;
+import model.EventSearchResult;
+
+/**
+ * Read-through, write-through cache layered around another EventDao.
+ * <p>
+ * The whole catalog is loaded once on the first read and kept indexed by event id,
+ * by title, by (title, day, venue), by the same key lower-cased and in an
+ * {@link EventSearchIndex}. Writes go to the underlying DAO first and then update only
+ * the affected entries, so browsing never rescans the events table.
+ * Returned Event instances are shared with the cache and must be treated as read-only;
+ * the cache never changes them either, but indexes a new instance in their place.
+ * </p>
+ */
+public class CachingEventDao implements EventDao {
+    private final EventDao delegate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Integer, Event> byId = new TreeMap<>();
+    private final Map<String, List<Event>> byTitle = new LinkedHashMap<>();
+    private final Map<String, Event> byKey = new HashMap<>();
+    private final Map<String, List<Event>> byFoldedKey = new HashMap<>();
+    private final EventSearchIndex searchIndex = new EventSearchIndex();
+    private boolean loaded;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    /**
+     * Constructs a cache in front of the given DAO.
+     * @param delegate the DAO that owns the events table
+     */
+    public CachingEventDao(EventDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Event> getAllEvents() {
+        return read(() -> new ArrayList<>(byId.values()));
+    }
+
+    @Override
+    public List<Event> getEvents(int afterId, int limit, EventFilter filter) {
+        return read(() -> {
+            List<Event> page = new ArrayList<>(Math.min(limit, 256));
+            for (Event event : byId.tailMap(afterId, false).values()) {
+                if (page.size() >= limit) break;
+                if (filter.matches(event)) page.add(event);
+            }
+            return page;
+        });
+    }
+
+    @Override
+    public EventSearchResult search(EventQuery query) {
+        return read(() -> searchIndex.search(query));
+    }
+
+    @Override
+    public List<String> getAllEventTitles() {
+        return read(() -> new ArrayList<>(byTitle.keySet()));
+    }
+
+    @Override
+    public List<Event> getEventsByTitle(String title) {
+        return read(() -> new ArrayList<>(byTitle.getOrDefault(title, Collections.emptyList())));
+    }
+
+    @Override
+    public boolean eventExists(Event event) {
+        return read(() -> {
+            Event existing = byKey.get(key(event));
+            return existing != null && existing.getEventId() != event.getEventId();
+        });
+    }
+
+    @Override
+    public boolean similarEventExists(Event event) {
+        return read(() -> {
+            for (Event similar : byFoldedKey.getOrDefault(foldedKey(event), Collections.emptyList())) {
+                if (similar.getEventId() != event.getEventId()) return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public Event getEventById(int eventId) {
+        Event cached = read(() -> byId.get(eventId), Objects::nonNull);
+        if (cached != null) return cached;
+        // Not in the catalog snapshot, e.g. inserted by another process
+        Event event = delegate.getEventById(eventId);
+        if (event != null) {
+            write(() -> index(event));
+        }
+        return event;
+    }
+
+    @Override
+    public void addEvent(Event event) throws Exception {
+        delegate.addEvent(event);
+        write(() -> index(event));
+    }
+
+    /**
+     * Inserts in bulk, then drops the cached catalog; the inserted events have no IDs
+     * to index them by, so the next read reloads everything.
+     */
+    @Override
+    public int addEvents(Iterable<Event> events) throws Exception {
+        int inserted = delegate.addEvents(events);
+        if (inserted > 0) invalidateAll();
+        return inserted;
+    }
+
+    @Override
+    public void updateEvent(Event event) throws Exception {
+        delegate.updateEvent(event);
+        write(() -> index(event));
+    }
+
+    @Override
+    public void deleteEvent(int eventId) throws Exception {
+        delegate.deleteEvent(eventId);
+        write(() -> unindex(eventId));
+    }
+
+    @Override
+    public void setEventEnabled(int eventId, boolean enabled) throws Exception {
+        delegate.setEventEnabled(eventId, enabled);
+        write(() -> {
+            Event cached = byId.get(eventId);
+            if (cached != null) index(copy(cached, enabled, cached.getAvailableSeats()));
+        });
+    }
+
+    /**
+     * Updates the seats of a cached event, as returned by the order that took them.
+     * @param eventId the event ID
+     * @param availableSeats the event's available_seats after the order
+     */
+    @Override
+    public void updateAvailableSeats(int eventId, int availableSeats) {
+        write(() -> {
+            Event cached = byId.get(eventId);
+            // Re-indexing also refreshes the search index's AVAILABLE flag
+            if (cached != null) index(copy(cached, cached.isEnabled(), availableSeats));
+        });
+    }
+
+    /**
+     * Drops the whole catalog so the next read reloads it from the database.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getLoadCount() { return loads.get(); }
+
+    /**
+     * @return the total time spent loading the full catalog, in milliseconds
+     */
+    public double getTotalLoadMillis() {
+        return loadNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Runs a reader against the indexes, loading the catalog first if needed.
+     */
+    private <T> T read(Supplier<T> reader) {
+        return read(reader, result -> true);
+    }
+
+    /**
+     * Runs a reader against the indexes, loading the catalog first if needed. Each call
+     * counts once: a hit if the catalog was already loaded and the result is found,
+     * otherwise a miss.
+     */
+    private <T> T read(Supplier<T> reader, Predicate<? super T> found) {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                T result = reader.get();
+                (found.test(result) ? hits : misses).increment();
+                return result;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        misses.increment();
+        lock.writeLock().lock();
+        try {
+            // Another reader may have loaded the catalog while this one waited
+            if (!loaded) load();
+            return reader.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies an index update. Entries are only maintained once the catalog is loaded;
+     * before that the next read picks the change up from the database.
+     */
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        clear();
+        for (Event event : delegate.getAllEvents()) {
+            index(event);
+        }
+        loaded = true;
+        loads.incrementAndGet();
+        loadNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void clear() {
+        byId.clear();
+        byTitle.clear();
+        byKey.clear();
+        byFoldedKey.clear();
+        searchIndex.clear();
+    }
+
+    private void index(Event event) {
+        unindex(event.getEventId());
+        byId.put(event.getEventId(), event);
+        byTitle.computeIfAbsent(event.getTitle(), t -> new ArrayList<>()).add(event);
+        byKey.put(key(event), event);
+        byFoldedKey.computeIfAbsent(foldedKey(event), k -> new ArrayList<>(1)).add(event);
+        searchIndex.add(event);
+    }
+
+    private void unindex(int eventId) {
+        Event old = byId.remove(eventId);
+        if (old == null) return;
+        List<Event> sameTitle = byTitle.get(old.getTitle());
+        if (sameTitle != null) {
+            sameTitle.remove(old);
+            if (sameTitle.isEmpty()) byTitle.remove(old.getTitle());
+        }
+        byKey.remove(key(old), old);
+        String folded = foldedKey(old);
+        List<Event> similar = byFoldedKey.get(folded);
+        if (similar != null) {
+            similar.remove(old);
+            if (similar.isEmpty()) byFoldedKey.remove(folded);
+        }
+        searchIndex.remove(eventId);
+    }
+
+    /**
+     * Returns a new instance of a cached event with the given state.
+     */
+    private static Event copy(Event event, boolean enabled, int availableSeats) {
+        return new Event(event.getEventId(), event.getTitle(), event.getDay(), event.getVenue(),
+                event.getPrice(), event.getTotal(), availableSeats, enabled);
+    }
+
+    private static String key(Event event) {
+        return event.getTitle() + '\u0000' + event.getDay() + '\u0000' + event.getVenue();
+    }
+
+    private static String foldedKey(Event event) {
+        return key(event).toLowerCase(Locale.ROOT);
+    }
+}
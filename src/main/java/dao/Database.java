@@ -1,29 +1,54 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Utility class for managing SQLite database connections.
  * <p>
- * Always returns a new connection for each call to getConnection().
- * The caller is responsible for closing the connection after use.
+ * All connections are drawn from a single shared {@link PooledDataSource}.
+ * The caller is responsible for closing the connection after use, which
+ * returns it to the pool rather than closing the underlying SQLite handle.
  * </p>
  */
 public final class Database {
-    private static final String DB_URL = "jdbc:sqlite:application.db";
+    // Overridable so benchmarks and load tests can run against a seeded copy of the database
+    private static final String DB_URL = System.getProperty("eventapp.db.url", "jdbc:sqlite:application.db");
+    private static final int POOL_SIZE = Integer.getInteger("eventapp.db.pool.size", 8);
+    // Prepared statements kept per connection; -Deventapp.db.statement.cache=0 turns the cache off
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("eventapp.db.statement.cache", 64);
 
     // Private constructor to prevent instantiation
     private Database() {}
 
+    // Initialized on first use so the pool is only created when the database is needed
+    private static final class Holder {
+        private static final PooledDataSource DATA_SOURCE = new PooledDataSource(DB_URL, POOL_SIZE, STATEMENT_CACHE_SIZE);
+    }
+
     /**
-     * Returns a new database connection.
+     * Returns the shared pooled data source.
      *
-     * @return a new Connection to the SQLite database
+     * @return the application DataSource
+     */
+    public static PooledDataSource getDataSource() {
+        return Holder.DATA_SOURCE;
+    }
+
+    /**
+     * Borrows a connection from the pool.
+     *
+     * @return a pooled Connection to the SQLite database
      * @throws SQLException if a database access error occurs
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * Closes all pooled connections. Called when the application exits.
+     */
+    public static void shutdown() {
+        getDataSource().close();
     }
 }
@@ -2,15 +2,61 @@ package dao;
 
 import java.util.List;
 import model.Event;
+import model.EventFilter;
+import model.EventQuery;
+import model.EventSearchResult;
 
 public interface EventDao {
     List<Event> getAllEvents();
+
+    /**
+     * Returns one page of events in event ID order, for keyset pagination.
+     * @param afterId only events with a larger ID are returned; 0 for the first page
+     * @param limit the maximum number of events to return
+     * @param filter the criteria events must match
+     * @return up to limit events; fewer means there are no more pages
+     */
+    List<Event> getEvents(int afterId, int limit, EventFilter filter);
+
+    /**
+     * Searches event titles and venues by word prefix and applies the query's filters.
+     * @param query the search criteria
+     * @return the first matching events with match counts per venue and day
+     */
+    EventSearchResult search(EventQuery query);
+
     List<String> getAllEventTitles();
     List<Event> getEventsByTitle(String title);
     void addEvent(Event event) throws Exception;
+
+    /**
+     * Inserts many events in one transaction using batched statements. Events that
+     * duplicate an existing title, day and venue are skipped. Event IDs are not set.
+     * @param events the events, consumed once and possibly produced lazily
+     * @return the number of events inserted
+     * @throws Exception if a database error occurs or iterating fails; nothing is inserted then
+     */
+    int addEvents(Iterable<Event> events) throws Exception;
+
     void updateEvent(Event event) throws Exception;
     void deleteEvent(int eventId) throws Exception;
     void setEventEnabled(int eventId, boolean enabled) throws Exception;
     boolean eventExists(Event event) throws Exception;
+
+    /**
+     * Returns whether another event has the same title, day and venue, ignoring case.
+     * @param event the event to check; an event with its own ID does not count
+     * @return true if such an event exists
+     * @throws Exception if a database error occurs
+     */
+    boolean similarEventExists(Event event) throws Exception;
     Event getEventById(int eventId);
+
+    /**
+     * Records the seats an event has left after an order took some, as returned by the
+     * update itself, so the event does not have to be read back.
+     * @param eventId the event ID
+     * @param availableSeats the event's available_seats after the order
+     */
+    void updateAvailableSeats(int eventId, int availableSeats);
 }
@@ -2,21 +2,28 @@ package dao;
 
 import java.sql.*;
 import java.util.*;
+import javax.sql.DataSource;
+import metrics.Log;
 import model.Event;
+import model.EventFilter;
+import model.EventQuery;
+import model.EventSearchResult;
 
 /**
  * Implementation of the EventDao interface for event-related database operations.
  * Handles CRUD operations and event queries.
  */
 public class EventDaoImpl implements EventDao {
-    private final Connection conn;
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final DataSource dataSource;
 
     /**
-     * Constructs an EventDaoImpl with the given database connection.
-     * @param conn the database connection
+     * Constructs an EventDaoImpl that borrows connections from the given data source.
+     * @param dataSource the pooled data source
      */
-    public EventDaoImpl(Connection conn) {
-        this.conn = conn;
+    public EventDaoImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     /**
@@ -27,12 +34,49 @@ public class EventDaoImpl implements EventDao {
     public List<Event> getAllEvents() {
         List<Event> events = new ArrayList<>();
         String sql = "SELECT * FROM events";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
                 events.add(mapRowToEvent(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("events.query_failed", e, "query", "getAllEvents");
+        }
+        return events;
+    }
+
+    /**
+     * Retrieves one page of events in event ID order. The primary key drives the scan,
+     * so every page costs the same no matter how deep into the catalog it is.
+     * @param afterId only events with a larger ID are returned; 0 for the first page
+     * @param limit the maximum number of events to return
+     * @param filter the criteria events must match
+     * @return up to limit events
+     */
+    @Override
+    public List<Event> getEvents(int afterId, int limit, EventFilter filter) {
+        List<Event> events = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM events WHERE event_id > ?");
+        if (!filter.isIncludeDisabled()) sql.append(" AND enabled = 1");
+        if (filter.getDay() != null) sql.append(" AND date = ?");
+        if (filter.getTitlePrefix() != null) sql.append(" AND title LIKE ? ESCAPE '\\'");
+        sql.append(" ORDER BY event_id LIMIT ?");
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            ps.setInt(i++, afterId);
+            if (filter.getDay() != null) ps.setString(i++, filter.getDay());
+            if (filter.getTitlePrefix() != null) {
+                ps.setString(i++, filter.getTitlePrefix().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    events.add(mapRowToEvent(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("events.query_failed", e, "query", "getEvents");
         }
         return events;
     }
@@ -54,15 +98,15 @@ public class EventDaoImpl implements EventDao {
     }
 
     /**
-     * Adds a new event to the database.
+     * Adds a new event to the database and assigns its generated ID.
      * @param event the event to add
      * @throws Exception if the event already exists or a database error occurs
      */
     @Override
     public void addEvent(Event event) throws Exception {
-        if (eventExists(event)) throw new Exception("Duplicate event");
         String sql = "INSERT INTO events (title, date, location, price, total_seats, available_seats, enabled) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, event.getTitle());
             ps.setString(2, event.getDay());
             ps.setString(3, event.getVenue());
@@ -70,10 +114,54 @@ public class EventDaoImpl implements EventDao {
             ps.setInt(5, event.getTotal());
             ps.setInt(6, event.getAvailableSeats());
             ps.setInt(7, event.isEnabled() ? 1 : 0);
-            ps.executeUpdate();
+            executeUnique(ps);
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) event.setEventId(keys.getInt(1));
+            }
+        }
+    }
+
+    @Override
+    public int addEvents(Iterable<Event> events) throws Exception {
+        String sql = "INSERT OR IGNORE INTO events (title, date, location, price, total_seats, available_seats, enabled) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int inserted = 0;
+                int pending = 0;
+                for (Event event : events) {
+                    ps.setString(1, event.getTitle());
+                    ps.setString(2, event.getDay());
+                    ps.setString(3, event.getVenue());
+                    ps.setDouble(4, event.getPrice());
+                    ps.setInt(5, event.getTotal());
+                    ps.setInt(6, event.getAvailableSeats());
+                    ps.setInt(7, event.isEnabled() ? 1 : 0);
+                    ps.addBatch();
+                    if (++pending == IMPORT_BATCH_SIZE) {
+                        inserted += sum(ps.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) inserted += sum(ps.executeBatch());
+                conn.commit();
+                return inserted;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
+    private static int sum(int[] counts) {
+        int total = 0;
+        // An ignored duplicate reports 0 rows
+        for (int count : counts) if (count > 0) total += count;
+        return total;
+    }
+
     /**
      * Updates an existing event in the database.
      * @param event the event to update
@@ -81,9 +169,9 @@ public class EventDaoImpl implements EventDao {
      */
     @Override
     public void updateEvent(Event event) throws Exception {
-        if (eventExists(event)) throw new Exception("Duplicate event");
         String sql = "UPDATE events SET title=?, date=?, location=?, price=?, total_seats=?, available_seats=?, enabled=? WHERE event_id=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, event.getTitle());
             ps.setString(2, event.getDay());
             ps.setString(3, event.getVenue());
@@ -92,30 +180,63 @@ public class EventDaoImpl implements EventDao {
             ps.setInt(6, event.getAvailableSeats());
             ps.setInt(7, event.isEnabled() ? 1 : 0);
             ps.setInt(8, event.getEventId());
-            ps.executeUpdate();
+            executeUnique(ps);
         }
     }
 
     /**
      * Checks if an event already exists in the database (excluding itself by event_id).
+     * This is a point lookup on the unique (title, date, location) index.
      * @param event the event to check
      * @return true if the event exists, false otherwise
      */
     @Override
     public boolean eventExists(Event event) throws Exception {
-        String sql = "SELECT COUNT(*) FROM events WHERE title=? AND date=? AND location=? AND event_id != ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        String sql = "SELECT event_id FROM events WHERE title=? AND date=? AND location=?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, event.getTitle());
             ps.setString(2, event.getDay());
             ps.setString(3, event.getVenue());
-            ps.setInt(4, event.getEventId() == 0 ? -1 : event.getEventId());
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
+                return rs.next() && rs.getInt(1) != event.getEventId();
             }
         }
-        return false;
+    }
+
+    /**
+     * Matches with NOCASE collation, which the (title, date, location) index cannot serve,
+     * so this scans the events table; {@link CachingEventDao} answers it from memory instead.
+     */
+    @Override
+    public boolean similarEventExists(Event event) throws Exception {
+        String sql = "SELECT 1 FROM events WHERE title=? COLLATE NOCASE AND date=? COLLATE NOCASE"
+                + " AND location=? COLLATE NOCASE AND event_id<>? LIMIT 1";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, event.getTitle());
+            ps.setString(2, event.getDay());
+            ps.setString(3, event.getVenue());
+            ps.setInt(4, event.getEventId());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Executes an insert or update, reporting a unique index violation as a duplicate event.
+     * The unique (title, date, location) index makes a separate existence check unnecessary.
+     */
+    private void executeUnique(PreparedStatement ps) throws Exception {
+        try {
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed")) {
+                throw new Exception("Duplicate event", e);
+            }
+            throw e;
+        }
     }
 
     /**
@@ -126,16 +247,28 @@ public class EventDaoImpl implements EventDao {
     public List<String> getAllEventTitles() {
         List<String> titles = new ArrayList<>();
         String sql = "SELECT DISTINCT title FROM events";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
                 titles.add(rs.getString("title"));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("events.query_failed", e, "query", "getAllEventTitles");
         }
         return titles;
     }
 
+    /**
+     * Indexes the whole table for this one query. Keep this DAO behind a
+     * {@link CachingEventDao}, which maintains the index across queries.
+     */
+    @Override
+    public EventSearchResult search(EventQuery query) {
+        EventSearchIndex index = new EventSearchIndex();
+        getAllEvents().forEach(index::add);
+        return index.search(query);
+    }
+
     /**
      * Retrieves all events with the given title.
      * @param title the event title
@@ -145,7 +278,8 @@ public class EventDaoImpl implements EventDao {
     public List<Event> getEventsByTitle(String title) {
         List<Event> events = new ArrayList<>();
         String sql = "SELECT * FROM events WHERE title = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, title);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -153,7 +287,7 @@ public class EventDaoImpl implements EventDao {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("events.query_failed", e, "query", "getEventsByTitle");
         }
         return events;
     }
@@ -166,7 +300,8 @@ public class EventDaoImpl implements EventDao {
     @Override
     public void deleteEvent(int eventId) throws Exception {
         String sql = "DELETE FROM events WHERE event_id=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, eventId);
             ps.executeUpdate();
         }
@@ -181,7 +316,8 @@ public class EventDaoImpl implements EventDao {
     @Override
     public void setEventEnabled(int eventId, boolean enabled) throws Exception {
         String sql = "UPDATE events SET enabled=? WHERE event_id=?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, enabled ? 1 : 0);
             ps.setInt(2, eventId);
             ps.executeUpdate();
@@ -196,7 +332,8 @@ public class EventDaoImpl implements EventDao {
     @Override
     public Event getEventById(int eventId) {
         String sql = "SELECT * FROM events WHERE event_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, eventId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -204,8 +341,16 @@ public class EventDaoImpl implements EventDao {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("events.query_failed", e, "query", "getEventById");
         }
         return null;
     }
+
+    /**
+     * No events are held at this level, so there is nothing to update.
+     */
+    @Override
+    public void updateAvailableSeats(int eventId, int availableSeats) {
+        // Every read goes to the database
+    }
 }
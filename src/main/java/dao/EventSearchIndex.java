@@ -0,0 +1,253 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import model.Days;
+import model.Event;
+import model.EventQuery;
+import model.EventSearchResult;
+
+/**
+ * In-memory inverted index over event titles and venues.
+ * <p>
+ * Every indexed event gets a document number. Each lower-cased word of its title and
+ * venue maps to the list of document numbers containing it, and the words are kept sorted
+ * so a prefix selects a contiguous range of them. A query turns each of its words into a
+ * bit set of matching documents, intersects them and then checks the filters and counts
+ * the facets in one pass over the surviving documents.
+ * </p>
+ * <p>
+ * Filter fields are copied into primitive arrays so a query scans them without touching
+ * the Event objects. Re-adding an event whose title and venue are unchanged updates those
+ * fields in place. Otherwise re-indexing or removing an event only marks its old document
+ * dead; the index is rebuilt once dead documents outnumber live ones. The index is not
+ * thread-safe; {@link CachingEventDao} guards it with its own lock.
+ * </p>
+ */
+public class EventSearchIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte ENABLED = 1;
+    private static final byte AVAILABLE = 2;
+
+    private final NavigableMap<String, IntList> postings = new TreeMap<>();
+    private final Map<Integer, Integer> docByEventId = new HashMap<>();
+    private final Map<String, Integer> venueIds = new HashMap<>();
+    private final List<String> venueNames = new ArrayList<>();
+
+    // Per document, indexed by document number
+    private Event[] events = new Event[INITIAL_CAPACITY];
+    private int[] venueOf = new int[INITIAL_CAPACITY];
+    private byte[] dayOf = new byte[INITIAL_CAPACITY];
+    private double[] priceOf = new double[INITIAL_CAPACITY];
+    private byte[] flagsOf = new byte[INITIAL_CAPACITY];
+    private long[] live = new long[INITIAL_CAPACITY / 64];
+    private int docCount;
+    private int liveCount;
+
+    /**
+     * Adds an event, replacing any earlier version of it.
+     * @param event the event to index
+     */
+    public void add(Event event) {
+        Integer old = docByEventId.get(event.getEventId());
+        if (old != null) {
+            Event previous = events[old];
+            if (previous.getTitle().equals(event.getTitle()) && previous.getVenue().equals(event.getVenue())) {
+                // Same words; update the document in place
+                setFields(old, event);
+                return;
+            }
+            kill(old);
+        }
+        if (docCount == events.length) grow();
+        int doc = docCount++;
+        setFields(doc, event);
+        venueOf[doc] = venueIds.computeIfAbsent(event.getVenue(), v -> {
+            venueNames.add(v);
+            return venueNames.size() - 1;
+        });
+        live[doc >>> 6] |= 1L << doc;
+        liveCount++;
+        docByEventId.put(event.getEventId(), doc);
+        for (String word : words(event.getTitle() + ' ' + event.getVenue())) {
+            IntList docs = postings.computeIfAbsent(word, w -> new IntList());
+            // A word repeated within one event is posted once
+            if (docs.size == 0 || docs.values[docs.size - 1] != doc) docs.add(doc);
+        }
+    }
+
+    /**
+     * Removes an event.
+     * @param eventId the event ID
+     */
+    public void remove(int eventId) {
+        Integer doc = docByEventId.remove(eventId);
+        if (doc != null) kill(doc);
+    }
+
+    public void clear() {
+        postings.clear();
+        docByEventId.clear();
+        venueIds.clear();
+        venueNames.clear();
+        events = new Event[INITIAL_CAPACITY];
+        venueOf = new int[INITIAL_CAPACITY];
+        dayOf = new byte[INITIAL_CAPACITY];
+        priceOf = new double[INITIAL_CAPACITY];
+        flagsOf = new byte[INITIAL_CAPACITY];
+        live = new long[INITIAL_CAPACITY / 64];
+        docCount = 0;
+        liveCount = 0;
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Runs a query.
+     * @param query the search criteria
+     * @return the first matches in indexing order, with counts and facets over all matches
+     */
+    public EventSearchResult search(EventQuery query) {
+        long[] candidates = live;
+        for (String word : words(query.getText())) {
+            long[] matches = new long[live.length];
+            // Every indexed word starting with the query word
+            for (IntList docs : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < docs.size; i++) {
+                    int doc = docs.values[i];
+                    matches[doc >>> 6] |= 1L << doc;
+                }
+            }
+            for (int w = 0; w < matches.length; w++) matches[w] &= candidates[w];
+            candidates = matches;
+        }
+
+        int day = query.getDay() == null ? -2 : Days.indexOf(query.getDay());
+        double minPrice = query.getMinPrice() == null ? Double.NEGATIVE_INFINITY : query.getMinPrice();
+        double maxPrice = query.getMaxPrice() == null ? Double.POSITIVE_INFINITY : query.getMaxPrice();
+        int required = (query.isIncludeDisabled() ? 0 : ENABLED) | (query.isAvailableOnly() ? AVAILABLE : 0);
+        int limit = Math.max(0, query.getLimit());
+
+        int[] dayCounts = new int[Days.NAMES.size()];
+        int[] venueCounts = new int[venueNames.size()];
+        List<Event> page = new ArrayList<>(Math.min(limit, 256));
+        int total = 0;
+        for (int w = 0; w < candidates.length; w++) {
+            long bits = candidates[w] & live[w];
+            while (bits != 0) {
+                int doc = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if ((flagsOf[doc] & required) != required) continue;
+                double price = priceOf[doc];
+                if (price < minPrice || price > maxPrice) continue;
+                // Day counts ignore the day filter so they show where else the matches are
+                int eventDay = dayOf[doc];
+                if (eventDay >= 0) dayCounts[eventDay]++;
+                if (day != -2 && eventDay != day) continue;
+                venueCounts[venueOf[doc]]++;
+                if (page.size() < limit) page.add(events[doc]);
+                total++;
+            }
+        }
+        page.sort(Comparator.comparingInt(Event::getEventId));
+        return new EventSearchResult(page, total, venueFacets(venueCounts), dayFacets(dayCounts));
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private Map<String, Integer> venueFacets(int[] counts) {
+        Integer[] order = new Integer[counts.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> counts[b] != counts[a]
+                ? Integer.compare(counts[b], counts[a])
+                : venueNames.get(a).compareTo(venueNames.get(b)));
+        Map<String, Integer> facets = new LinkedHashMap<>();
+        for (int venue : order) {
+            if (counts[venue] > 0) facets.put(venueNames.get(venue), counts[venue]);
+        }
+        return facets;
+    }
+
+    private static Map<String, Integer> dayFacets(int[] counts) {
+        Map<String, Integer> facets = new LinkedHashMap<>();
+        for (int day = 0; day < counts.length; day++) {
+            if (counts[day] > 0) facets.put(Days.NAMES.get(day), counts[day]);
+        }
+        return facets;
+    }
+
+    private void setFields(int doc, Event event) {
+        events[doc] = event;
+        dayOf[doc] = (byte) Days.indexOf(event.getDay());
+        priceOf[doc] = event.getPrice();
+        flagsOf[doc] = (byte) ((event.isEnabled() ? ENABLED : 0) | (event.getAvailableSeats() > 0 ? AVAILABLE : 0));
+    }
+
+    private void kill(int doc) {
+        live[doc >>> 6] &= ~(1L << doc);
+        events[doc] = null;
+        liveCount--;
+        // Rebuild once most documents are dead so postings and bit sets stay compact
+        if (docCount > INITIAL_CAPACITY && liveCount < docCount / 2) rebuild();
+    }
+
+    private void rebuild() {
+        List<Event> survivors = new ArrayList<>(liveCount);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (events[doc] != null) survivors.add(events[doc]);
+        }
+        clear();
+        survivors.forEach(this::add);
+    }
+
+    private void grow() {
+        int capacity = events.length * 2;
+        events = Arrays.copyOf(events, capacity);
+        venueOf = Arrays.copyOf(venueOf, capacity);
+        dayOf = Arrays.copyOf(dayOf, capacity);
+        priceOf = Arrays.copyOf(priceOf, capacity);
+        flagsOf = Arrays.copyOf(flagsOf, capacity);
+        live = Arrays.copyOf(live, capacity / 64);
+    }
+
+    /**
+     * A growable list of document numbers.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
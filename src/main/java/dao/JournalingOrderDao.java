@@ -0,0 +1,328 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import metrics.Log;
+import model.Order;
+import model.OrderItem;
+import model.OrderResult;
+
+/**
+ * Write-behind OrderDao that confirms orders once they are durably journaled and writes
+ * them to the database in batches in the background.
+ * <p>
+ * A checkout appends its order to an {@link OrderJournal} and waits only for the fsync.
+ * Checkouts arriving while one fsync is in progress are appended together with the next,
+ * so a burst of buyers shares a handful of fsyncs instead of queueing for one database
+ * transaction each. A second thread writes journaled orders to SQLite, many per
+ * transaction. On startup every order still in the journal is written before anything
+ * else happens; orders that had already reached the database are skipped, so nothing is
+ * lost or doubled after a crash at any point.
+ * </p>
+ * <p>
+ * Reads wait until every order confirmed before them has been written, so a buyer always
+ * sees their own order. Seats of confirmed orders that are not written yet are reported by
+ * {@link #getUnappliedSeats(int)} so seat counters reloaded from the events table can
+ * allow for them. Seat availability itself must be enforced before {@link #addOrder}, as
+ * BookingService does with its in-memory inventory: an order is confirmed before the
+ * database sees it, so one the database finds short of seats is still written, taking
+ * whatever seats are left.
+ * </p>
+ */
+public class JournalingOrderDao implements OrderDao, AutoCloseable {
+    private static final int MAX_BATCH = 512;
+    private static final long RETRY_MILLIS = 500;
+    // How long a read waits for earlier orders to reach the database
+    private static final long READ_WAIT_MILLIS = 30_000;
+    // Marks the end of the journaled queue at shutdown
+    private static final OrderJournal.Entry END_ENTRY = new OrderJournal.Entry(0, 0, null);
+
+    private final OrderDaoImpl delegate;
+    private final OrderJournal journal;
+    private final LinkedBlockingQueue<Pending> incoming = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<OrderJournal.Entry> journaled = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<Integer, AtomicInteger> unappliedSeats = new ConcurrentHashMap<>();
+    private final Thread journalWriter;
+    private final Thread databaseWriter;
+    // Orders journaled and orders written to the database, guarded by this
+    private long journaledCount;
+    private long appliedCount;
+    private boolean closed; // guarded by incoming
+
+    /**
+     * Opens the journal, writes any orders left in it to the database and starts the
+     * background threads.
+     * @param delegate the DAO that owns the orders tables
+     * @param journalFile the journal file; created if missing
+     * @throws Exception if the journal cannot be opened or replayed
+     */
+    public JournalingOrderDao(OrderDaoImpl delegate, Path journalFile) throws Exception {
+        this.delegate = delegate;
+        this.journal = new OrderJournal(journalFile);
+        List<OrderJournal.Entry> recovered = journal.recover();
+        int written = 0;
+        for (int from = 0; from < recovered.size(); from += MAX_BATCH) {
+            List<OrderJournal.Entry> batch = recovered.subList(from, Math.min(recovered.size(), from + MAX_BATCH));
+            written += delegate.addConfirmedOrders(batch);
+            journal.applied(batch.size());
+        }
+        if (written > 0) {
+            Log.info("orders.recovered", "orders", written, "journal", journalFile);
+        }
+        journalWriter = new Thread(this::writeJournal, "order-journal");
+        journalWriter.setDaemon(true);
+        journalWriter.start();
+        databaseWriter = new Thread(this::writeDatabase, "order-writer");
+        databaseWriter.setDaemon(true);
+        databaseWriter.start();
+    }
+
+    /**
+     * Confirms an order once it is durably journaled. It reaches the database shortly after.
+     * @param order the order to add
+     * @param userId the user ID placing the order
+     * @return the order ID under which the order is persisted; no seat counts, as the
+     *         events table has not been updated yet
+     * @throws Exception if the order could not be journaled; it is not confirmed then
+     */
+    @Override
+    public OrderResult addOrder(Order order, int userId) throws Exception {
+        Pending pending = new Pending(new OrderJournal.Entry(delegate.nextOrderId(), userId, order));
+        adjustUnappliedSeats(order, 1);
+        synchronized (incoming) {
+            if (closed) {
+                adjustUnappliedSeats(order, -1);
+                throw new IllegalStateException("Order journal is closed");
+            }
+            incoming.add(pending);
+        }
+        try {
+            pending.durable.get();
+        } catch (ExecutionException e) {
+            adjustUnappliedSeats(order, -1);
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return new OrderResult(pending.entry.orderId, Map.of());
+    }
+
+    /**
+     * Returns the seats of an event taken by confirmed orders not yet written to the database.
+     * @param eventId the event ID
+     * @return the seat count, 0 when everything has been written
+     */
+    public int getUnappliedSeats(int eventId) {
+        AtomicInteger seats = unappliedSeats.get(eventId);
+        return seats == null ? 0 : seats.get();
+    }
+
+    /**
+     * Returns how many confirmed orders are journaled but not yet written to the database.
+     */
+    public synchronized long getBacklog() {
+        return journaledCount - appliedCount;
+    }
+
+    @Override
+    public List<Order> getAllOrders() throws Exception {
+        awaitApplied();
+        return delegate.getAllOrders();
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(int userId) throws Exception {
+        awaitApplied();
+        return delegate.getOrdersForUser(userId);
+    }
+
+    @Override
+    public List<Order> getOrders(int afterId, int limit) throws Exception {
+        awaitApplied();
+        return delegate.getOrders(afterId, limit);
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(int userId, int afterId, int limit) throws Exception {
+        awaitApplied();
+        return delegate.getOrdersForUser(userId, afterId, limit);
+    }
+
+    @Override
+    public int countAllOrders() throws Exception {
+        awaitApplied();
+        return delegate.countAllOrders();
+    }
+
+    @Override
+    public int countOrdersForUser(int userId) throws Exception {
+        awaitApplied();
+        return delegate.countOrdersForUser(userId);
+    }
+
+    @Override
+    public int streamAllOrders(OrderHandler handler) throws Exception {
+        awaitApplied();
+        return delegate.streamAllOrders(handler);
+    }
+
+    @Override
+    public int streamOrdersForUser(int userId, OrderHandler handler) throws Exception {
+        awaitApplied();
+        return delegate.streamOrdersForUser(userId, handler);
+    }
+
+    /**
+     * Stops accepting orders, writes every journaled order to the database and closes the
+     * journal. Orders that cannot be written stay in the journal for the next start.
+     * An interrupt does not cut this short, as the writers still use the journal; it is
+     * kept pending on the calling thread instead.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (incoming) {
+            if (closed) return;
+            closed = true;
+            incoming.add(Pending.END);
+        }
+        boolean interrupted = false;
+        for (Thread writer : List.of(journalWriter, databaseWriter)) {
+            while (writer.isAlive()) {
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        try {
+            journal.close();
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocks until every order journaled so far has been written to the database.
+     */
+    private void awaitApplied() throws SQLException, InterruptedException {
+        long deadline = System.currentTimeMillis() + READ_WAIT_MILLIS;
+        synchronized (this) {
+            long target = journaledCount;
+            while (appliedCount < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) throw new SQLException("Recent orders are still being written to the database");
+                wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Journal thread: appends whatever checkouts are waiting with one fsync, then confirms them.
+     */
+    private void writeJournal() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        List<OrderJournal.Entry> entries = new ArrayList<>(MAX_BATCH);
+        boolean ending = false;
+        while (!ending) {
+            try {
+                batch.add(incoming.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            incoming.drainTo(batch, MAX_BATCH - 1);
+            for (Pending pending : batch) {
+                if (pending == Pending.END) ending = true;
+                else entries.add(pending.entry);
+            }
+            if (!entries.isEmpty()) {
+                try {
+                    journal.append(entries);
+                    synchronized (this) {
+                        journaledCount += entries.size();
+                    }
+                    journaled.addAll(entries);
+                    for (Pending pending : batch) pending.durable.complete(null);
+                } catch (Exception e) {
+                    for (Pending pending : batch) pending.durable.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+            entries.clear();
+        }
+        journaled.add(END_ENTRY);
+    }
+
+    /**
+     * Database thread: writes journaled orders in batches, retrying until the database accepts them.
+     */
+    private void writeDatabase() {
+        List<OrderJournal.Entry> batch = new ArrayList<>(MAX_BATCH);
+        boolean ending = false;
+        while (!ending) {
+            try {
+                batch.add(journaled.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            journaled.drainTo(batch, MAX_BATCH - 1);
+            ending = batch.remove(END_ENTRY);
+            if (batch.isEmpty()) continue;
+            while (true) {
+                try {
+                    delegate.addConfirmedOrders(batch);
+                    break;
+                } catch (Exception e) {
+                    Log.warn("orders.journal_apply_failed", e, "orders", batch.size(), "ending", ending);
+                    // At shutdown, leave them in the journal for the next start
+                    if (ending) return;
+                    try {
+                        Thread.sleep(RETRY_MILLIS);
+                    } catch (InterruptedException ignored) {
+                        // Keep retrying; the orders are already confirmed
+                    }
+                }
+            }
+            for (OrderJournal.Entry entry : batch) adjustUnappliedSeats(entry.order, -1);
+            try {
+                journal.applied(batch.size());
+            } catch (IOException e) {
+                Log.warn("orders.journal_compact_failed", e);
+            }
+            synchronized (this) {
+                appliedCount += batch.size();
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void adjustUnappliedSeats(Order order, int sign) {
+        for (OrderItem item : order.getItems()) {
+            unappliedSeats.computeIfAbsent(item.getEventId(), id -> new AtomicInteger())
+                    .addAndGet(sign * item.getQuantity());
+        }
+    }
+
+    /**
+     * A checkout waiting for its order to be journaled.
+     */
+    private static final class Pending {
+        // Marks the end of the incoming queue at shutdown
+        static final Pending END = new Pending(null);
+
+        final OrderJournal.Entry entry;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        Pending(OrderJournal.Entry entry) {
+            this.entry = entry;
+        }
+    }
+}
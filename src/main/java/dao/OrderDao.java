@@ -1,10 +1,49 @@
 package dao;
 
 import model.Order;
+import model.OrderResult;
 import java.util.List;
 
 public interface OrderDao {
-    void addOrder(Order order, int userId) throws Exception;
+    /**
+     * Saves an order and takes its seats, or nothing if any event is short of seats.
+     * @param order the order to add
+     * @param userId the user ID placing the order
+     * @return the order ID and the seats its events have left. The seat map is empty when
+     *         the events table is updated after the call returns, as with
+     *         {@link JournalingOrderDao}; model.SeatInventory has the counts then
+     * @throws model.SoldOutException if seats are insufficient
+     * @throws Exception if the order cannot be saved
+     */
+    OrderResult addOrder(Order order, int userId) throws Exception;
     List<Order> getAllOrders() throws Exception;
     List<Order> getOrdersForUser(int userId) throws Exception;
+
+    /**
+     * Returns one page of orders, newest first, for keyset pagination.
+     * @param afterId the order ID of the last order on the previous page; only older orders
+     *                are returned. 0 for the first page
+     * @param limit the maximum number of orders to return
+     * @return up to limit orders; fewer means there are no more pages
+     */
+    List<Order> getOrders(int afterId, int limit) throws Exception;
+
+    /**
+     * Returns one page of a user's orders, newest first, for keyset pagination.
+     * @see #getOrders(int, int)
+     */
+    List<Order> getOrdersForUser(int userId, int afterId, int limit) throws Exception;
+
+    /**
+     * Receives orders one at a time from a streaming read.
+     */
+    @FunctionalInterface
+    interface OrderHandler {
+        void handle(Order order) throws Exception;
+    }
+
+    int countAllOrders() throws Exception;
+    int countOrdersForUser(int userId) throws Exception;
+    int streamAllOrders(OrderHandler handler) throws Exception;
+    int streamOrdersForUser(int userId, OrderHandler handler) throws Exception;
 }
@@ -2,78 +2,261 @@ package dao;
 
 import model.Order;
 import model.OrderItem;
-import model.Event;
+import model.OrderResult;
+import model.SoldOutException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import metrics.Log;
+import metrics.OrderWriteEvent;
 
 /**
  * Implementation of the OrderDao interface for order-related database operations.
  * Handles order creation, retrieval, and associated order items.
  */
 public class OrderDaoImpl implements OrderDao {
-    private final Connection dbConn;
+    private static final int FETCH_SIZE = 500;
+    private static final String ORDER_GRAPH_SELECT =
+            "SELECT o.order_id, o.order_date, o.total_price, oi.event_id, oi.quantity, oi.price_per_ticket, "
+            + "oi.event_title, oi.event_day, oi.event_venue";
+    private static final String ORDER_GRAPH_FROM =
+            "FROM orders o JOIN users u ON o.user_id = u.user_id "
+            + "LEFT JOIN order_items oi ON oi.order_id = o.order_id ";
+
+    private static final int ORDER_ID_BLOCK_SIZE = 64;
+
+    private final DataSource dataSource;
     private final EventDao eventDao;
+    private final OrderIdAllocator orderIds;
 
     /**
-     * Constructs an OrderDaoImpl with the given database connection and event DAO.
-     * @param dbConn the database connection
-     * @param eventDao the event DAO for event lookups
+     * Constructs an OrderDaoImpl that borrows connections from the given data source.
+     * @param dataSource the pooled data source
+     * @param eventDao the event DAO to notify when seat counts change
      */
-    public OrderDaoImpl(Connection dbConn, EventDao eventDao) {
-        this.dbConn = dbConn;
+    public OrderDaoImpl(DataSource dataSource, EventDao eventDao) {
+        this.dataSource = dataSource;
         this.eventDao = eventDao;
+        this.orderIds = new OrderIdAllocator(dataSource, ORDER_ID_BLOCK_SIZE);
     }
 
     /**
-     * Adds a new order and its items to the database, and updates event seat availability.
+     * Adds a new order and its items to the database, updates event seat availability
+     * and adds the order to the sales aggregates.
+     * The whole order is rolled back if any event does not have enough seats left.
+     * However many events the order has, this takes the same few statements.
      * @param order the order to add
      * @param userId the user ID placing the order
+     * @return the order ID under which the order was persisted and the seats its events have left
+     * @throws SoldOutException if seats are insufficient
      * @throws Exception if a database error occurs
      */
     @Override
-    public void addOrder(Order order, int userId) throws Exception {
-        dbConn.setAutoCommit(false);
-        String insertOrder = "INSERT INTO orders (user_id, order_date, total_price) VALUES (?, ?, ?)";
-        try (PreparedStatement psOrder = dbConn.prepareStatement(insertOrder, Statement.RETURN_GENERATED_KEYS)) {
-            psOrder.setInt(1, userId);
-            psOrder.setString(2, order.getDateTime().toString());
-            psOrder.setDouble(3, order.getTotalPrice());
-            psOrder.executeUpdate();
-            ResultSet rs = psOrder.getGeneratedKeys();
-            int orderId = -1;
-            if (rs.next()) orderId = rs.getInt(1);
-            String insertItem = "INSERT INTO order_items (order_id, event_id, quantity, price_per_ticket) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement psItem = dbConn.prepareStatement(insertItem)) {
-                for (OrderItem item : order.getItems()) {
-                    psItem.setInt(1, orderId);
-                    psItem.setInt(2, item.getEvent().getEventId());
-                    psItem.setInt(3, item.getQuantity());
-                    psItem.setDouble(4, item.getEvent().getPrice());
-                    psItem.addBatch();
+    public OrderResult addOrder(Order order, int userId) throws Exception {
+        // Allocated before the transaction so the number is final once the order commits
+        int orderId = orderIds.nextId();
+        Map<Integer, Integer> availableSeats = new HashMap<>();
+        OrderWriteEvent event = new OrderWriteEvent();
+        event.begin();
+        try (Connection dbConn = dataSource.getConnection()) {
+            dbConn.setAutoCommit(false);
+            try (OrderWriter writer = new OrderWriter(dbConn, false)) {
+                writer.write(orderId, userId, order, availableSeats);
+                AnalyticsDaoImpl.recordOrders(dbConn, List.of(order));
+                dbConn.commit();
+            } catch (Exception e) {
+                event.failed = true;
+                dbConn.rollback();
+                throw e;
+            } finally {
+                dbConn.setAutoCommit(true);
+            }
+        } finally {
+            commit(event, orderId, List.of(order), false);
+        }
+        // Update cached events only after the connection is back in the pool
+        availableSeats.forEach(eventDao::updateAvailableSeats);
+        return new OrderResult(orderId, availableSeats);
+    }
+
+    /**
+     * Reserves the ID a new order will be stored under.
+     * @return a unique order ID
+     * @throws SQLException if a new block of IDs cannot be reserved
+     */
+    int nextOrderId() throws SQLException {
+        return orderIds.nextId();
+    }
+
+    /**
+     * Writes orders that were confirmed before reaching the database, such as those in the
+     * order journal, in one transaction. Orders whose ID is already present are skipped, so
+     * the same orders may be written more than once. A confirmed order is never refused for
+     * lack of seats; an event it would take below zero is left at zero and reported.
+     * @param entries the confirmed orders
+     * @return the number of orders written
+     * @throws Exception if a database error occurs; nothing is written then
+     */
+    int addConfirmedOrders(List<OrderJournal.Entry> entries) throws Exception {
+        List<Order> written = new ArrayList<>(entries.size());
+        // Later orders in the batch overwrite earlier ones, leaving each event's final count
+        Map<Integer, Integer> availableSeats = new HashMap<>();
+        OrderWriteEvent event = new OrderWriteEvent();
+        event.begin();
+        try (Connection dbConn = dataSource.getConnection()) {
+            dbConn.setAutoCommit(false);
+            try (OrderWriter writer = new OrderWriter(dbConn, true)) {
+                for (OrderJournal.Entry entry : entries) {
+                    if (writer.write(entry.orderId, entry.userId, entry.order, availableSeats)) {
+                        written.add(entry.order);
+                    }
                 }
-                psItem.executeBatch();
+                writer.flushItems();
+                AnalyticsDaoImpl.recordOrders(dbConn, written);
+                dbConn.commit();
+            } catch (Exception e) {
+                event.failed = true;
+                dbConn.rollback();
+                throw e;
+            } finally {
+                dbConn.setAutoCommit(true);
+            }
+        } finally {
+            commit(event, entries.isEmpty() ? 0 : entries.get(0).orderId, written, true);
+        }
+        availableSeats.forEach(eventDao::updateAvailableSeats);
+        return written.size();
+    }
+
+    /**
+     * Records a slow order transaction for the flight recorder. The details are only
+     * gathered when the event is going to be recorded.
+     */
+    private static void commit(OrderWriteEvent event, int firstOrderId, List<Order> orders, boolean confirmed) {
+        if (!event.shouldCommit()) return;
+        event.orderId = firstOrderId;
+        event.orders = orders.size();
+        event.seats = orders.stream().flatMap(o -> o.getItems().stream()).mapToInt(OrderItem::getQuantity).sum();
+        event.eventIds = orders.stream().flatMap(o -> o.getItems().stream()).map(OrderItem::getEventId)
+                .distinct().map(String::valueOf).collect(Collectors.joining(","));
+        event.confirmed = confirmed;
+        event.commit();
+    }
+
+    /**
+     * Inserts orders with their items and takes their seats, using one set of statements
+     * for as many orders as share a transaction. Items are batched; call
+     * {@link #flushItems()} after the last order. The seats of all of an order's events
+     * are taken by a single UPDATE, which returns what each event has left.
+     */
+    private static final class OrderWriter implements AutoCloseable {
+        private final Connection dbConn;
+        private final boolean confirmed;
+        private final PreparedStatement psOrder;
+        private final PreparedStatement psItem;
+        private final PreparedStatement psSeats;
+
+        /**
+         * @param confirmed whether the orders were already confirmed: an existing order with
+         *                  the same ID is then skipped and missing seats are tolerated
+         */
+        OrderWriter(Connection dbConn, boolean confirmed) throws SQLException {
+            this.dbConn = dbConn;
+            this.confirmed = confirmed;
+            psOrder = dbConn.prepareStatement((confirmed ? "INSERT OR IGNORE" : "INSERT")
+                    + " INTO orders (order_id, user_id, order_date, total_price) VALUES (?, ?, ?, ?)");
+            psItem = dbConn.prepareStatement("INSERT INTO order_items (order_id, event_id, quantity, "
+                    + "price_per_ticket, event_title, event_day, event_venue) VALUES (?, ?, ?, ?, ?, ?, ?)");
+            // Takes [[event_id, quantity], ...] as JSON, skipping any event it would take below zero
+            psSeats = dbConn.prepareStatement("UPDATE events SET available_seats = available_seats - s.quantity "
+                    + "FROM (SELECT value ->> 0 AS event_id, value ->> 1 AS quantity FROM json_each(?)) AS s "
+                    + "WHERE events.event_id = s.event_id AND events.available_seats >= s.quantity "
+                    + "RETURNING event_id, available_seats");
+        }
+
+        /**
+         * @param availableSeats receives the seats each of the order's events has left
+         * @return true if the order was written, false if it was already there
+         * @throws SoldOutException if seats are insufficient for an unconfirmed order
+         * @throws SQLException if a database error occurs
+         */
+        boolean write(int orderId, int userId, Order order, Map<Integer, Integer> availableSeats) throws SQLException {
+            psOrder.setInt(1, orderId);
+            psOrder.setInt(2, userId);
+            psOrder.setString(3, order.getDateTime().toString());
+            psOrder.setDouble(4, order.getTotalPrice());
+            if (psOrder.executeUpdate() == 0) return false;
+            for (OrderItem item : order.getItems()) {
+                psItem.setInt(1, orderId);
+                psItem.setInt(2, item.getEventId());
+                psItem.setInt(3, item.getQuantity());
+                psItem.setDouble(4, item.getPricePerTicket());
+                psItem.setString(5, item.getTitle());
+                psItem.setString(6, item.getDay());
+                psItem.setString(7, item.getVenue());
+                psItem.addBatch();
             }
-            // Update available_seats for each event
+            if (!confirmed) flushItems();
+            // An event may appear on several lines; the UPDATE must see it once with the total
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
             for (OrderItem item : order.getItems()) {
-                String updateEvent = "UPDATE events SET available_seats = available_seats - ? WHERE event_id = ?";
-                try (PreparedStatement psUpdate = dbConn.prepareStatement(updateEvent)) {
-                    psUpdate.setInt(1, item.getQuantity());
-                    psUpdate.setInt(2, item.getEvent().getEventId());
-                    psUpdate.executeUpdate();
+                quantities.merge(item.getEventId(), item.getQuantity(), Integer::sum);
+            }
+            StringBuilder json = new StringBuilder("[");
+            quantities.forEach((eventId, quantity) ->
+                    json.append(json.length() > 1 ? ",[" : "[").append(eventId).append(',').append(quantity).append(']'));
+            psSeats.setString(1, json.append(']').toString());
+            try (ResultSet rs = psSeats.executeQuery()) {
+                while (rs.next()) {
+                    int eventId = rs.getInt(1);
+                    availableSeats.put(eventId, rs.getInt(2));
+                    quantities.remove(eventId);
                 }
             }
-            dbConn.commit();
-        } catch (Exception e) {
-            dbConn.rollback();
-            throw e;
-        } finally {
-            dbConn.setAutoCommit(true);
+            // Whatever is left lacked the seats or no longer exists
+            for (OrderItem item : order.getItems()) {
+                if (quantities.isEmpty()) break;
+                if (quantities.remove(item.getEventId()) == null) continue;
+                if (!confirmed) throw new SoldOutException("Not enough seats available for " + item.getTitle());
+                if (oversold(orderId, item)) availableSeats.put(item.getEventId(), 0);
+            }
+            return true;
+        }
+
+        void flushItems() throws SQLException {
+            psItem.executeBatch();
+        }
+
+        /**
+         * Takes what is left of an event's seats for a confirmed order that wants more.
+         * @return false if the event no longer exists
+         */
+        private boolean oversold(int orderId, OrderItem item) throws SQLException {
+            try (PreparedStatement ps = dbConn.prepareStatement(
+                    "UPDATE events SET available_seats = 0 WHERE event_id = ?")) {
+                ps.setInt(1, item.getEventId());
+                // A deleted event has no seats to take
+                if (ps.executeUpdate() == 0) return false;
+                Log.warn("orders.oversold", null, "order_id", orderId, "event_id", item.getEventId(),
+                        "title", item.getTitle(), "quantity", item.getQuantity());
+                return true;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try (psOrder; psItem; psSeats) {
+                // Closes all three statements
+            }
         }
     }
 
@@ -84,20 +267,12 @@ public class OrderDaoImpl implements OrderDao {
      */
     @Override
     public List<Order> getAllOrders() throws Exception {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT o.order_id, o.order_date, o.total_price, u.username, u.preferred_name, u.user_id FROM orders o JOIN users u ON o.user_id = u.user_id ORDER BY o.order_id DESC";
-        try (PreparedStatement ps = dbConn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                int orderId = rs.getInt("order_id");
-                LocalDateTime dateTime = LocalDateTime.parse(rs.getString("order_date"));
-                double total = rs.getDouble("total_price");
-                String username = rs.getString("username");
-                List<OrderItem> items = getOrderItems(orderId);
-                Order order = new Order(String.format("%04d", orderId), dateTime, items, total, username);
-                orders.add(order);
-            }
+        String sql = ORDER_GRAPH_SELECT + ", u.username AS customer_name " + ORDER_GRAPH_FROM
+                + "ORDER BY o.order_id DESC, oi.order_item_id";
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement(sql)) {
+            return loadOrderGraph(ps);
         }
-        return orders;
     }
 
     /**
@@ -108,47 +283,200 @@ public class OrderDaoImpl implements OrderDao {
      */
     @Override
     public List<Order> getOrdersForUser(int userId) throws Exception {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT o.order_id, o.order_date, o.total_price, u.preferred_name FROM orders o JOIN users u ON o.user_id = u.user_id WHERE o.user_id = ? ORDER BY o.order_id DESC";
-        try (PreparedStatement ps = dbConn.prepareStatement(sql)) {
+        String sql = ORDER_GRAPH_SELECT + ", u.preferred_name AS customer_name " + ORDER_GRAPH_FROM
+                + "WHERE o.user_id = ? ORDER BY o.order_id DESC, oi.order_item_id";
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            return loadOrderGraph(ps);
+        }
+    }
+
+    /**
+     * Retrieves one page of orders, newest first. The page is chosen on the orders table
+     * alone, by primary key, before joining items, so deep pages cost the
+     * same as the first one.
+     * @param afterId the order ID the previous page ended with, or 0 for the first page
+     * @param limit the maximum number of orders to return
+     * @return up to limit orders
+     * @throws Exception if a database error occurs
+     */
+    @Override
+    public List<Order> getOrders(int afterId, int limit) throws Exception {
+        String sql = ORDER_GRAPH_SELECT + ", u.username AS customer_name " + ORDER_GRAPH_FROM
+                + "WHERE o.order_id IN (SELECT order_id FROM orders WHERE order_id < ? "
+                + "ORDER BY order_id DESC LIMIT ?) ORDER BY o.order_id DESC, oi.order_item_id";
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement(sql)) {
+            ps.setInt(1, afterId > 0 ? afterId : Integer.MAX_VALUE);
+            ps.setInt(2, limit);
+            return loadOrderGraph(ps);
+        }
+    }
+
+    /**
+     * Retrieves one page of a user's orders, newest first.
+     * @param userId the user ID
+     * @param afterId the order ID the previous page ended with, or 0 for the first page
+     * @param limit the maximum number of orders to return
+     * @return up to limit orders
+     * @throws Exception if a database error occurs
+     */
+    @Override
+    public List<Order> getOrdersForUser(int userId, int afterId, int limit) throws Exception {
+        String sql = ORDER_GRAPH_SELECT + ", u.preferred_name AS customer_name " + ORDER_GRAPH_FROM
+                + "WHERE o.order_id IN (SELECT order_id FROM orders WHERE user_id = ? AND order_id < ? "
+                + "ORDER BY order_id DESC LIMIT ?) ORDER BY o.order_id DESC, oi.order_item_id";
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, afterId > 0 ? afterId : Integer.MAX_VALUE);
+            ps.setInt(3, limit);
+            return loadOrderGraph(ps);
+        }
+    }
+
+    /**
+     * Counts all orders.
+     * @return the number of orders
+     * @throws Exception if a database error occurs
+     */
+    @Override
+    public int countAllOrders() throws Exception {
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement("SELECT COUNT(*) FROM orders");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Counts the orders of a specific user.
+     * @param userId the user ID
+     * @return the number of orders placed by the user
+     * @throws Exception if a database error occurs
+     */
+    @Override
+    public int countOrdersForUser(int userId) throws Exception {
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement("SELECT COUNT(*) FROM orders WHERE user_id = ?")) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int orderId = rs.getInt("order_id");
-                    LocalDateTime dateTime = LocalDateTime.parse(rs.getString("order_date"));
-                    double total = rs.getDouble("total_price");
-                    String customerName = rs.getString("preferred_name");
-                    List<OrderItem> items = getOrderItems(orderId);
-                    Order order = new Order(String.format("%04d", orderId), dateTime, items, total, customerName);
-                    orders.add(order);
-                }
+                return rs.next() ? rs.getInt(1) : 0;
             }
         }
+    }
+
+    /**
+     * Streams all orders, oldest first, to a handler without holding them in memory.
+     * @param handler receives each order as soon as its last row has been read
+     * @return the number of orders streamed
+     * @throws Exception if a database error occurs or the handler fails
+     */
+    @Override
+    public int streamAllOrders(OrderHandler handler) throws Exception {
+        String sql = ORDER_GRAPH_SELECT + ", u.username AS customer_name " + ORDER_GRAPH_FROM
+                + "ORDER BY o.order_id, oi.order_item_id";
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement(sql)) {
+            return streamOrderGraph(ps, handler::handle);
+        }
+    }
+
+    /**
+     * Streams the orders of a specific user, oldest first, to a handler without holding them in memory.
+     * @param userId the user ID
+     * @param handler receives each order as soon as its last row has been read
+     * @return the number of orders streamed
+     * @throws Exception if a database error occurs or the handler fails
+     */
+    @Override
+    public int streamOrdersForUser(int userId, OrderHandler handler) throws Exception {
+        String sql = ORDER_GRAPH_SELECT + ", u.preferred_name AS customer_name " + ORDER_GRAPH_FROM
+                + "WHERE o.user_id = ? ORDER BY o.order_id, oi.order_item_id";
+        try (Connection dbConn = dataSource.getConnection();
+             PreparedStatement ps = dbConn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            return streamOrderGraph(ps, handler::handle);
+        }
+    }
+
+    /**
+     * Runs a joined order/item query and assembles the Order graphs in a single pass.
+     * Items are built from the snapshot stored with each line, so the cost is one query
+     * regardless of how many orders or items are returned, and events are never read.
+     * @param ps a prepared statement selecting ORDER_GRAPH_SELECT columns plus customer_name
+     * @return the assembled orders in result order
+     * @throws SQLException if a database error occurs
+     */
+    private List<Order> loadOrderGraph(PreparedStatement ps) throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        streamOrderGraph(ps, orders::add);
         return orders;
     }
 
     /**
-     * Retrieves all order items for a given order ID.
-     * @param orderId the order ID
-     * @return a list of OrderItem objects
-     * @throws Exception if a database error occurs
+     * Runs a joined order/item query and hands each assembled Order to a handler.
+     * Rows must arrive grouped by order_id; an order is handed over once the cursor moves
+     * past its last row, so only one order is held in memory at a time.
+     * @param ps a prepared statement selecting ORDER_GRAPH_SELECT columns plus customer_name
+     * @param sink receives the orders in result order
+     * @return the number of orders handed over
+     * @throws SQLException if a database error occurs
+     * @throws X if the sink fails
      */
-    private List<OrderItem> getOrderItems(int orderId) throws Exception {
-        List<OrderItem> items = new ArrayList<>();
-        String sql = "SELECT oi.event_id, oi.quantity, oi.price_per_ticket FROM order_items oi WHERE oi.order_id = ?";
-        try (PreparedStatement ps = dbConn.prepareStatement(sql)) {
-            ps.setInt(1, orderId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int eventId = rs.getInt("event_id");
-                    int qty = rs.getInt("quantity");
-                    Event event = eventDao.getEventById(eventId);
-                    if (event != null) {
-                        items.add(new OrderItem(event, qty));
+    private <X extends Exception> int streamOrderGraph(PreparedStatement ps, OrderSink<X> sink) throws SQLException, X {
+        int count = 0;
+        ps.setFetchSize(FETCH_SIZE);
+        try (ResultSet rs = ps.executeQuery()) {
+            int currentOrderId = -1;
+            Order current = null;
+            List<OrderItem> items = null;
+            int rows = 0;
+            while (rs.next()) {
+                // Let a cancelled background load stop early instead of reading every row
+                if ((++rows & 1023) == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new SQLException("Loading orders was interrupted");
+                }
+                int orderId = rs.getInt("order_id");
+                if (orderId != currentOrderId) {
+                    if (current != null) {
+                        sink.accept(current);
+                        count++;
                     }
+                    currentOrderId = orderId;
+                    items = new ArrayList<>();
+                    LocalDateTime dateTime = LocalDateTime.parse(rs.getString("order_date"));
+                    double total = rs.getDouble("total_price");
+                    String customerName = rs.getString("customer_name");
+                    current = new Order(String.format("%04d", orderId), dateTime, items, total, customerName);
                 }
+                // Orders without items join to a single row of NULL item columns
+                int eventId = rs.getInt("event_id");
+                if (rs.wasNull()) continue;
+                items.add(new OrderItem(
+                    eventId,
+                    rs.getString("event_title"),
+                    rs.getString("event_day"),
+                    rs.getString("event_venue"),
+                    rs.getDouble("price_per_ticket"),
+                    rs.getInt("quantity")
+                ));
+            }
+            if (current != null) {
+                sink.accept(current);
+                count++;
             }
         }
-        return items;
+        return count;
+    }
+
+    /**
+     * Receives the orders of a joined query. Unlike {@link OrderHandler}, declares only the
+     * exception its caller can throw, so list loads propagate SQLException unchanged.
+     */
+    @FunctionalInterface
+    private interface OrderSink<X extends Exception> {
+        void accept(Order order) throws X;
     }
 }
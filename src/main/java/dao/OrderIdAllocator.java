@@ -0,0 +1,89 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+/**
+ * Hands out unique, increasing order IDs.
+ * <p>
+ * IDs are reserved from the order_sequence table in blocks, so the database is touched
+ * once per block instead of once per checkout. Within a block, IDs are handed out from
+ * memory. The sequence starts above the highest order_id present when it was created.
+ * IDs left over in a block when the application exits are skipped, which can
+ * leave gaps but never duplicates.
+ * </p>
+ */
+public class OrderIdAllocator {
+    private static final String SEQUENCE_NAME = "orders";
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private int next;
+    private int limit;
+
+    /**
+     * Constructs an allocator.
+     * @param dataSource the pooled data source
+     * @param blockSize how many IDs to reserve per database round trip
+     */
+    public OrderIdAllocator(DataSource dataSource, int blockSize) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive");
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next order ID, reserving a new block when the current one is used up.
+     * @return a unique order ID
+     * @throws SQLException if a new block cannot be reserved
+     */
+    public synchronized int nextId() throws SQLException {
+        if (next >= limit) {
+            next = reserveBlock();
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+
+    /**
+     * Advances the persisted sequence by one block and returns the block's first ID.
+     */
+    private int reserveBlock() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int start = currentValue(conn);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE order_sequence SET next_value = ? WHERE name = ?")) {
+                    ps.setInt(1, start + blockSize);
+                    ps.setString(2, SEQUENCE_NAME);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                return start;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Reads the next unreserved ID. The sequence is created and seeded by SchemaMigrator.
+     */
+    private int currentValue(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT next_value FROM order_sequence WHERE name = ?")) {
+            ps.setString(1, SEQUENCE_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new SQLException("Order sequence is missing");
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import model.Order;
+import model.OrderItem;
+
+/**
+ * Append-only file of orders that have been accepted but may not be in the database yet.
+ * <p>
+ * Each record is its payload length, a CRC32 of the payload and the payload itself. A
+ * batch of records is written with one write and made durable with one force, so many
+ * checkouts share the cost of a single fsync. Recovery reads records up to the first
+ * incomplete or corrupt one, which can only be the tail of a write cut short by a crash,
+ * and cuts the file there. Once every record has been written to the database and the
+ * file has grown past a threshold it is emptied; records replayed twice are harmless
+ * because the database skips orders it already has.
+ * </p>
+ */
+final class OrderJournal implements AutoCloseable {
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // Larger records can only come from a corrupt length field
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    // Emptying the file costs an fsync, so it is only done once it is this large
+    private static final long COMPACT_BYTES = 1024 * 1024;
+
+    private final FileChannel channel;
+    private int unapplied;
+
+    /**
+     * An accepted order with the IDs it will be stored under.
+     */
+    static final class Entry {
+        final int orderId;
+        final int userId;
+        final Order order;
+
+        Entry(int orderId, int userId, Order order) {
+            this.orderId = orderId;
+            this.userId = userId;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Opens or creates a journal file.
+     * @param file the journal file
+     * @throws IOException if the file cannot be opened
+     */
+    OrderJournal(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Reads every complete record, drops a torn tail and positions the file for appending.
+     * The records returned count as not yet applied.
+     * @return the journaled orders in the order they were written
+     * @throws IOException if the file cannot be read
+     */
+    synchronized List<Entry> recover() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long position = 0;
+        long size = channel.size();
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(4);
+            if (length <= 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) break;
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            if ((int) crc(payload.array(), length) != checksum) break;
+            entries.add(decode(payload.array()));
+            position += HEADER_BYTES + length;
+        }
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        unapplied = entries.size();
+        return entries;
+    }
+
+    /**
+     * Appends records and waits until they are on disk.
+     * @param entries the orders to journal
+     * @throws IOException if the records could not be made durable; none of them count then
+     */
+    synchronized void append(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Entry entry : entries) {
+            byte[] payload = encode(entry);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc(payload, payload.length));
+            out.write(payload);
+        }
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            // Leave no partial batch behind for recovery to replay
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+        unapplied += entries.size();
+    }
+
+    /**
+     * Records that journaled orders are now in the database, emptying the file once all of
+     * them are and it has grown large.
+     * @param count how many records were applied
+     * @throws IOException if the file cannot be emptied
+     */
+    synchronized void applied(int count) throws IOException {
+        unapplied -= count;
+        if (unapplied == 0 && channel.size() >= COMPACT_BYTES) reset();
+    }
+
+    /**
+     * Closes the file, emptying it first if every record has been applied.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (unapplied == 0 && channel.size() > 0) reset();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of journal");
+        }
+    }
+
+    private static long crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return crc.getValue();
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Order order = entry.order;
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(entry.orderId);
+        out.writeInt(entry.userId);
+        out.writeUTF(order.getDateTime().toString());
+        out.writeDouble(order.getTotalPrice());
+        writeNullable(out, order.getCustomerName());
+        out.writeInt(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            out.writeInt(item.getEventId());
+            out.writeUTF(item.getTitle());
+            out.writeUTF(item.getDay());
+            out.writeUTF(item.getVenue());
+            out.writeDouble(item.getPricePerTicket());
+            out.writeInt(item.getQuantity());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) throw new IOException("Unknown order journal format " + version);
+        int orderId = in.readInt();
+        int userId = in.readInt();
+        LocalDateTime dateTime = LocalDateTime.parse(in.readUTF());
+        double total = in.readDouble();
+        String customerName = readNullable(in);
+        int count = in.readInt();
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new OrderItem(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble(), in.readInt()));
+        }
+        Order order = new Order(String.format("%04d", orderId), dateTime, items, total, customerName);
+        return new Entry(orderId, userId, order);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,649 @@
+package dao;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import metrics.QueryEvent;
+
+/**
+ * A bounded pool of SQLite connections exposed as a {@link DataSource}.
+ * <p>
+ * Physical connections are opened lazily, configured once with the SQLite pragmas below,
+ * and handed out wrapped in a proxy whose {@code close()} returns them to the pool.
+ * Connections that sat idle past the validation interval are checked before being lent,
+ * and a background task closes connections idle for longer than the idle timeout.
+ * </p>
+ * <p>
+ * Each physical connection also keeps its most recently used prepared statements, so a
+ * given SQL string is compiled by SQLite once per connection rather than on every call.
+ * {@code prepareStatement(sql)} on a borrowed connection hands out a cached statement
+ * when there is one, and closing it resets the statement and puts it back instead of
+ * finalizing it. DAOs keep preparing and closing statements as usual.
+ * </p>
+ * <p>
+ * While a flight recording has {@link QueryEvent}s enabled, every statement execution
+ * on a borrowed connection is recorded as one, see {@link QueryTracer}.
+ * </p>
+ */
+public class PooledDataSource implements DataSource {
+    private static final String[] PRAGMAS = {
+        "PRAGMA journal_mode=WAL",
+        "PRAGMA synchronous=NORMAL",
+        "PRAGMA busy_timeout=5000",
+        "PRAGMA cache_size=-16000",
+        "PRAGMA mmap_size=134217728"
+    };
+
+    private final String url;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    // Most recently returned connections sit at the head so the warmest one is reused first
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    /**
+     * Constructs a pool with default timeouts.
+     * @param url the JDBC URL of the SQLite database
+     * @param maxSize the maximum number of physical connections
+     */
+    public PooledDataSource(String url, int maxSize) {
+        this(url, maxSize, 64);
+    }
+
+    /**
+     * Constructs a pool with default timeouts.
+     * @param url the JDBC URL of the SQLite database
+     * @param maxSize the maximum number of physical connections
+     * @param statementCacheSize prepared statements kept per connection; 0 disables the cache
+     */
+    public PooledDataSource(String url, int maxSize, int statementCacheSize) {
+        this(url, maxSize, 10_000, 5_000, 60_000, statementCacheSize);
+    }
+
+    /**
+     * Constructs a pool.
+     * @param url the JDBC URL of the SQLite database
+     * @param maxSize the maximum number of physical connections
+     * @param borrowTimeoutMillis how long a caller waits for a free connection
+     * @param validationIntervalMillis idle time after which a connection is validated on borrow
+     * @param idleTimeoutMillis idle time after which a connection is closed by the evictor
+     * @param statementCacheSize prepared statements kept per connection; 0 disables the cache
+     */
+    public PooledDataSource(String url, int maxSize, long borrowTimeoutMillis,
+                            long validationIntervalMillis, long idleTimeoutMillis, int statementCacheSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        if (statementCacheSize < 0) throw new IllegalArgumentException("statementCacheSize must not be negative");
+        this.url = url;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle.
+     * Closing the returned connection hands it back to the pool.
+     * @return a pooled connection
+     * @throws SQLException if the pool is exhausted for longer than the borrow timeout
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        try {
+            PooledEntry entry = takeIdle();
+            if (entry == null) entry = open();
+            borrows.incrementAndGet();
+            active.incrementAndGet();
+            return entry.lend();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("SQLite connections do not take credentials");
+    }
+
+    /**
+     * Takes the warmest idle connection, discarding any that fail validation.
+     */
+    private PooledEntry takeIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            long idleFor = System.currentTimeMillis() - entry.lastReturned;
+            if (idleFor < validationIntervalMillis || isValid(entry.physical)) {
+                return entry;
+            }
+            validationFailures.incrementAndGet();
+            destroy(entry);
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection physical) {
+        try {
+            return physical.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens and configures a new physical connection.
+     */
+    private PooledEntry open() throws SQLException {
+        Properties props = new Properties();
+        // Take the write lock when a transaction begins so concurrent writers queue on
+        // busy_timeout instead of failing when upgrading a read transaction
+        props.setProperty("transaction_mode", "IMMEDIATE");
+        Connection physical = DriverManager.getConnection(url, props);
+        try (Statement stmt = physical.createStatement()) {
+            for (String pragma : PRAGMAS) {
+                stmt.execute(pragma);
+            }
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        created.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    /**
+     * Returns a connection to the pool once its borrower has closed it.
+     */
+    private void giveBack(PooledEntry entry) {
+        active.decrementAndGet();
+        try {
+            if (closed || entry.physical.isClosed()) {
+                destroy(entry);
+                return;
+            }
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            entry.lastReturned = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        destroyed.incrementAndGet();
+        entry.statements.clear();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // Already unusable; nothing more to do
+        }
+    }
+
+    /**
+     * Closes connections that have been idle longer than the idle timeout.
+     */
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledEntry entry = it.next();
+            if (entry.lastReturned < cutoff && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the evictor. Borrowed connections are
+     * closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     * @return the current pool metrics
+     */
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(maxSize, active.get(), idle.size(), created.get(), destroyed.get(),
+                borrows.get(), waitNanos.get(), timeouts.get(), validationFailures.get(),
+                statementHits.get(), statementMisses.get(), statementEvictions.get());
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // Logging is not supported
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        // Opening a SQLite file does not block on a login
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledEntry {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastReturned = System.currentTimeMillis();
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical);
+        }
+
+        /**
+         * Wraps the physical connection in a proxy that is only valid until closed once.
+         */
+        private Connection lend() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Routes calls on a borrowed connection to the physical one until the borrower closes it.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean released;
+
+        private LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(entry.physical)) return entry.physical;
+                    break;
+                default:
+                    break;
+            }
+            if (released) throw new SQLException("Connection has been returned to the pool");
+            if (statementCacheSize > 0 && method.getName().equals("prepareStatement") && args.length == 1) {
+                return entry.statements.prepare((String) args[0], (Connection) proxy);
+            }
+            Object result;
+            try {
+                result = method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement statement && QueryTracer.isEnabled()) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return QueryTracer.trace(statement, method.getReturnType(), sql, (Connection) proxy);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The idle prepared statements of one physical connection, keyed by SQL, least recently
+     * returned first. A statement is taken out of the cache while it is in use, so the same
+     * SQL prepared twice at once gets a second statement, which is closed when returned if
+     * the first one is back by then.
+     */
+    private final class StatementCache {
+        private final Connection physical;
+        private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>();
+        private boolean cleared; // guarded by this
+
+        private StatementCache(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Takes the cached statement for some SQL, or prepares one, and wraps it so that
+         * closing it returns it here.
+         */
+        private PreparedStatement prepare(String sql, Connection lease) throws SQLException {
+            PreparedStatement ps;
+            synchronized (this) {
+                ps = statements.remove(sql);
+            }
+            if (ps != null && !ps.isClosed()) {
+                statementHits.incrementAndGet();
+            } else {
+                statementMisses.incrementAndGet();
+                ps = physical.prepareStatement(sql);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class},
+                    new CachedStatementHandler(this, sql, ps, lease));
+        }
+
+        /**
+         * Puts a reset statement back, closing the least recently used one if the cache is full.
+         */
+        private void giveBack(String sql, PreparedStatement ps) {
+            PreparedStatement evicted = null;
+            synchronized (this) {
+                if (!cleared && !statements.containsKey(sql)) {
+                    statements.put(sql, ps);
+                    ps = null;
+                    if (statements.size() > statementCacheSize) {
+                        Iterator<PreparedStatement> eldest = statements.values().iterator();
+                        evicted = eldest.next();
+                        eldest.remove();
+                        statementEvictions.incrementAndGet();
+                    }
+                }
+            }
+            closeQuietly(ps);
+            closeQuietly(evicted);
+        }
+
+        /**
+         * Closes every cached statement before the physical connection is closed. Statements
+         * still in use are closed when they are returned.
+         */
+        private void clear() {
+            List<PreparedStatement> closing;
+            synchronized (this) {
+                cleared = true;
+                closing = new ArrayList<>(statements.values());
+                statements.clear();
+            }
+            closing.forEach(PooledDataSource::closeQuietly);
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        if (stmt == null) return;
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            // Closing the connection finalizes it anyway
+        }
+    }
+
+    /**
+     * Routes calls on a cached statement to the physical one until the borrower closes it,
+     * then resets it and returns it to its cache.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+        private final StatementCache cache;
+        private final String sql;
+        private final PreparedStatement physical;
+        private final Connection lease;
+        // Result sets left open would keep the statement running and hold a read snapshot
+        private final List<ResultSet> results = new ArrayList<>(1);
+        private boolean closed;
+        // Cleared by anything that would leak into the statement's next use
+        private boolean reusable = true;
+        private boolean batched;
+        private boolean limited;
+
+        private CachedStatementHandler(StatementCache cache, String sql, PreparedStatement physical, Connection lease) {
+            this.cache = cache;
+            this.sql = sql;
+            this.physical = physical;
+            this.lease = lease;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + sql + "]";
+                default:
+                    break;
+            }
+            if (closed) throw new SQLException("Statement is closed");
+            switch (method.getName()) {
+                case "getConnection":
+                    return lease;
+                case "addBatch":
+                    batched = true;
+                    break;
+                case "setFetchSize":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                    limited = true;
+                    break;
+                case "setQueryTimeout":
+                case "setFetchDirection":
+                case "setMaxFieldSize":
+                case "setEscapeProcessing":
+                case "setPoolable":
+                case "setCursorName":
+                case "closeOnCompletion":
+                    reusable = false;
+                    break;
+                default:
+                    break;
+            }
+            QueryEvent event = QueryTracer.isEnabled() && QueryTracer.isExecute(method)
+                    ? QueryTracer.begin(method, args, sql) : null;
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                // The statement's state after a failure is not worth trusting
+                reusable = false;
+                if (event != null) QueryTracer.failed(event);
+                throw e.getCause();
+            }
+            // SQLite hands back the same result set object on every execution of a statement
+            if (result instanceof ResultSet rs && !results.contains(rs)) results.add(rs);
+            return event != null ? QueryTracer.end(event, result) : result;
+        }
+
+        private void release() throws SQLException {
+            try {
+                for (ResultSet rs : results) rs.close();
+                if (reusable && !physical.isClosed()) {
+                    physical.clearParameters();
+                    if (batched) physical.clearBatch();
+                    if (limited) {
+                        physical.setFetchSize(0);
+                        physical.setMaxRows(0);
+                    }
+                    cache.giveBack(sql, physical);
+                    return;
+                }
+            } catch (SQLException e) {
+                // Fall through and finalize it
+            }
+            physical.close();
+        }
+    }
+
+    /**
+     * Immutable snapshot of pool counters.
+     */
+    public static final class PoolMetrics {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final long created;
+        private final long destroyed;
+        private final long borrows;
+        private final long waitNanos;
+        private final long timeouts;
+        private final long validationFailures;
+        private final long statementHits;
+        private final long statementMisses;
+        private final long statementEvictions;
+
+        PoolMetrics(int maxSize, int active, int idle, long created, long destroyed,
+                    long borrows, long waitNanos, long timeouts, long validationFailures,
+                    long statementHits, long statementMisses, long statementEvictions) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.borrows = borrows;
+            this.waitNanos = waitNanos;
+            this.timeouts = timeouts;
+            this.validationFailures = validationFailures;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+            this.statementEvictions = statementEvictions;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getBorrows() { return borrows; }
+        public long getTimeouts() { return timeouts; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getStatementHits() { return statementHits; }
+        public long getStatementMisses() { return statementMisses; }
+        public long getStatementEvictions() { return statementEvictions; }
+
+        /**
+         * @return the fraction of prepareStatement calls served from the statement cache
+         */
+        public double getStatementHitRate() {
+            long prepares = statementHits + statementMisses;
+            return prepares == 0 ? 0 : (double) statementHits / prepares;
+        }
+
+        /**
+         * @return the mean time callers spent waiting for a connection, in microseconds
+         */
+        public double getMeanWaitMicros() {
+            return borrows == 0 ? 0 : waitNanos / 1_000.0 / borrows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d idle=%d max=%d created=%d destroyed=%d borrows=%d meanWait=%.1fus timeouts=%d invalid=%d "
+                    + "statements: hits=%d misses=%d evictions=%d hitRate=%.1f%%",
+                    active, idle, maxSize, created, destroyed, borrows, getMeanWaitMicros(), timeouts, validationFailures,
+                    statementHits, statementMisses, statementEvictions, getStatementHitRate() * 100);
+        }
+    }
+}
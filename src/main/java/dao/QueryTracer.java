@@ -0,0 +1,200 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import jdk.jfr.EventType;
+import metrics.QueryEvent;
+
+/**
+ * Records statement executions on pooled connections as {@link QueryEvent}s.
+ * <p>
+ * Nothing is traced unless a flight recording has query events enabled, and the check is
+ * a single flag read, so the pool pays nothing for this in normal operation. Statements
+ * from the statement cache are traced by their handler; any other statement handed out
+ * while query events are enabled is wrapped by {@link #trace}.
+ * </p>
+ */
+final class QueryTracer {
+    private static final EventType QUERY_EVENTS = EventType.getEventType(QueryEvent.class);
+
+    // Private constructor to prevent instantiation
+    private QueryTracer() {}
+
+    /**
+     * Returns whether a flight recording currently wants query events.
+     */
+    static boolean isEnabled() {
+        return QUERY_EVENTS.isEnabled();
+    }
+
+    /**
+     * Returns whether a statement method runs SQL.
+     */
+    static boolean isExecute(Method method) {
+        return method.getName().startsWith("execute");
+    }
+
+    /**
+     * Starts the event for an execute call.
+     * @param sql the statement's prepared SQL, or null for a plain statement, whose SQL is
+     *            the call's first argument
+     */
+    static QueryEvent begin(Method method, Object[] args, String sql) {
+        QueryEvent event = new QueryEvent();
+        if (sql == null && args != null && args.length > 0 && args[0] instanceof String text) sql = text;
+        event.sql = sql;
+        event.operation = method.getName();
+        event.rows = -1;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event for an execute call that threw.
+     */
+    static void failed(QueryEvent event) {
+        event.failed = true;
+        event.commit();
+    }
+
+    /**
+     * Ends the event for an execute call with its result. A result set is wrapped instead,
+     * and the event ends once it has been read to the end or closed.
+     * @return the result to hand to the caller
+     */
+    static Object end(QueryEvent event, Object result) {
+        switch (result) {
+            case ResultSet rs -> {
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, new ResultSetHandler(rs, event));
+            }
+            case Integer count -> event.rows = count;
+            case Long count -> event.rows = count;
+            case int[] counts -> {
+                event.batchSize = counts.length;
+                long rows = 0;
+                for (int count : counts) if (count > 0) rows += count;
+                event.rows = rows;
+            }
+            case long[] counts -> {
+                event.batchSize = counts.length;
+                long rows = 0;
+                for (long count : counts) if (count > 0) rows += count;
+                event.rows = rows;
+            }
+            case null, default -> {
+                // execute() only says whether there is a result set
+            }
+        }
+        event.commit();
+        return result;
+    }
+
+    /**
+     * Wraps a statement that is not in the statement cache so its executions are traced.
+     * @param statement the physical statement
+     * @param type the interface the caller expects, e.g. PreparedStatement
+     * @param sql the prepared SQL, or null for a plain statement
+     * @param lease the borrowed connection the statement should report
+     */
+    static Statement trace(Statement statement, Class<?> type, String sql, Connection lease) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[] {type}, new StatementHandler(statement, sql, lease));
+    }
+
+    /**
+     * Traces the executions of an uncached statement.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement physical;
+        private final String sql;
+        private final Connection lease;
+
+        private StatementHandler(Statement physical, String sql, Connection lease) {
+            this.physical = physical;
+            this.sql = sql;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return lease;
+                default:
+                    break;
+            }
+            QueryEvent event = isExecute(method) ? begin(method, args, sql) : null;
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                if (event != null) failed(event);
+                throw e.getCause();
+            }
+            return event != null ? end(event, result) : result;
+        }
+    }
+
+    /**
+     * Counts the rows read from a query's result set and ends its event when the rows run
+     * out or the result set is closed.
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet physical;
+        private final QueryEvent event;
+        private long rows;
+        private boolean ended;
+
+        private ResultSetHandler(ResultSet physical, QueryEvent event) {
+            this.physical = physical;
+            this.event = event;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    end();
+                    break;
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                if (method.getName().equals("next")) {
+                    event.failed = true;
+                    end();
+                }
+                throw e.getCause();
+            }
+            if (method.getName().equals("next")) {
+                if ((Boolean) result) rows++;
+                else end();
+            }
+            return result;
+        }
+
+        private void end() {
+            if (ended) return;
+            ended = true;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+
+/**
+ * Creates and upgrades the database schema.
+ * <p>
+ * Each migration has a version number and is applied at most once, inside its own
+ * transaction, in version order. Applied versions are recorded in the schema_version
+ * table, so on an up-to-date database startup costs a single query. New schema changes
+ * are added by appending a migration with the next version number; existing migrations
+ * must never be edited once released.
+ * </p>
+ */
+public final class SchemaMigrator {
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(new Migration(1, "Create core tables",
+            "CREATE TABLE IF NOT EXISTS users ("
+                + "user_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "username TEXT NOT NULL UNIQUE, "
+                + "password TEXT NOT NULL, "
+                + "role TEXT NOT NULL DEFAULT 'user', "
+                + "preferred_name VARCHAR (22))",
+            "CREATE TABLE IF NOT EXISTS events ("
+                + "event_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "title TEXT NOT NULL, "
+                + "date TEXT NOT NULL, "
+                + "location TEXT NOT NULL, "
+                + "total_seats INTEGER NOT NULL, "
+                + "available_seats INTEGER NOT NULL, "
+                + "enabled INTEGER NOT NULL DEFAULT 1, "
+                + "price REAL DEFAULT 0.0)",
+            "CREATE TABLE IF NOT EXISTS orders ("
+                + "order_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "user_id INTEGER NOT NULL, "
+                + "order_date TEXT NOT NULL, "
+                + "total_price REAL NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS order_items ("
+                + "order_item_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "order_id INTEGER NOT NULL, "
+                + "event_id INTEGER NOT NULL, "
+                + "quantity INTEGER NOT NULL, "
+                + "price_per_ticket REAL NOT NULL, "
+                + "FOREIGN KEY (event_id) REFERENCES events (event_id))"));
+        MIGRATIONS.add(new Migration(2, "Indexes for DAO access paths",
+            // Event identity: serves eventExists, getEventsByTitle and getAllEventTitles
+            "CREATE UNIQUE INDEX IF NOT EXISTS ux_events_title_date_location ON events (title, date, location)",
+            // Covers a user's order headers in order_id order
+            "CREATE INDEX IF NOT EXISTS idx_orders_user_order ON orders (user_id, order_id, order_date, total_price)",
+            // Covers the order_items side of the order graph join
+            "CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items (order_id, event_id, quantity, price_per_ticket)",
+            "CREATE INDEX IF NOT EXISTS idx_users_preferred_name ON users (preferred_name)"));
+        MIGRATIONS.add(new Migration(3, "Order ID sequence",
+            "CREATE TABLE IF NOT EXISTS order_sequence (name TEXT PRIMARY KEY, next_value INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO order_sequence (name, next_value) "
+                + "SELECT 'orders', COALESCE(MAX(order_id), 0) + 1 FROM orders"));
+        MIGRATIONS.add(new Migration(4, "Sales aggregates",
+            // One row per event that has sold tickets
+            "CREATE TABLE IF NOT EXISTS sales_by_event ("
+                + "event_id INTEGER PRIMARY KEY, "
+                + "tickets INTEGER NOT NULL, "
+                + "revenue REAL NOT NULL, "
+                + "orders INTEGER NOT NULL)",
+            // One row per hour with sales, keyed by the first 13 characters of order_date (yyyy-MM-ddTHH)
+            "CREATE TABLE IF NOT EXISTS sales_by_hour ("
+                + "hour TEXT PRIMARY KEY, "
+                + "tickets INTEGER NOT NULL, "
+                + "revenue REAL NOT NULL, "
+                + "orders INTEGER NOT NULL)",
+            "INSERT INTO sales_by_event (event_id, tickets, revenue, orders) "
+                + "SELECT event_id, SUM(quantity), SUM(quantity * price_per_ticket), COUNT(DISTINCT order_id) "
+                + "FROM order_items GROUP BY event_id",
+            "INSERT INTO sales_by_hour (hour, tickets, revenue, orders) "
+                + "SELECT substr(o.order_date, 1, 13), SUM(oi.quantity), SUM(oi.quantity * oi.price_per_ticket), "
+                + "COUNT(DISTINCT o.order_id) "
+                + "FROM orders o JOIN order_items oi ON oi.order_id = o.order_id "
+                + "GROUP BY substr(o.order_date, 1, 13)"));
+        MIGRATIONS.add(new Migration(5, "Order item snapshots",
+            // What the event was called and where and when it ran at the time of the order
+            "ALTER TABLE order_items ADD COLUMN event_title TEXT NOT NULL DEFAULT ''",
+            "ALTER TABLE order_items ADD COLUMN event_day TEXT NOT NULL DEFAULT ''",
+            "ALTER TABLE order_items ADD COLUMN event_venue TEXT NOT NULL DEFAULT ''",
+            // Best available history for existing rows; events deleted earlier get a placeholder
+            "UPDATE order_items SET "
+                + "event_title = COALESCE((SELECT e.title FROM events e WHERE e.event_id = order_items.event_id), "
+                + "'Deleted event ' || event_id), "
+                + "event_day = COALESCE((SELECT e.date FROM events e WHERE e.event_id = order_items.event_id), ''), "
+                + "event_venue = COALESCE((SELECT e.location FROM events e WHERE e.event_id = order_items.event_id), '')",
+            // Order graph reads now need every column of a line, so cover just the lookup
+            "DROP INDEX IF EXISTS idx_order_items_order",
+            "CREATE INDEX idx_order_items_order ON order_items (order_id)"));
+        MIGRATIONS.add(new Migration(6, "Drop duplicate event identity index", conn -> {
+            // Databases whose events table was created with UNIQUE (title, date, location), such as
+            // the shipped one, got a second identical index from v2; keep ux_ only where it is the only one
+            if (hasConstraintIndex(conn, "events", "title", "date", "location")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("DROP INDEX IF EXISTS ux_events_title_date_location");
+                }
+            }
+        }));
+    }
+
+    // Private constructor to prevent instantiation
+    private SchemaMigrator() {}
+
+    /**
+     * Applies every migration that has not been applied yet.
+     * @param dataSource the data source of the database to migrate
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails; that migration is rolled back
+     */
+    public static synchronized int migrate(DataSource dataSource) throws SQLException {
+        int applied = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version ("
+                        + "version INTEGER PRIMARY KEY, description TEXT NOT NULL, applied_at TEXT NOT NULL)");
+            }
+            Set<Integer> done = appliedVersions(conn);
+            for (Migration migration : MIGRATIONS) {
+                if (done.contains(migration.version)) continue;
+                apply(conn, migration);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the highest schema version this build knows about.
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) versions.add(rs.getInt(1));
+        }
+        return versions;
+    }
+
+    /**
+     * Returns whether a table has a UNIQUE constraint on exactly the given columns, in order.
+     */
+    private static boolean hasConstraintIndex(Connection conn, String table, String... columns) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA index_list(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getInt("unique") == 1 && "u".equals(rs.getString("origin"))) indexes.add(rs.getString("name"));
+            }
+        }
+        for (String index : indexes) {
+            List<String> indexed = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA index_info(" + index + ")")) {
+                while (rs.next()) indexed.add(rs.getString("name"));
+            }
+            if (indexed.equals(List.of(columns))) return true;
+        }
+        return false;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            migration.step.apply(conn);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                ps.setInt(1, migration.version);
+                ps.setString(2, migration.description);
+                ps.setString(3, LocalDateTime.now().toString());
+                ps.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Migration " + migration.version + " (" + migration.description + ") failed: "
+                    + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * One versioned schema change.
+     */
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+
+        private Migration(int version, String description, String... statements) {
+            this(version, description, conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : statements) {
+                        stmt.executeUpdate(sql);
+                    }
+                }
+            });
+        }
+
+        private Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    /**
+     * A schema change that needs to look at the database before changing it.
+     */
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+}
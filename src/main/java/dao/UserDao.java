@@ -11,11 +11,20 @@ import model.User;
  */
 public interface UserDao {
 	void setup() throws SQLException;
-	User getUser(String username, String password) throws SQLException;
 
-	// Updated to include preferred name
-	User createUser(String username, String password, String preferredName) throws SQLException;
+	// The user with their stored password hash, or null if there is no such user
+	User getUserByUsername(String username) throws SQLException;
+
+	// Passwords are stored exactly as given; callers pass hashes, never plain text
+	User createUser(String username, String passwordHash, String preferredName) throws SQLException;
 
 	// Change password for a user
-	boolean changePassword(String username, String newPassword) throws SQLException;
+	boolean changePassword(String username, String newPasswordHash) throws SQLException;
+
+	// Replaces a password hash only if it is still the given one, e.g. when upgrading it after a login
+	boolean replacePasswordHash(String username, String oldPasswordHash, String newPasswordHash) throws SQLException;
+
+	// Look up user IDs; -1 if there is no such user
+	int getUserIdByUsername(String username) throws SQLException;
+	int getUserIdByPreferredName(String preferredName) throws SQLException;
 }
@@ -4,71 +4,49 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import javax.sql.DataSource;
 import model.User;
 
 /**
  * Implementation of the UserDao interface for user-related database operations.
- * Handles user creation, authentication, and password management.
+ * Handles user lookup, creation and password storage. Passwords arrive already hashed;
+ * checking them is up to {@link model.AccountService}.
  */
 public class UserDaoImpl implements UserDao {
     private static final String TABLE_NAME = "users";
+    private final DataSource dataSource;
 
-    public UserDaoImpl() {}
+    public UserDaoImpl() {
+        this(Database.getDataSource());
+    }
 
     /**
-     * Creates the users table if it does not exist.
+     * Constructs a UserDaoImpl that borrows connections from the given data source.
+     * @param dataSource the pooled data source
      */
-    @Override
-    public void setup() throws SQLException {
-        try (Connection connection = Database.getConnection();
-             Statement stmt = connection.createStatement()) {
-            String sql = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
-                    + "username VARCHAR(10) NOT NULL,"
-                    + "password VARCHAR(8) NOT NULL,"
-                    + "preferred_name VARCHAR(20) NOT NULL,"
-                    + "role VARCHAR(10) NOT NULL DEFAULT 'user',"
-                    + "PRIMARY KEY (username))";
-            stmt.executeUpdate(sql);
-        }
+    public UserDaoImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     /**
-     * Encrypts a password using a Caesar cipher (shift by 3).
-     * @param password the plain text password
-     * @return the encrypted password
+     * Brings the schema, including the users table, up to date.
      */
-    private String encryptPassword(String password) {
-        StringBuilder sb = new StringBuilder();
-        for (char c : password.toCharArray()) {
-            if (Character.isLetterOrDigit(c)) {
-                if (Character.isLowerCase(c)) {
-                    sb.append((char) ('a' + (c - 'a' + 3) % 26));
-                } else if (Character.isUpperCase(c)) {
-                    sb.append((char) ('A' + (c - 'A' + 3) % 26));
-                } else if (Character.isDigit(c)) {
-                    sb.append((char) ('0' + (c - '0' + 3) % 10));
-                }
-            } else {
-                sb.append(c);
-            }
-        }
-        return sb.toString();
+    @Override
+    public void setup() throws SQLException {
+        SchemaMigrator.migrate(dataSource);
     }
 
     /**
-     * Retrieves a user by username and password.
+     * Retrieves a user by username.
      * @param username the username
-     * @param password the plain text password
-     * @return the User object if found, otherwise null
+     * @return the User object with its stored password hash if found, otherwise null
      */
     @Override
-    public User getUser(String username, String password) throws SQLException {
-        String sql = "SELECT * FROM " + TABLE_NAME + " WHERE username = ? AND password = ?";
-        try (Connection connection = Database.getConnection();
+    public User getUserByUsername(String username) throws SQLException {
+        String sql = "SELECT * FROM " + TABLE_NAME + " WHERE username = ?";
+        try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, username);
-            stmt.setString(2, encryptPassword(password));
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     User user = new User();
@@ -92,37 +70,88 @@ public class UserDaoImpl implements UserDao {
     /**
      * Creates a new user in the database.
      * @param username the username
-     * @param password the plain text password
+     * @param passwordHash the password hash to store
      * @param preferredName the preferred name
      * @return the created User object
      */
     @Override
-    public User createUser(String username, String password, String preferredName) throws SQLException {
+    public User createUser(String username, String passwordHash, String preferredName) throws SQLException {
         String sql = "INSERT INTO " + TABLE_NAME + " (username, password, preferred_name) VALUES (?, ?, ?)";
-        try (Connection connection = Database.getConnection();
+        try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, username);
-            stmt.setString(2, encryptPassword(password));
+            stmt.setString(2, passwordHash);
             stmt.setString(3, preferredName);
             stmt.executeUpdate();
-            return new User(username, encryptPassword(password), preferredName, "user"); // default role
+            return new User(username, passwordHash, preferredName, "user"); // default role
         }
     }
 
     /**
      * Changes the password for a user.
      * @param username the username
-     * @param newPassword the new plain text password
+     * @param newPasswordHash the new password hash to store
      * @return true if the password was changed, false otherwise
      */
     @Override
-    public boolean changePassword(String username, String newPassword) throws SQLException {
+    public boolean changePassword(String username, String newPasswordHash) throws SQLException {
         String sql = "UPDATE " + TABLE_NAME + " SET password = ? WHERE username = ?";
-        try (Connection connection = Database.getConnection();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, newPasswordHash);
+            stmt.setString(2, username);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Replaces a password hash unless it has changed since it was read.
+     * @param username the username
+     * @param oldPasswordHash the hash that must still be stored
+     * @param newPasswordHash the hash to store instead
+     * @return true if the hash was replaced
+     */
+    @Override
+    public boolean replacePasswordHash(String username, String oldPasswordHash, String newPasswordHash)
+            throws SQLException {
+        String sql = "UPDATE " + TABLE_NAME + " SET password = ? WHERE username = ? AND password = ?";
+        try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, encryptPassword(newPassword));
+            stmt.setString(1, newPasswordHash);
             stmt.setString(2, username);
+            stmt.setString(3, oldPasswordHash);
             return stmt.executeUpdate() > 0;
         }
     }
+
+    /**
+     * Looks up a user ID by username.
+     * @param username the username
+     * @return the user ID, or -1 if there is no such user
+     */
+    @Override
+    public int getUserIdByUsername(String username) throws SQLException {
+        return findUserId("username", username);
+    }
+
+    /**
+     * Looks up a user ID by preferred name. Preferred names are not unique; the first match wins.
+     * @param preferredName the preferred name
+     * @return the user ID, or -1 if there is no such user
+     */
+    @Override
+    public int getUserIdByPreferredName(String preferredName) throws SQLException {
+        return findUserId("preferred_name", preferredName);
+    }
+
+    private int findUserId(String column, String value) throws SQLException {
+        String sql = "SELECT user_id FROM " + TABLE_NAME + " WHERE " + column + " = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, value);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("user_id") : -1;
+            }
+        }
+    }
 }
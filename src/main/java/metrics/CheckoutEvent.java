@@ -0,0 +1,36 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one order being placed, from claiming the cart's seats to the
+ * order being saved. Recorded when it takes longer than the threshold, 100 ms by default.
+ */
+@Name("eventapp.Checkout")
+@Label("Checkout")
+@Category({"Event App", "Booking"})
+@Description("An order placed from a cart")
+@Threshold("100 ms")
+public final class CheckoutEvent extends jdk.jfr.Event {
+    @Label("User ID")
+    public int userId;
+
+    @Label("Order ID")
+    @Description("0 if the order was not placed")
+    public int orderId;
+
+    @Label("Event IDs")
+    @Description("The events ordered, comma separated")
+    public String eventIds;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Outcome")
+    @Description("confirmed, sold-out or failed")
+    public String outcome;
+}
@@ -0,0 +1,80 @@
+package metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wraps an interface implementation so every call through the interface is timed.
+ * <p>
+ * Each method gets its own {@link Timer} in the {@code eventapp_dao_seconds} family,
+ * labelled with the interface and method name; overloaded methods are told apart by
+ * their parameter count, e.g. {@code getOrdersForUser/3}. Calls that throw are counted
+ * as errors and the exception is passed on unchanged.
+ * </p>
+ */
+public final class Instrumented {
+    private static final String DAO_SECONDS = "eventapp_dao_seconds";
+
+    // Private constructor to prevent instantiation
+    private Instrumented() {}
+
+    /**
+     * Wraps a DAO so its calls are timed.
+     * @param type the DAO interface; only its methods are visible through the wrapper
+     * @param target the implementation to call
+     * @param registry where the timers are registered
+     * @return a proxy implementing the interface
+     */
+    public static <T> T dao(Class<T> type, T target, MetricsRegistry registry) {
+        Map<String, Integer> overloads = new HashMap<>();
+        for (Method method : type.getMethods()) overloads.merge(method.getName(), 1, Integer::sum);
+        Map<Method, Timer> timers = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            String name = overloads.get(method.getName()) > 1
+                    ? method.getName() + "/" + method.getParameterCount() : method.getName();
+            timers.put(method, registry.timer(DAO_SECONDS, "Time spent in DAO calls.",
+                    "dao", type.getSimpleName(), "method", name));
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                new TimingHandler(target, timers)));
+    }
+
+    /**
+     * Times calls to the interface's methods and passes everything else straight through.
+     */
+    private static final class TimingHandler implements InvocationHandler {
+        private final Object target;
+        private final Map<Method, Timer> timers;
+
+        private TimingHandler(Object target, Map<Method, Timer> timers) {
+            this.target = target;
+            this.timers = timers;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Timer timer = timers.get(method);
+            if (timer == null) {
+                // equals, hashCode and toString from Object
+                if (method.getName().equals("equals")) return proxy == args[0];
+                if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+                return target.toString();
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = method.invoke(target, args);
+                failed = false;
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                timer.recordSince(start, failed);
+            }
+        }
+    }
+}
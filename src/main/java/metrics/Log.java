@@ -0,0 +1,118 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.time.Instant;
+
+/**
+ * One-line structured log records on standard error.
+ * <p>
+ * Each record is a timestamp followed by {@code key=value} pairs (logfmt): the level, a
+ * stable dotted event name, the thread, the caller's fields and, for failures, the
+ * exception class, message and the frame of our code it came from. Values with spaces
+ * or quotes are quoted. Every record is also counted in {@code eventapp_log_events_total}
+ * by level and event, so failures that used to vanish show up in the metrics as well.
+ * </p>
+ */
+public final class Log {
+    private static final PrintStream OUT = System.err;
+
+    // Private constructor to prevent instantiation
+    private Log() {}
+
+    /**
+     * Logs something worth knowing that is not a problem.
+     * @param event a stable dotted name such as {@code orders.recovered}
+     * @param fields alternating field names and values
+     */
+    public static void info(String event, Object... fields) {
+        write("INFO", event, null, fields);
+    }
+
+    /**
+     * Logs a failure the application recovered from, e.g. by showing an empty list.
+     * @param event a stable dotted name
+     * @param error the failure, or null
+     * @param fields alternating field names and values
+     */
+    public static void warn(String event, Throwable error, Object... fields) {
+        write("WARN", event, error, fields);
+    }
+
+    /**
+     * Logs a failure that made an operation fail.
+     * @param event a stable dotted name
+     * @param error the failure, or null
+     * @param fields alternating field names and values
+     */
+    public static void error(String event, Throwable error, Object... fields) {
+        write("ERROR", event, error, fields);
+    }
+
+    private static void write(String level, String event, Throwable error, Object[] fields) {
+        Metrics.registry().counter("eventapp_log_events_total", "Log records written.",
+                "level", level, "event", event).increment();
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(Instant.now()).append(" level=").append(level).append(" event=").append(event);
+        append(sb, "thread", Thread.currentThread().getName());
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            append(sb, String.valueOf(fields[i]), fields[i + 1]);
+        }
+        if (error != null) {
+            append(sb, "error", error.getClass().getName());
+            append(sb, "message", error.getMessage());
+            Throwable root = error;
+            while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+            if (root != error) {
+                append(sb, "cause", root.getClass().getName());
+                append(sb, "cause_message", root.getMessage());
+            }
+            StackTraceElement origin = origin(root);
+            if (origin != null) append(sb, "at", origin);
+        }
+        OUT.println(sb);
+    }
+
+    /**
+     * Returns the innermost frame of our own code, skipping JDK and driver frames, or the
+     * top frame if there is none.
+     */
+    private static StackTraceElement origin(Throwable error) {
+        StackTraceElement[] trace = error.getStackTrace();
+        for (StackTraceElement frame : trace) {
+            String cls = frame.getClassName();
+            if (!cls.startsWith("java.") && !cls.startsWith("javax.") && !cls.startsWith("jdk.")
+                    && !cls.startsWith("sun.") && !cls.startsWith("com.sun.") && !cls.startsWith("org.")
+                    && !cls.startsWith("javafx.") && !cls.startsWith("metrics.")) {
+                return frame;
+            }
+        }
+        return trace.length > 0 ? trace[0] : null;
+    }
+
+    private static void append(StringBuilder sb, String key, Object value) {
+        sb.append(' ').append(key).append('=');
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            sb.append(text);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,30 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one login attempt, including the user lookup and password
+ * check. Recorded when it takes longer than the threshold, 1 s by default, since checking
+ * a password on purpose takes a noticeable fraction of a second.
+ */
+@Name("eventapp.Login")
+@Label("Login")
+@Category({"Event App", "Accounts"})
+@Description("A login attempt")
+@Threshold("1 s")
+public final class LoginEvent extends jdk.jfr.Event {
+    @Label("Username")
+    public String username;
+
+    @Label("Outcome")
+    @Description("success, rejected, throttled or failed")
+    public String outcome;
+
+    @Label("Rehashed")
+    @Description("Whether the stored password hash was upgraded")
+    public boolean rehashed;
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+/**
+ * Holds the process-wide {@link MetricsRegistry}.
+ * <p>
+ * Every layer records into the same registry, so one export shows DAO calls, UI actions
+ * and API requests side by side.
+ * </p>
+ */
+public final class Metrics {
+    // Private constructor to prevent instantiation
+    private Metrics() {}
+
+    // Initialized on first use, like the connection pool
+    private static final class Holder {
+        private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+    }
+
+    /**
+     * Returns the shared registry.
+     *
+     * @return the process-wide metrics registry
+     */
+    public static MetricsRegistry registry() {
+        return Holder.REGISTRY;
+    }
+}
@@ -0,0 +1,74 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a JSON snapshot of a registry to a file at a fixed interval, for hosts without a
+ * Prometheus scraper. Each snapshot replaces the previous one in a single rename, so
+ * readers never see a half-written file. A last snapshot is written on close.
+ */
+public final class MetricsFileWriter implements AutoCloseable {
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts writing snapshots.
+     * @param registry the metrics to write
+     * @param file the file to replace with each snapshot
+     * @param intervalSeconds seconds between snapshots
+     */
+    public MetricsFileWriter(MetricsRegistry registry, Path file, long intervalSeconds) {
+        if (intervalSeconds <= 0) throw new IllegalArgumentException("intervalSeconds must be positive");
+        this.registry = registry;
+        this.file = file.toAbsolutePath();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::writeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes a snapshot now.
+     * @throws IOException if the file cannot be written
+     */
+    public void write() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            registry.writeJson(out);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Stops the schedule and writes a final snapshot.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        writeQuietly();
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            Log.warn("metrics.write_failed", e, "file", file);
+        }
+    }
+}
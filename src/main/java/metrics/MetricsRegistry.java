@@ -0,0 +1,273 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named counters, timers and gauges, exported in the Prometheus text format or as JSON.
+ * <p>
+ * A metric is identified by its name and its labels, given as alternating names and
+ * values. Asking for the same name and labels again returns the same metric, so callers
+ * may either keep the metric or look it up on every use. Label values should come from
+ * a small fixed set, such as method names, never from user input.
+ * </p>
+ * <p>
+ * A timer named {@code x_seconds} is exported as a summary with the 0.5, 0.9, 0.99 and
+ * 0.999 quantiles of recent calls, plus {@code x_max_seconds} and a counter
+ * {@code x_errors_total} of calls that ended with an exception.
+ * </p>
+ */
+public final class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private enum Type { COUNTER, GAUGE, TIMER }
+
+    // Sorted so exports list families and series in a stable order
+    private final ConcurrentSkipListMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the counter with the given name and labels, creating it on first use.
+     * @param name the metric name, ending in {@code _total} by convention
+     * @param help what is counted
+     * @param labels alternating label names and values
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).child(labels, Counter::new);
+    }
+
+    /**
+     * Returns the timer with the given name and labels, creating it on first use.
+     * @param name the metric name, ending in {@code _seconds} by convention
+     * @param help what is timed
+     * @param labels alternating label names and values
+     */
+    public Timer timer(String name, String help, String... labels) {
+        return (Timer) family(name, help, Type.TIMER).child(labels, Timer::new);
+    }
+
+    /**
+     * Registers a value read at export time, such as a pool size. Registering the same
+     * name and labels again replaces the supplier.
+     * @param name the metric name
+     * @param help what is measured
+     * @param value supplies the current value; called on the exporting thread
+     * @param labels alternating label names and values
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).put(labels, value);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, version 0.0.4.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        for (Family family : families.values()) {
+            switch (family.type) {
+                case COUNTER -> {
+                    header(out, family.name, family.help, "counter");
+                    for (Series series : family.series.values()) {
+                        sample(out, family.name, series.labelText, ((Counter) series.metric).get());
+                    }
+                }
+                case GAUGE -> {
+                    header(out, family.name, family.help, "gauge");
+                    for (Series series : family.series.values()) {
+                        sample(out, family.name, series.labelText, ((DoubleSupplier) series.metric).getAsDouble());
+                    }
+                }
+                case TIMER -> writeTimer(out, family);
+            }
+        }
+    }
+
+    private static void writeTimer(Appendable out, Family family) throws IOException {
+        List<Series> all = new ArrayList<>(family.series.values());
+        List<Timer.Snapshot> snapshots = new ArrayList<>(all.size());
+        for (Series series : all) snapshots.add(((Timer) series.metric).snapshot());
+        String base = family.name.endsWith("_seconds")
+                ? family.name.substring(0, family.name.length() - "_seconds".length()) : family.name;
+
+        header(out, family.name, family.help, "summary");
+        for (int i = 0; i < all.size(); i++) {
+            Timer.Snapshot snapshot = snapshots.get(i);
+            String labels = all.get(i).labelText;
+            for (double q : QUANTILES) {
+                String quantile = "quantile=\"" + q + "\"";
+                String withQuantile = labels.isEmpty() ? "{" + quantile + "}"
+                        : labels.substring(0, labels.length() - 1) + "," + quantile + "}";
+                sample(out, family.name, withQuantile, seconds(snapshot.getPercentileNanos(q)));
+            }
+            sample(out, family.name + "_sum", labels, seconds(snapshot.getTotalNanos()));
+            sample(out, family.name + "_count", labels, snapshot.getCount());
+        }
+        header(out, base + "_max_seconds", "Longest single call: " + family.help, "gauge");
+        for (int i = 0; i < all.size(); i++) {
+            sample(out, base + "_max_seconds", all.get(i).labelText, seconds(snapshots.get(i).getMaxNanos()));
+        }
+        header(out, base + "_errors_total", "Calls that failed: " + family.help, "counter");
+        for (int i = 0; i < all.size(); i++) {
+            sample(out, base + "_errors_total", all.get(i).labelText, snapshots.get(i).getErrors());
+        }
+    }
+
+    /**
+     * Writes every metric as one JSON object keyed by metric name. Each entry lists its
+     * series with their labels; timers report milliseconds.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Appendable out) throws IOException {
+        out.append('{');
+        boolean firstFamily = true;
+        for (Family family : families.values()) {
+            if (!firstFamily) out.append(',');
+            firstFamily = false;
+            out.append("\n  ");
+            jsonString(out, family.name);
+            out.append(": [");
+            boolean firstSeries = true;
+            for (Series series : family.series.values()) {
+                if (!firstSeries) out.append(',');
+                firstSeries = false;
+                out.append("\n    {\"labels\": {");
+                for (int i = 0; i < series.labels.length; i += 2) {
+                    if (i > 0) out.append(", ");
+                    jsonString(out, series.labels[i]);
+                    out.append(": ");
+                    jsonString(out, series.labels[i + 1]);
+                }
+                out.append('}');
+                switch (family.type) {
+                    case COUNTER -> out.append(", \"value\": ").append(Long.toString(((Counter) series.metric).get()));
+                    case GAUGE -> {
+                        double value = ((DoubleSupplier) series.metric).getAsDouble();
+                        // JSON has no NaN or infinity
+                        out.append(", \"value\": ").append(Double.isFinite(value) ? number(value) : "null");
+                    }
+                    case TIMER -> {
+                        Timer.Snapshot s = ((Timer) series.metric).snapshot();
+                        out.append(", \"count\": ").append(Long.toString(s.getCount()))
+                           .append(", \"errors\": ").append(Long.toString(s.getErrors()))
+                           .append(", \"totalMs\": ").append(number(s.getTotalNanos() / 1e6))
+                           .append(", \"p50Ms\": ").append(number(s.getPercentileNanos(0.5) / 1e6))
+                           .append(", \"p90Ms\": ").append(number(s.getPercentileNanos(0.9) / 1e6))
+                           .append(", \"p99Ms\": ").append(number(s.getPercentileNanos(0.99) / 1e6))
+                           .append(", \"p999Ms\": ").append(number(s.getPercentileNanos(0.999) / 1e6))
+                           .append(", \"maxMs\": ").append(number(s.getMaxNanos() / 1e6));
+                    }
+                }
+                out.append('}');
+            }
+            out.append(']');
+        }
+        out.append("\n}\n");
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static void header(Appendable out, String name, String help, String type) throws IOException {
+        out.append("# HELP ").append(name).append(' ')
+           .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(Appendable out, String name, String labels, double value) throws IOException {
+        out.append(name).append(labels).append(' ').append(number(value)).append('\n');
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static void jsonString(Appendable out, String s) throws IOException {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * All series of one metric name.
+     */
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentSkipListMap<String, Series> series = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private Object child(String[] labels, Supplier<Object> create) {
+            String labelText = labelText(labels);
+            Series existing = series.get(labelText);
+            if (existing != null) return existing.metric;
+            return series.computeIfAbsent(labelText, text -> new Series(labels.clone(), text, create.get())).metric;
+        }
+
+        private void put(String[] labels, Object metric) {
+            String labelText = labelText(labels);
+            series.put(labelText, new Series(labels.clone(), labelText, metric));
+        }
+
+        private static String labelText(String[] labels) {
+            if (labels.length % 2 != 0) throw new IllegalArgumentException("Labels must be name/value pairs");
+            if (labels.length == 0) return "";
+            StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) sb.append(',');
+                sb.append(labels[i]).append("=\"")
+                  .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                  .append('"');
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    /**
+     * One metric of a family, with its labels.
+     */
+    private static final class Series {
+        private final String[] labels;
+        private final String labelText;
+        private final Object metric;
+
+        private Series(String[] labels, String labelText, Object metric) {
+            this.labels = labels;
+            this.labelText = labelText;
+            this.metric = metric;
+        }
+    }
+}
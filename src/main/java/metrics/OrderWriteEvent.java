@@ -0,0 +1,39 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one transaction writing orders and taking their seats.
+ * Recorded when it takes longer than the threshold, 50 ms by default.
+ */
+@Name("eventapp.OrderWrite")
+@Label("Order Write")
+@Category({"Event App", "Database"})
+@Description("A transaction writing orders")
+@Threshold("50 ms")
+public final class OrderWriteEvent extends jdk.jfr.Event {
+    @Label("Order ID")
+    @Description("The first order written")
+    public int orderId;
+
+    @Label("Orders")
+    public int orders;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Event IDs")
+    @Description("The events whose seats were taken, comma separated")
+    public String eventIds;
+
+    @Label("Confirmed")
+    @Description("Whether the orders were already confirmed by the order journal")
+    public boolean confirmed;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,37 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one SQL statement execution. A query lasts until its result
+ * set is read to the end or closed, as SQLite does most of its work while rows are
+ * fetched. Recorded when it takes longer than the threshold, 10 ms by default.
+ */
+@Name("eventapp.Query")
+@Label("SQL Statement")
+@Category({"Event App", "Database"})
+@Description("A SQL statement executed through the connection pool")
+@Threshold("10 ms")
+public final class QueryEvent extends jdk.jfr.Event {
+    @Label("SQL")
+    public String sql;
+
+    @Label("Operation")
+    @Description("The JDBC method, e.g. executeQuery or executeBatch")
+    public String operation;
+
+    @Label("Rows")
+    @Description("Rows read by a query, or rows changed by an update or batch; -1 if unknown")
+    public long rows;
+
+    @Label("Batch Size")
+    @Description("Statements in a batch, 0 if not a batch")
+    public int batchSize;
+
+    @Label("Failed")
+    public boolean failed;
+}
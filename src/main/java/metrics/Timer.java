@@ -0,0 +1,168 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long an operation takes and how often it fails.
+ * <p>
+ * Durations go into a log-linear histogram: like an HDR histogram, each power of two of
+ * nanoseconds is split into {@value #SUB_BUCKETS} equal buckets, so percentiles are
+ * reported within about 3% from 1 ns up to about 18 minutes in a fixed amount of memory.
+ * Recording is a few atomic increments and never allocates, so timers can sit on every
+ * DAO call. Percentiles cover the last one to two minutes, using two histograms that
+ * take turns; counts, totals and the maximum cover the whole run.
+ * </p>
+ */
+public final class Timer {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // 2^40 ns is about 18 minutes; longer calls count in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+    private static final long WINDOW_NANOS = 60_000_000_000L;
+
+    private final AtomicLongArray[] windows = {new AtomicLongArray(BUCKETS), new AtomicLongArray(BUCKETS)};
+    private volatile int current;
+    private volatile long rotateAt = System.nanoTime() + WINDOW_NANOS;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a call that started at the given {@link System#nanoTime()} and has just ended.
+     * @param startNanos when the call started
+     * @param failed whether it ended with an exception
+     */
+    public void recordSince(long startNanos, boolean failed) {
+        long now = System.nanoTime();
+        record(now - startNanos, failed, now);
+    }
+
+    /**
+     * Records one call.
+     * @param nanos how long it took
+     * @param failed whether it ended with an exception
+     */
+    public void record(long nanos, boolean failed) {
+        record(nanos, failed, System.nanoTime());
+    }
+
+    private void record(long nanos, boolean failed, long now) {
+        if (now - rotateAt >= 0) rotate(now);
+        if (nanos < 0) nanos = 0;
+        windows[current].incrementAndGet(bucket(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        if (failed) errors.increment();
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Copies the current figures. Calls recorded while the copy is taken may be only partly
+     * included, so the figures can disagree by a call or two.
+     */
+    public Snapshot snapshot() {
+        rotate(System.nanoTime());
+        long[] merged = new long[BUCKETS];
+        long recent = 0;
+        for (AtomicLongArray window : windows) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = window.get(i);
+                merged[i] += n;
+                recent += n;
+            }
+        }
+        return new Snapshot(merged, recent, count.sum(), errors.sum(), totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * Starts a new window once the current one is a minute old, clearing the window before it.
+     */
+    private void rotate(long now) {
+        if (now - rotateAt < 0) return;
+        synchronized (this) {
+            if (now - rotateAt < 0) return;
+            int next = 1 - current;
+            AtomicLongArray window = windows[next];
+            for (int i = 0; i < BUCKETS; i++) window.set(i, 0);
+            current = next;
+            // After a long quiet spell both windows are stale; drop the other one too
+            if (now - rotateAt >= WINDOW_NANOS) {
+                AtomicLongArray stale = windows[1 - next];
+                for (int i = 0; i < BUCKETS; i++) stale.set(i, 0);
+            }
+            rotateAt = now + WINDOW_NANOS;
+        }
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the middle of a bucket's range.
+     */
+    private static long value(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift) + (1L << shift) / 2;
+    }
+
+    /**
+     * A copy of a timer's figures.
+     */
+    public static final class Snapshot {
+        private final long[] recentCounts;
+        private final long recentCount;
+        private final long count;
+        private final long errors;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] recentCounts, long recentCount, long count, long errors, long totalNanos, long maxNanos) {
+            this.recentCounts = recentCounts;
+            this.recentCount = recentCount;
+            this.count = count;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /** Calls recorded since the start. */
+        public long getCount() { return count; }
+        /** Calls since the start that ended with an exception. */
+        public long getErrors() { return errors; }
+        /** Time spent in all calls since the start. */
+        public long getTotalNanos() { return totalNanos; }
+        /** The longest call since the start. */
+        public long getMaxNanos() { return maxNanos; }
+        /** Calls the percentiles are computed from. */
+        public long getRecentCount() { return recentCount; }
+
+        /**
+         * @param quantile between 0 and 1, e.g. 0.99
+         * @return the duration within which that fraction of recent calls finished, in
+         *         nanoseconds; 0 if there were none
+         */
+        public long getPercentileNanos(double quantile) {
+            if (recentCount == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * recentCount));
+            long seen = 0;
+            for (int i = 0; i < recentCounts.length; i++) {
+                seen += recentCounts[i];
+                if (seen >= rank) return Math.min(value(i), maxNanos);
+            }
+            return maxNanos;
+        }
+    }
+}
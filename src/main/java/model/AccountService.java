@@ -0,0 +1,127 @@
+package model;
+
+import dao.UserDao;
+import java.sql.SQLException;
+import metrics.LoginEvent;
+
+/**
+ * Account operations: login, sign-up and password changes.
+ * <p>
+ * Passwords are stored as salted PBKDF2 hashes. Hashing runs on the
+ * {@link CredentialVerifier}'s bounded pool, so a burst of logins cannot take every
+ * core from checkouts. Accounts still holding a legacy Caesar-shifted password are
+ * upgraded to a hash the first time they log in. Usernames that fail too often within a
+ * sliding window are refused for a while without their password being checked.
+ * Slow logins are recorded as {@link LoginEvent}s for the flight recorder.
+ * </p>
+ */
+public class AccountService {
+    private final UserDao userDao;
+    private final CredentialVerifier credentials;
+    private final LoginThrottle throttle;
+
+    public AccountService(UserDao userDao, CredentialVerifier credentials, LoginThrottle throttle) {
+        this.userDao = userDao;
+        this.credentials = credentials;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Authenticates a user, upgrading a legacy or weaker stored password on success.
+     * @param username the username
+     * @param password the plain text password
+     * @return the user, or null if the credentials do not match
+     * @throws IllegalArgumentException if either field is empty
+     * @throws LoginThrottledException if the username failed too often recently or too
+     *                                 many logins are in progress
+     * @throws SQLException if a database error occurs
+     * @throws InterruptedException if interrupted while waiting for the password check
+     */
+    public User login(String username, String password) throws SQLException, InterruptedException {
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        String outcome = "failed";
+        try {
+            if (isBlank(username) || isBlank(password)) {
+                outcome = "rejected";
+                throw new IllegalArgumentException("Empty username or password");
+            }
+            long retryAfter = throttle.getRetryAfterMillis(username, System.currentTimeMillis());
+            if (retryAfter > 0) {
+                throw new LoginThrottledException("Too many failed attempts. Try again in "
+                        + (retryAfter + 999) / 1000 + " seconds.", retryAfter);
+            }
+            User user = userDao.getUserByUsername(username);
+            String stored = user != null ? user.getPassword() : null;
+            if (!credentials.verify(username, password, stored)) {
+                throttle.recordFailure(username, System.currentTimeMillis());
+                outcome = "rejected";
+                return null;
+            }
+            throttle.recordSuccess(username);
+            outcome = "success";
+            if (credentials.needsRehash(stored)) {
+                String upgraded = credentials.hash(password);
+                // Keep a password changed meanwhile rather than overwrite it
+                if (userDao.replacePasswordHash(username, stored, upgraded)) {
+                    user.setPassword(upgraded);
+                    credentials.remember(username, password, upgraded);
+                    event.rehashed = true;
+                }
+            }
+            return user;
+        } catch (LoginThrottledException e) {
+            outcome = "throttled";
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.username = username;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Creates a regular user account.
+     * @return the created user
+     * @throws IllegalArgumentException if any field is empty or the username is taken
+     * @throws SQLException if the user cannot be created
+     * @throws InterruptedException if interrupted while waiting for the password to be hashed
+     */
+    public User signup(String username, String password, String preferredName) throws SQLException, InterruptedException {
+        if (isBlank(username) || isBlank(password) || isBlank(preferredName)) {
+            throw new IllegalArgumentException("All fields are required");
+        }
+        try {
+            return userDao.createUser(username, credentials.hash(password), preferredName);
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed")) {
+                throw new IllegalArgumentException("Username " + username + " is already taken");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Changes a user's password.
+     * @param user the user
+     * @param newPassword the new plain text password; surrounding whitespace is ignored
+     * @return true if the password was changed
+     * @throws IllegalArgumentException if the new password is empty
+     * @throws SQLException if a database error occurs
+     * @throws InterruptedException if interrupted while waiting for the password to be hashed
+     */
+    public boolean changePassword(User user, String newPassword) throws SQLException, InterruptedException {
+        if (isBlank(newPassword)) throw new IllegalArgumentException("Password cannot be empty.");
+        String hash = credentials.hash(newPassword.trim());
+        credentials.forget(user.getUsername());
+        if (!userDao.changePassword(user.getUsername(), hash)) return false;
+        user.setPassword(hash);
+        return true;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,281 @@
+package model;
+
+import dao.EventDao;
+import dao.OrderDao;
+import dao.UserDao;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import metrics.CheckoutEvent;
+
+/**
+ * The booking engine: cart changes, checkout validation, pricing and order placement.
+ * <p>
+ * The service keeps no per-user state; every call names the user and cart it acts on,
+ * so one instance can serve the JavaFX client, a load generator or many threads at once.
+ * Validation failures are reported as IllegalArgumentException with a message fit for display.
+ * Slow order placements are recorded as {@link CheckoutEvent}s for the flight recorder.
+ * </p>
+ */
+public class BookingService {
+    private final EventDao eventDao;
+    private final OrderDao orderDao;
+    private final UserDao userDao;
+    private final SeatInventory seatInventory;
+    private final SeatHoldManager seatHolds;
+    private final Clock clock;
+
+    /**
+     * Constructs the booking engine.
+     * @param eventDao reads the current state of carted events
+     * @param orderDao persists orders
+     * @param userDao resolves user IDs for users that were not loaded from the database
+     * @param seatInventory the in-memory seat counters
+     * @param seatHolds the hold manager that backs cart lines
+     * @param clock the clock used to decide which events are in the past
+     */
+    public BookingService(EventDao eventDao, OrderDao orderDao, UserDao userDao, SeatInventory seatInventory,
+                          SeatHoldManager seatHolds, Clock clock) {
+        this.eventDao = eventDao;
+        this.orderDao = orderDao;
+        this.userDao = userDao;
+        this.seatInventory = seatInventory;
+        this.seatHolds = seatHolds;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates an empty cart with its own seat holds.
+     */
+    public Cart newCart() {
+        return new Cart(seatHolds, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Returns whether an event's day of this week has already passed.
+     */
+    public boolean isPast(Event event) {
+        return Days.indexOf(event.getDay()) < Days.indexOf(Days.today(clock));
+    }
+
+    /**
+     * Returns whether an event is still in the catalog and enabled. The event passed in may
+     * be a copy taken before an admin disabled or deleted it, so the catalog is asked too.
+     */
+    public boolean isBookable(Event event) {
+        if (!event.isEnabled()) return false;
+        Event current = eventDao.getEventById(event.getEventId());
+        return current != null && current.isEnabled();
+    }
+
+    /**
+     * Returns the number of seats that can still be booked for an event.
+     */
+    public int getAvailableSeats(Event event) {
+        return seatInventory.getAvailable(event.getEventId());
+    }
+
+    /**
+     * Returns the number of seats of an event currently held in carts or pending checkout.
+     */
+    public int getHeldSeats(Event event) {
+        return seatInventory.getReserved(event.getEventId());
+    }
+
+    /**
+     * Adds seats for an event to a cart, holding them.
+     * @throws IllegalArgumentException if the event is disabled or in the past or the
+     *         quantity is not positive
+     * @throws SoldOutException if not enough seats are free
+     */
+    public void addToCart(Cart cart, Event event, int quantity) {
+        if (!isBookable(event)) throw new IllegalArgumentException("This event is not available for booking.");
+        if (isPast(event)) throw new IllegalArgumentException("Cannot add past events to cart.");
+        if (quantity <= 0) throw new IllegalArgumentException("Enter a valid quantity.");
+        if (!cart.addToCart(event, quantity)) {
+            throw new SoldOutException("Not enough seats available. Only " + getAvailableSeats(event) + " left.");
+        }
+    }
+
+    /**
+     * Sets the quantity of an event in a cart; zero removes the line.
+     * @throws IllegalArgumentException if the quantity is negative
+     * @throws SoldOutException if not enough seats are free
+     */
+    public void updateQuantity(Cart cart, Event event, int quantity) {
+        if (quantity < 0) throw new IllegalArgumentException("Enter a valid quantity.");
+        if (!cart.updateQuantity(event, quantity)) {
+            int available = getAvailableSeats(event) + cart.getHeldQuantity(event);
+            throw new SoldOutException("Not enough seats available. Only " + available + " left.");
+        }
+    }
+
+    /**
+     * Checks a cart before checkout: every line must still have its seats, be enabled and be
+     * bookable today.
+     * @return one line per problem; empty if the cart can be checked out
+     */
+    public List<String> validateCheckout(Cart cart) {
+        List<String> warnings = new ArrayList<>();
+        List<CartItem> lines = cart.getLines();
+        for (CartItem line : lines) {
+            // Held seats are guaranteed; only seats whose hold expired need to be free again
+            Event event = line.getEvent();
+            int held = cart.getHeldQuantity(event);
+            int available = getAvailableSeats(event);
+            if (line.getQuantity() - held > available) {
+                warnings.add(event.getTitle() + " (" + event.getDay() + ") - only " + (available + held) + " left.");
+            }
+        }
+        for (CartItem line : lines) {
+            Event event = line.getEvent();
+            if (!isBookable(event)) {
+                warnings.add(event.getTitle() + " (" + event.getDay() + ") - no longer available.");
+            }
+            if (isPast(event)) {
+                warnings.add(event.getTitle() + " (" + event.getDay() + ") - cannot book past events.");
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * Returns the price of everything in a cart.
+     */
+    public double computeTotal(Cart cart) {
+        return cart.getTotal();
+    }
+
+    /**
+     * Builds an unsaved order for a cart's contents.
+     * @param user the customer, or null
+     * @param cart the cart
+     * @return an order without an order number
+     */
+    public Order buildOrder(User user, Cart cart) {
+        List<OrderItem> orderItems = new ArrayList<>();
+        double total;
+        // Lines and total are read under one lock so they agree with each other
+        synchronized (cart) {
+            for (CartItem line : cart.getLines()) orderItems.add(new OrderItem(line.getEvent(), line.getQuantity()));
+            total = cart.getTotal();
+        }
+        String customerName = user != null ? user.getPreferredName() : "";
+        return new Order(null, LocalDateTime.now(clock), orderItems, total, customerName);
+    }
+
+    /**
+     * Validates, places and pays for a cart in one step, then empties the cart.
+     * @return the order number
+     * @throws IllegalArgumentException if the cart is empty or fails validation
+     * @throws Exception if the seats are no longer available or the order cannot be saved
+     */
+    public String checkout(User user, Cart cart) throws Exception {
+        if (cart.isEmpty()) throw new IllegalArgumentException("Cart is empty. Cannot checkout.");
+        List<String> warnings = validateCheckout(cart);
+        if (!warnings.isEmpty()) {
+            throw new IllegalArgumentException("Checkout failed. Issues:\n" + String.join("\n", warnings));
+        }
+        String orderNumber = placeOrder(user, cart, buildOrder(user, cart));
+        cart.clear();
+        return orderNumber;
+    }
+
+    /**
+     * Saves an order built from a cart. The cart's seat holds are converted into a
+     * reservation for every item first, so the order either books all of its events or
+     * none of them. The cart itself is left as it is.
+     * @param user the customer
+     * @param cart the cart the order was built from
+     * @param order the order to add; its order number is set once it has been saved
+     * @return the persisted order number
+     * @throws SoldOutException if the seats are no longer available
+     * @throws Exception if the order cannot be saved
+     */
+    public String placeOrder(User user, Cart cart, Order order) throws Exception {
+        CheckoutEvent event = new CheckoutEvent();
+        event.begin();
+        String outcome = "failed";
+        Map<Integer, Integer> quantities = new HashMap<>();
+        try {
+            int userId = resolveUserId(user, order);
+            if (userId <= 0) throw new SQLException("Could not determine user_id for order");
+            event.userId = userId;
+            for (OrderItem item : order.getItems()) {
+                quantities.merge(item.getEventId(), item.getQuantity(), Integer::sum);
+            }
+            // Turn the cart's holds into a reservation for exactly the ordered seats
+            if (!seatHolds.claim(cart.getOwnerId(), quantities)) {
+                cart.restoreHolds();
+                outcome = "sold-out";
+                throw new SoldOutException("Not enough seats available.");
+            }
+            int orderId;
+            try {
+                orderId = orderDao.addOrder(order, userId).getOrderId();
+                seatInventory.commitAll(quantities);
+            } catch (Exception e) {
+                seatInventory.releaseAll(quantities);
+                // The database disagreed with the in-memory counters; resync them
+                quantities.keySet().forEach(seatInventory::reconcile);
+                cart.restoreHolds();
+                if (e instanceof SoldOutException) outcome = "sold-out";
+                throw e;
+            }
+            event.orderId = orderId;
+            outcome = "confirmed";
+            String orderNumber = formatOrderNumber(orderId);
+            order.setOrderNumber(orderNumber);
+            return orderNumber;
+        } finally {
+            if (event.shouldCommit()) {
+                event.eventIds = quantities.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+                event.seats = quantities.values().stream().mapToInt(Integer::intValue).sum();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Returns one page of a user's orders, newest first.
+     * @param user the customer
+     * @param afterId the order ID the previous page ended with, or 0 for the first page
+     * @param limit the page size
+     * @return up to limit orders, or none for an unknown user
+     * @throws Exception if a database error occurs
+     */
+    public List<Order> getOrderHistory(User user, int afterId, int limit) throws Exception {
+        int userId = resolveUserId(user);
+        if (userId <= 0) return new ArrayList<>();
+        return orderDao.getOrdersForUser(userId, afterId, limit);
+    }
+
+    private int resolveUserId(User user, Order order) throws SQLException {
+        int userId = resolveUserId(user);
+        // Not recommended, but kept as a fallback for orders without a user
+        if (userId <= 0 && (user == null || user.getUsername() == null) && order.getCustomerName() != null) {
+            return userDao.getUserIdByPreferredName(order.getCustomerName());
+        }
+        return userId;
+    }
+
+    private int resolveUserId(User user) throws SQLException {
+        if (user == null) return -1;
+        if (user.getUserId() > 0) return user.getUserId();
+        return user.getUsername() != null ? userDao.getUserIdByUsername(user.getUsername()) : -1;
+    }
+
+    /**
+     * Formats an order ID for display, padded to at least four digits.
+     */
+    private static String formatOrderNumber(int orderId) {
+        return String.format("%04d", orderId);
+    }
+}
@@ -1,32 +1,252 @@
 package model;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * A user's cart. Every line is backed by a timed seat hold, so the seats in the cart
+ * count against availability until checkout or until the hold expires.
+ * <p>
+ * Lines are keyed by event ID in an open-addressing table of primitive ints, so the
+ * same event loaded twice is still one line and quantities are never boxed. The total
+ * price and seat count are kept up to date on every change. All methods synchronize on
+ * the cart, so it may be changed from background tasks and concurrent requests; callers
+ * that need several calls to see the same contents synchronize on the cart themselves.
+ * </p>
+ */
 public class Cart {
-    private Map<Event, Integer> items = new HashMap<>();
+    private static final int EMPTY = 0; // Event IDs start at 1
+    private static final int INITIAL_CAPACITY = 8;
 
-    public void addToCart(Event event, int quantity) {
-        items.put(event, items.getOrDefault(event, 0) + quantity);
+    private final SeatHoldManager holds;
+    private final String ownerId;
+    // Parallel arrays indexed by slot; keys[slot] == EMPTY marks a free slot
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private Event[] events = new Event[INITIAL_CAPACITY];
+    private int lineCount;
+    private int itemCount;
+    private long totalCents;
+
+    /**
+     * Constructs an empty cart.
+     * @param holds the hold manager that reserves seats for cart lines
+     * @param ownerId a unique identifier for this cart's holds
+     */
+    public Cart(SeatHoldManager holds, String ownerId) {
+        this.holds = holds;
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Adds seats for an event, holding them.
+     * @return true if added, false if not enough seats are free
+     */
+    public synchronized boolean addToCart(Event event, int quantity) {
+        int newQuantity = getQuantity(event.getEventId()) + quantity;
+        if (!holds.hold(ownerId, event.getEventId(), newQuantity)) return false;
+        put(event, newQuantity);
+        holds.renew(ownerId);
+        return true;
     }
 
-    public void updateQuantity(Event event, int quantity) {
+    /**
+     * Sets the quantity for an event, adjusting its hold. A quantity of zero removes the line.
+     * @return true if updated, false if not enough seats are free
+     */
+    public synchronized boolean updateQuantity(Event event, int quantity) {
         if (quantity <= 0) {
-            items.remove(event);
-        } else {
-            items.put(event, quantity);
+            removeFromCart(event);
+            return true;
+        }
+        if (!holds.hold(ownerId, event.getEventId(), quantity)) return false;
+        put(event, quantity);
+        holds.renew(ownerId);
+        return true;
+    }
+
+    public synchronized void removeFromCart(Event event) {
+        remove(event.getEventId());
+        holds.release(ownerId, event.getEventId());
+        holds.renew(ownerId);
+    }
+
+    public synchronized boolean isEmpty() {
+        return lineCount == 0;
+    }
+
+    public synchronized boolean contains(Event event) {
+        return event != null && slotOf(event.getEventId()) >= 0;
+    }
+
+    /**
+     * Returns the quantity of an event in the cart, or 0 if it has no line.
+     */
+    public synchronized int getQuantity(int eventId) {
+        int slot = slotOf(eventId);
+        return slot >= 0 ? quantities[slot] : 0;
+    }
+
+    /**
+     * Returns the number of distinct events in the cart.
+     */
+    public synchronized int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the number of seats in the cart across all lines.
+     */
+    public synchronized int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Returns the price of everything in the cart, computed from each line's event price
+     * at the time it was added.
+     */
+    public synchronized double getTotal() {
+        return totalCents / 100.0;
+    }
+
+    /**
+     * Returns a snapshot of the cart lines without touching the holds.
+     */
+    public synchronized List<CartItem> getLines() {
+        List<CartItem> lines = new ArrayList<>(lineCount);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) lines.add(new CartItem(events[slot], quantities[slot]));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the cart lines together with how many of their seats are still held.
+     * Viewing the cart counts as activity and renews the holds.
+     */
+    public synchronized List<CartItem> getCartItems() {
+        holds.renew(ownerId);
+        List<CartItem> lines = new ArrayList<>(lineCount);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                lines.add(new CartItem(events[slot], quantities[slot], holds.getHeld(ownerId, keys[slot])));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Returns how many seats of an event's line are still held.
+     */
+    public int getHeldQuantity(Event event) {
+        return holds.getHeld(ownerId, event.getEventId());
+    }
+
+    /**
+     * Re-creates holds for lines whose hold lapsed, as far as seats allow.
+     */
+    public synchronized void restoreHolds() {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) holds.hold(ownerId, keys[slot], quantities[slot]);
+        }
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(events, null);
+        lineCount = 0;
+        itemCount = 0;
+        totalCents = 0;
+        holds.releaseAll(ownerId);
+    }
+
+    /**
+     * Sets a line's quantity, keeping the running totals in step. The first Event object
+     * added for an ID stays the line's event, so its price is the one charged.
+     */
+    private void put(Event event, int quantity) {
+        int eventId = event.getEventId();
+        int slot = slotOf(eventId);
+        if (slot < 0) {
+            if ((lineCount + 1) * 2 > keys.length) resize(keys.length * 2);
+            slot = freeSlot(eventId);
+            keys[slot] = eventId;
+            events[slot] = event;
+            quantities[slot] = 0;
+            lineCount++;
+        }
+        int delta = quantity - quantities[slot];
+        quantities[slot] = quantity;
+        itemCount += delta;
+        totalCents += cents(events[slot]) * delta;
+    }
+
+    private void remove(int eventId) {
+        int slot = slotOf(eventId);
+        if (slot < 0) return;
+        itemCount -= quantities[slot];
+        totalCents -= cents(events[slot]) * quantities[slot];
+        lineCount--;
+        // Shift later entries of the probe sequence back so lookups never stop early
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                quantities[gap] = quantities[next];
+                events[gap] = events[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
         }
+        keys[gap] = EMPTY;
+        events[gap] = null;
     }
 
-    public void removeFromCart(Event event) {
-        items.remove(event);
+    private int slotOf(int eventId) {
+        int mask = keys.length - 1;
+        for (int slot = hash(eventId) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == eventId) return slot;
+        }
+        return -1;
+    }
+
+    private int freeSlot(int eventId) {
+        int mask = keys.length - 1;
+        int slot = hash(eventId) & mask;
+        while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldQuantities = quantities;
+        Event[] oldEvents = events;
+        keys = new int[capacity];
+        quantities = new int[capacity];
+        events = new Event[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = freeSlot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            quantities[slot] = oldQuantities[i];
+            events[slot] = oldEvents[i];
+        }
     }
 
-    public Map<Event, Integer> getItems() {
-        return items;
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
     }
 
-    public void clear() {
-        items.clear();
+    private static long cents(Event event) {
+        return Math.round(event.getPrice() * 100);
     }
 }
@@ -3,10 +3,16 @@ package model;
 public class CartItem {
     private Event event;
     private int quantity;
+    private int heldQuantity;
 
     public CartItem(Event event, int quantity) {
+        this(event, quantity, quantity);
+    }
+
+    public CartItem(Event event, int quantity, int heldQuantity) {
         this.event = event;
         this.quantity = quantity;
+        this.heldQuantity = heldQuantity;
     }
 
     public Event getEvent() {
@@ -20,4 +26,15 @@ public class CartItem {
     public void setQuantity(int quantity) {
         this.quantity = quantity;
     }
+
+    /**
+     * Returns how many of this line's seats are still held for the cart.
+     */
+    public int getHeldQuantity() {
+        return heldQuantity;
+    }
+
+    public boolean isFullyHeld() {
+        return heldQuantity >= quantity;
+    }
 }
@@ -0,0 +1,138 @@
+package model;
+
+import dao.EventDao;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Browsing and administration of the event catalog.
+ * Validation failures are reported as IllegalArgumentException with a message fit for display.
+ */
+public class CatalogService {
+    private final EventDao eventDao;
+    private final SeatInventory seatInventory;
+
+    private final EventImporter importer;
+
+    public CatalogService(EventDao eventDao, SeatInventory seatInventory) {
+        this.eventDao = eventDao;
+        this.seatInventory = seatInventory;
+        this.importer = new EventImporter(eventDao);
+    }
+
+    public List<Event> getAllEvents(boolean includeDisabled) {
+        List<Event> all = eventDao.getAllEvents();
+        if (includeDisabled) return all;
+        List<Event> enabled = new ArrayList<>();
+        for (Event e : all) if (e.isEnabled()) enabled.add(e);
+        return enabled;
+    }
+
+    /**
+     * Returns one page of events in event ID order.
+     * @param afterId the event ID the previous page ended with, or 0 for the first page
+     * @param limit the page size
+     * @param filter the criteria events must match
+     * @return up to limit events
+     */
+    public List<Event> getEventsPage(int afterId, int limit, EventFilter filter) {
+        return eventDao.getEvents(afterId, limit, filter);
+    }
+
+    /**
+     * Searches the catalog by title and venue words, with filters and facet counts.
+     * @param query the search criteria
+     * @return the first matches and counts over all of them
+     */
+    public EventSearchResult search(EventQuery query) {
+        return eventDao.search(query);
+    }
+
+    /**
+     * Imports events in bulk from an events.dat-style or CSV file.
+     * @param file the file; .csv files are comma-separated, others semicolon-separated
+     * @param progress receives progress updates on the calling thread
+     * @return counts of imported, duplicate and invalid rows
+     * @throws Exception if the file cannot be read or the import is rolled back
+     * @see EventImporter
+     */
+    public EventImporter.Result importEvents(Path file, EventImporter.Progress progress) throws Exception {
+        return importer.importFile(file, progress);
+    }
+
+    public List<String> getAllEventTitles() {
+        return eventDao.getAllEventTitles();
+    }
+
+    public List<Event> getEventsByTitle(String title) {
+        return eventDao.getEventsByTitle(title);
+    }
+
+    public boolean eventExists(Event event) throws Exception {
+        return eventDao.eventExists(event);
+    }
+
+    /**
+     * Validates and adds a new event.
+     * @param event the event; its ID is set once saved
+     * @throws IllegalArgumentException if the event is invalid or duplicates an existing one
+     * @throws Exception if a database error occurs
+     */
+    public void addEvent(Event event) throws Exception {
+        validate(event);
+        eventDao.addEvent(event);
+    }
+
+    /**
+     * Validates and saves changes to an event, then resyncs its seat counter.
+     * @param event the event with its new values
+     * @throws IllegalArgumentException if the event is invalid or duplicates another one
+     * @throws Exception if a database error occurs
+     */
+    public void updateEvent(Event event) throws Exception {
+        validate(event);
+        eventDao.updateEvent(event);
+        seatInventory.reconcile(event.getEventId());
+    }
+
+    public void deleteEvent(int eventId) throws Exception {
+        eventDao.deleteEvent(eventId);
+        seatInventory.remove(eventId);
+    }
+
+    public void setEventEnabled(int eventId, boolean enabled) throws Exception {
+        eventDao.setEventEnabled(eventId, enabled);
+    }
+
+    /**
+     * Checks the day, the seat numbers and that no other event has the same title, day
+     * and venue (ignoring case).
+     */
+    private void validate(Event event) throws Exception {
+        checkFields(event);
+        if (eventDao.similarEventExists(event)) {
+            throw new IllegalArgumentException("An event with the same title, day, and venue already exists.");
+        }
+    }
+
+    /**
+     * Checks an event's own fields, without looking for duplicates.
+     * @throws IllegalArgumentException describing the first invalid field
+     */
+    static void checkFields(Event event) {
+        if (isBlank(event.getTitle()) || isBlank(event.getVenue())) {
+            throw new IllegalArgumentException("Title and venue are required.");
+        }
+        if (!Days.isValid(event.getDay())) {
+            throw new IllegalArgumentException("Day must be one of: Mon, Tue, Wed, Thu, Fri, Sat, Sun.");
+        }
+        if (event.getTotal() < 0 || event.getAvailableSeats() < 0 || event.getAvailableSeats() > event.getTotal()) {
+            throw new IllegalArgumentException("Invalid seat numbers.");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
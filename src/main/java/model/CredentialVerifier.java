@@ -0,0 +1,182 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Runs password hashing on a small dedicated pool and remembers recent successful logins.
+ * <p>
+ * Hashing is CPU-bound, so the pool has one thread per core and a bounded queue; when a
+ * login burst fills the queue, further logins are refused at once instead of queueing
+ * without limit or taking CPU from checkouts. A password that verified recently is
+ * remembered as an HMAC under a key that exists only in this process, next to the
+ * stored hash it matched. Logging in again with the same password then costs one HMAC,
+ * and any password change misses the cache because the stored hash differs.
+ * </p>
+ */
+public class CredentialVerifier {
+    // Each queued login waits for a full hash per thread ahead of it, so keep the queue short
+    private static final int QUEUE_PER_THREAD = 4;
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor pool;
+    private final long cacheTtlMillis;
+    private final Map<String, Remembered> cache;
+    private final SecretKeySpec cacheKey;
+    // Verified when a username does not exist, so unknown users take as long as known ones
+    private final String dummyHash;
+
+    /**
+     * @param hasher the password hasher
+     * @param threads the number of hashing threads
+     * @param cacheSize the most successful logins remembered
+     * @param cacheTtlMillis how long a successful login is remembered
+     */
+    public CredentialVerifier(PasswordHasher hasher, int threads, int cacheSize, long cacheTtlMillis) {
+        this.hasher = hasher;
+        this.cacheTtlMillis = cacheTtlMillis;
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), r -> {
+                Thread t = new Thread(r, "password-hash-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Remembered> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        cacheKey = new SecretKeySpec(key, "HmacSHA256");
+        dummyHash = hasher.hash(Long.toString(new SecureRandom().nextLong()));
+    }
+
+    /**
+     * Checks a password against a user's stored hash.
+     * @param username the username
+     * @param password the plain text password
+     * @param stored the stored hash or legacy password, or null if there is no such user
+     * @return true if the password matches
+     * @throws LoginThrottledException if too many logins are already waiting
+     * @throws InterruptedException if interrupted while waiting for the pool
+     */
+    public boolean verify(String username, String password, String stored) throws InterruptedException {
+        byte[] digest = hmac(password);
+        if (stored != null && isRemembered(username, stored, digest)) return true;
+        boolean valid = run(() -> hasher.verify(password, stored != null ? stored : dummyHash));
+        if (!valid || stored == null) return false;
+        remember(username, digest, stored);
+        return true;
+    }
+
+    /**
+     * Remembers a password that is known to match a stored hash, e.g. one just upgraded.
+     * @param username the username
+     * @param password the plain text password
+     * @param stored the stored hash it matches
+     */
+    public void remember(String username, String password, String stored) {
+        remember(username, hmac(password), stored);
+    }
+
+    /**
+     * Hashes a password on the pool.
+     * @param password the plain text password
+     * @return the value to store
+     * @throws LoginThrottledException if too many logins are already waiting
+     * @throws InterruptedException if interrupted while waiting for the pool
+     */
+    public String hash(String password) throws InterruptedException {
+        return run(() -> hasher.hash(password));
+    }
+
+    public boolean needsRehash(String stored) {
+        return hasher.needsRehash(stored);
+    }
+
+    /**
+     * Forgets a user's remembered login, e.g. after a password change.
+     * @param username the username
+     */
+    public void forget(String username) {
+        synchronized (cache) {
+            cache.remove(username);
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void remember(String username, byte[] digest, String stored) {
+        synchronized (cache) {
+            cache.put(username, new Remembered(stored, digest, System.currentTimeMillis() + cacheTtlMillis));
+        }
+    }
+
+    private boolean isRemembered(String username, String stored, byte[] digest) {
+        Remembered remembered;
+        synchronized (cache) {
+            remembered = cache.get(username);
+        }
+        return remembered != null
+                && remembered.expiresAt > System.currentTimeMillis()
+                && remembered.stored.equals(stored)
+                && MessageDigest.isEqual(remembered.digest, digest);
+    }
+
+    private <T> T run(Callable<T> task) throws InterruptedException {
+        Future<T> future;
+        try {
+            future = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new LoginThrottledException("Too many sign-ins right now. Please try again in a moment.", 1000);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private byte[] hmac(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cacheKey);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            // Every Java SE runtime provides HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Remembered {
+        private final String stored;
+        private final byte[] digest;
+        private final long expiresAt;
+
+        private Remembered(String stored, byte[] digest, long expiresAt) {
+            this.stored = stored;
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
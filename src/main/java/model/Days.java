@@ -0,0 +1,39 @@
+package model;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The 3-letter day names events are scheduled on, Monday first.
+ */
+public final class Days {
+    public static final List<String> NAMES = List.of("Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun");
+
+    // Private constructor to prevent instantiation
+    private Days() {}
+
+    /**
+     * Returns the index of the given 3-letter day string (Mon=0, ..., Sun=6).
+     * @param day The day string.
+     * @return The index, or -1 if invalid.
+     */
+    public static int indexOf(String day) {
+        return day == null ? -1 : NAMES.indexOf(day);
+    }
+
+    /**
+     * @return true if the string is one of Mon, Tue, Wed, Thu, Fri, Sat, Sun
+     */
+    public static boolean isValid(String day) {
+        return indexOf(day) >= 0;
+    }
+
+    /**
+     * Gets the current day of week as a 3-letter string (e.g., "Mon").
+     * @param clock the clock to read today's date from
+     */
+    public static String today(Clock clock) {
+        return NAMES.get(LocalDate.now(clock).getDayOfWeek().getValue() - 1);
+    }
+}
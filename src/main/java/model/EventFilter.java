@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * Criteria for paging through the event catalog.
+ * Null criteria match every event.
+ */
+public class EventFilter {
+    /** Every event, including disabled ones. */
+    public static final EventFilter ALL = new EventFilter(true, null, null);
+    /** Every event that is open for booking. */
+    public static final EventFilter ENABLED = new EventFilter(false, null, null);
+
+    private final boolean includeDisabled;
+    private final String titlePrefix;
+    private final String day;
+
+    /**
+     * Constructs a filter.
+     * @param includeDisabled whether disabled events match
+     * @param titlePrefix case-insensitive prefix the title must start with, or null
+     * @param day the 3-letter day the event must be on, or null
+     */
+    public EventFilter(boolean includeDisabled, String titlePrefix, String day) {
+        this.includeDisabled = includeDisabled;
+        this.titlePrefix = titlePrefix == null || titlePrefix.isEmpty() ? null : titlePrefix;
+        this.day = day == null || day.isEmpty() ? null : day;
+    }
+
+    public boolean isIncludeDisabled() {
+        return includeDisabled;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    public String getDay() {
+        return day;
+    }
+
+    /**
+     * Returns whether an event satisfies every criterion.
+     * @param event the event to test
+     * @return true if the event matches
+     */
+    public boolean matches(Event event) {
+        if (!includeDisabled && !event.isEnabled()) return false;
+        if (day != null && !day.equals(event.getDay())) return false;
+        return titlePrefix == null || event.getTitle().regionMatches(true, 0, titlePrefix, 0, titlePrefix.length());
+    }
+}
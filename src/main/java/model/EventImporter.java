@@ -0,0 +1,297 @@
+package model;
+
+import dao.EventDao;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Loads events in bulk from events.dat-style or CSV files.
+ * <p>
+ * Each row is {@code title, venue, day, price, sold, total}; events.dat separates fields
+ * with semicolons, CSV files with commas and may quote fields and start with a header row.
+ * Rows are parsed and validated as the DAO consumes them, so the file is never held in
+ * memory, and all accepted rows are inserted in one transaction. Rows that repeat an
+ * event already in the catalog or earlier in the file (same title, day and venue,
+ * ignoring case) are skipped; invalid rows are reported with their line number.
+ * </p>
+ */
+public class EventImporter {
+    private static final int PROGRESS_INTERVAL = 1024;
+    // Errors beyond this many are counted but not kept
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int FIELD_COUNT = 6;
+
+    /**
+     * Receives import progress.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * @param rowsRead rows parsed so far
+         */
+        void update(int rowsRead);
+    }
+
+    /**
+     * A row that could not be imported.
+     */
+    public static final class RowError {
+        private final int line;
+        private final String message;
+
+        RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static final class Result {
+        private final int rowsRead;
+        private final int imported;
+        private final int duplicates;
+        private final int errorCount;
+        private final List<RowError> errors;
+
+        Result(int rowsRead, int imported, int duplicates, int errorCount, List<RowError> errors) {
+            this.rowsRead = rowsRead;
+            this.imported = imported;
+            this.duplicates = duplicates;
+            this.errorCount = errorCount;
+            this.errors = errors;
+        }
+
+        public int getRowsRead() { return rowsRead; }
+        public int getImported() { return imported; }
+        public int getDuplicates() { return duplicates; }
+        public int getErrorCount() { return errorCount; }
+        /** @return the first invalid rows, in file order */
+        public List<RowError> getErrors() { return errors; }
+    }
+
+    private final EventDao eventDao;
+
+    public EventImporter(EventDao eventDao) {
+        this.eventDao = eventDao;
+    }
+
+    /**
+     * Imports a file. Files ending in .csv are read as CSV, anything else as events.dat.
+     * @param file the file to read
+     * @param progress receives progress updates on the importing thread
+     * @return what was imported and what was rejected
+     * @throws Exception if reading fails, the database rejects the batch, or the importing
+     *                   thread is interrupted; nothing is imported then
+     */
+    public Result importFile(Path file, Progress progress) throws Exception {
+        char delimiter = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? ',' : ';';
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, delimiter, progress);
+        }
+    }
+
+    /**
+     * Imports rows from a reader.
+     * @param reader the rows; not closed
+     * @param delimiter the field separator
+     * @param progress receives progress updates on the importing thread
+     * @return what was imported and what was rejected
+     * @throws Exception if reading fails, the database rejects the batch, or the importing
+     *                   thread is interrupted; nothing is imported then
+     */
+    public Result importFrom(Reader reader, char delimiter, Progress progress) throws Exception {
+        Rows rows = new Rows(new BufferedReader(reader), delimiter, progress, existingKeys());
+        int inserted;
+        try {
+            inserted = eventDao.addEvents(rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        progress.update(rows.rowsRead);
+        // Rows the database still refused duplicate an event added by someone else meanwhile
+        int duplicates = rows.duplicates + rows.accepted - inserted;
+        return new Result(rows.rowsRead, inserted, duplicates, rows.errorCount, rows.errors);
+    }
+
+    private Set<String> existingKeys() {
+        Set<String> keys = new HashSet<>();
+        for (Event event : eventDao.getAllEvents()) keys.add(key(event));
+        return keys;
+    }
+
+    private static String key(Event event) {
+        return (event.getTitle() + '\u0000' + event.getDay() + '\u0000' + event.getVenue()).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses rows lazily, yielding only valid, new events.
+     */
+    private static final class Rows implements Iterable<Event>, Iterator<Event> {
+        private final BufferedReader reader;
+        private final char delimiter;
+        private final Progress progress;
+        private final Set<String> seen;
+        private final List<RowError> errors = new ArrayList<>();
+        private int line;
+        private int rowsRead;
+        private int accepted;
+        private int duplicates;
+        private int errorCount;
+        private Event next;
+
+        private Rows(BufferedReader reader, char delimiter, Progress progress, Set<String> seen) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+            this.progress = progress;
+            this.seen = seen;
+        }
+
+        @Override
+        public Iterator<Event> iterator() {
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public Event next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Event event = next;
+            next = null;
+            return event;
+        }
+
+        private Event readNext() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) continue;
+                List<String> fields = split(text, delimiter);
+                if (line == 1 && isHeader(fields)) continue;
+                rowsRead++;
+                if (rowsRead % PROGRESS_INTERVAL == 0) {
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Import was interrupted");
+                    progress.update(rowsRead);
+                }
+                Event event;
+                try {
+                    event = parse(fields);
+                } catch (IllegalArgumentException e) {
+                    reject(e.getMessage());
+                    continue;
+                }
+                if (!seen.add(key(event))) {
+                    duplicates++;
+                    continue;
+                }
+                accepted++;
+                return event;
+            }
+            return null;
+        }
+
+        private Event parse(List<String> fields) {
+            if (fields.size() != FIELD_COUNT) {
+                throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but found " + fields.size() + ".");
+            }
+            String title = fields.get(0).trim();
+            String venue = fields.get(1).trim();
+            String day = fields.get(2).trim();
+            double price = number(fields.get(3));
+            int sold = integer(fields.get(4));
+            int total = integer(fields.get(5));
+            if (price < 0) throw new IllegalArgumentException("Price cannot be negative.");
+            Event event = new Event(title, day, venue, price, total, total - sold, true);
+            CatalogService.checkFields(event);
+            return event;
+        }
+
+        private void reject(String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(line, message));
+        }
+
+        private static double number(String field) {
+            try {
+                return Double.parseDouble(field.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: '" + field.trim() + "'.");
+            }
+        }
+
+        private static int integer(String field) {
+            try {
+                return Integer.parseInt(field.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a whole number: '" + field.trim() + "'.");
+            }
+        }
+
+        private static boolean isHeader(List<String> fields) {
+            return fields.size() == FIELD_COUNT && fields.get(0).trim().equalsIgnoreCase("title");
+        }
+
+        /**
+         * Splits a row, honouring double-quoted fields with "" as an escaped quote.
+         */
+        private static List<String> split(String text, char delimiter) {
+            List<String> fields = new ArrayList<>(FIELD_COUNT);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package model;
+
+/**
+ * A catalog search: free text matched against event titles and venues, plus filters.
+ * Unset criteria match every event.
+ */
+public class EventQuery {
+    private String text;
+    private String day;
+    private Double minPrice;
+    private Double maxPrice;
+    private boolean availableOnly;
+    private boolean includeDisabled;
+    private int limit = 500;
+
+    /**
+     * Constructs a query.
+     * @param text words to search for; each must be the start of a word in the title or
+     *             venue, ignoring case. Null or blank matches every event
+     */
+    public EventQuery(String text) {
+        this.text = text;
+    }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getDay() { return day; }
+    /** @param day the 3-letter day the event must be on, or null */
+    public void setDay(String day) { this.day = day == null || day.isEmpty() ? null : day; }
+
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+
+    public boolean isAvailableOnly() { return availableOnly; }
+    /** @param availableOnly whether sold-out events are left out */
+    public void setAvailableOnly(boolean availableOnly) { this.availableOnly = availableOnly; }
+
+    public boolean isIncludeDisabled() { return includeDisabled; }
+    public void setIncludeDisabled(boolean includeDisabled) { this.includeDisabled = includeDisabled; }
+
+    public int getLimit() { return limit; }
+    /** @param limit the maximum number of events returned; counts and facets cover every match */
+    public void setLimit(int limit) { this.limit = limit; }
+
+    /**
+     * Returns whether nothing narrows the catalog beyond the enabled flag.
+     */
+    public boolean isEmpty() {
+        return (text == null || text.isBlank()) && day == null && minPrice == null && maxPrice == null
+                && !availableOnly;
+    }
+}
@@ -0,0 +1,34 @@
+package model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of an {@link EventQuery}: the first matching events plus counts over all matches.
+ */
+public class EventSearchResult {
+    private final List<Event> events;
+    private final int totalMatches;
+    private final Map<String, Integer> venueCounts;
+    private final Map<String, Integer> dayCounts;
+
+    /**
+     * Constructs a result.
+     * @param events up to the query's limit of matching events
+     * @param totalMatches how many events match in total
+     * @param venueCounts matches per venue, most matches first
+     * @param dayCounts matches per day in week order, ignoring the query's day filter
+     */
+    public EventSearchResult(List<Event> events, int totalMatches, Map<String, Integer> venueCounts,
+                             Map<String, Integer> dayCounts) {
+        this.events = events;
+        this.totalMatches = totalMatches;
+        this.venueCounts = venueCounts;
+        this.dayCounts = dayCounts;
+    }
+
+    public List<Event> getEvents() { return events; }
+    public int getTotalMatches() { return totalMatches; }
+    public Map<String, Integer> getVenueCounts() { return venueCounts; }
+    public Map<String, Integer> getDayCounts() { return dayCounts; }
+}
@@ -0,0 +1,26 @@
+package model;
+
+/**
+ * File formats supported by the order export.
+ */
+public enum ExportFormat {
+    TEXT("Text Files", "txt"),
+    CSV("CSV Files", "csv"),
+    JSONL("JSON Lines Files", "jsonl");
+
+    private final String description;
+    private final String extension;
+
+    ExportFormat(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,70 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limits failed logins per username with a sliding window.
+ * <p>
+ * Each username keeps the times of its most recent failures in a small ring. Once the
+ * ring is full and its oldest failure is still inside the window, further attempts are
+ * refused until that failure ages out. A successful login clears the ring. At most
+ * {@code maxUsers} usernames are tracked; the least recently seen are forgotten first,
+ * so guessing at many usernames cannot grow memory without bound.
+ * </p>
+ */
+public class LoginThrottle {
+    private final int maxFailures;
+    private final long windowMillis;
+    private final Map<String, long[]> failures;
+
+    /**
+     * @param maxFailures failures allowed inside the window
+     * @param windowMillis the window length
+     * @param maxUsers the most usernames tracked at once
+     */
+    public LoginThrottle(int maxFailures, long windowMillis, int maxUsers) {
+        if (maxFailures <= 0) throw new IllegalArgumentException("maxFailures must be positive");
+        this.maxFailures = maxFailures;
+        this.windowMillis = windowMillis;
+        this.failures = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Returns how long a username must wait before its next attempt.
+     * @param username the username
+     * @param now the current time in milliseconds
+     * @return the wait in milliseconds, 0 if an attempt is allowed
+     */
+    public synchronized long getRetryAfterMillis(String username, long now) {
+        long[] ring = failures.get(username);
+        if (ring == null || ring[0] < maxFailures) return 0;
+        long oldest = ring[1 + (int) (ring[0] % maxFailures)];
+        return Math.max(0, oldest + windowMillis - now);
+    }
+
+    /**
+     * Records a failed attempt.
+     * @param username the username
+     * @param now the current time in milliseconds
+     */
+    public synchronized void recordFailure(String username, long now) {
+        // ring[0] counts failures; ring[1..] holds their times, oldest at ring[1 + count % maxFailures]
+        long[] ring = failures.computeIfAbsent(username, u -> new long[1 + maxFailures]);
+        ring[1 + (int) (ring[0] % maxFailures)] = now;
+        ring[0]++;
+    }
+
+    /**
+     * Forgets a username's failures after a successful login.
+     * @param username the username
+     */
+    public synchronized void recordSuccess(String username) {
+        failures.remove(username);
+    }
+}
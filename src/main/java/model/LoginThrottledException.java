@@ -0,0 +1,23 @@
+package model;
+
+/**
+ * Thrown when a login is refused without checking the password, because the user has
+ * failed too often recently or too many logins are already in progress.
+ */
+public class LoginThrottledException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public LoginThrottledException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns how long to wait before trying again.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
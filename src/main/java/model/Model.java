@@ -1,39 +1,114 @@
 package model;
 
+import dao.AnalyticsDao;
+import dao.AnalyticsDaoImpl;
+import dao.CachingEventDao;
 import dao.Database;
 import dao.EventDao;
+import dao.EventDaoImpl;
+import dao.JournalingOrderDao;
+import dao.OrderDao;
+import dao.OrderDaoImpl;
+import dao.PooledDataSource;
+import dao.SchemaMigrator;
 import dao.UserDao;
-import java.io.BufferedReader;
+import dao.UserDaoImpl;
 import java.io.InputStreamReader;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
+import metrics.Instrumented;
+import metrics.Log;
+import metrics.Metrics;
+import metrics.MetricsFileWriter;
+import metrics.MetricsRegistry;
 
 /**
  * The main application model, providing access to users, events, orders, and cart.
- * Handles business logic and delegates persistence to DAOs.
+ * Wires the DAOs and the headless services together; business rules live in the services.
+ * Logged-in users are tracked in a {@link SessionRegistry}, and the JavaFX client's own
+ * session is kept as the current session.
  */
 public class Model {
+    // How long seats stay held in a cart without activity; override with -Deventapp.hold.ttl.seconds
+    private static final long HOLD_TTL_MILLIS = Long.getLong("eventapp.hold.ttl.seconds", 600) * 1000;
+    // How long a session may be unused before it is logged out; override with -Deventapp.session.idle.seconds
+    private static final long SESSION_IDLE_MILLIS = Long.getLong("eventapp.session.idle.seconds", 1800) * 1000;
+    // Estimated memory all sessions may use; override with -Deventapp.session.max.mb
+    private static final long SESSION_MAX_BYTES = Long.getLong("eventapp.session.max.mb", 256) * 1024 * 1024;
+    // Journal that confirms orders before they reach the database; off unless -Deventapp.order.journal names a file
+    private static final String ORDER_JOURNAL = System.getProperty("eventapp.order.journal", "");
+    // PBKDF2 iterations for new password hashes; override with -Deventapp.password.iterations
+    private static final int PASSWORD_ITERATIONS = Integer.getInteger("eventapp.password.iterations", 600_000);
+    // Threads that hash passwords; override with -Deventapp.password.threads
+    private static final int PASSWORD_THREADS = Integer.getInteger("eventapp.password.threads",
+            Runtime.getRuntime().availableProcessors());
+    // Failed logins allowed per username within the window before it must wait
+    private static final int LOGIN_MAX_FAILURES = 5;
+    private static final long LOGIN_FAILURE_WINDOW_MILLIS = 5 * 60 * 1000;
+    // Bounds the memory of the failure window and the credential cache
+    private static final int LOGIN_TRACKED_USERS = 10_000;
+    private static final long CREDENTIAL_CACHE_TTL_MILLIS = 10 * 60 * 1000;
+    // File that receives a JSON snapshot of the metrics; set -Deventapp.metrics.file to enable
+    private static final String METRICS_FILE = System.getProperty("eventapp.metrics.file", "");
+    // Seconds between metrics snapshots; override with -Deventapp.metrics.interval.seconds
+    private static final long METRICS_INTERVAL_SECONDS = Long.getLong("eventapp.metrics.interval.seconds", 60);
+
     private final UserDao userDao;
     private final EventDao eventDao;
-    private final dao.OrderDao orderDao;
-    private User currentUser;
-    private final Cart cart;
-    private final Connection dbConn;
+    private final OrderDao orderDao;
+    private final JournalingOrderDao orderJournal;
+    private final AnalyticsDao analyticsDao;
+    private Session currentSession;
+    private final SeatInventory seatInventory;
+    private final SeatHoldManager seatHolds;
+    private final OrderExporter orderExporter;
+    private final BookingService bookingService;
+    private final CatalogService catalogService;
+    private final AccountService accountService;
+    private final CredentialVerifier credentials;
+    private final SessionRegistry sessions;
+    private final MetricsFileWriter metricsFile;
 
     /**
-     * Constructs the Model, initializing DAOs and loading initial events if needed.
+     * Constructs the Model, migrating the schema, initializing DAOs and loading initial events if needed.
      */
     public Model() {
-        userDao = new dao.UserDaoImpl();
-        cart = new Cart();
+        MetricsRegistry registry = Metrics.registry();
+        // Every DAO call is timed; the services only ever see the instrumented DAOs
+        userDao = Instrumented.dao(UserDao.class, new UserDaoImpl(), registry);
         try {
-            dbConn = Database.getConnection();
-            eventDao = new dao.EventDaoImpl(dbConn);
-            orderDao = new dao.OrderDaoImpl(dbConn, eventDao);
+            SchemaMigrator.migrate(Database.getDataSource());
+            CachingEventDao eventCache = new CachingEventDao(new EventDaoImpl(Database.getDataSource()));
+            eventDao = Instrumented.dao(EventDao.class, eventCache, registry);
+            OrderDaoImpl orders = new OrderDaoImpl(Database.getDataSource(), eventDao);
+            if (ORDER_JOURNAL.isEmpty()) {
+                orderJournal = null;
+                orderDao = Instrumented.dao(OrderDao.class, orders, registry);
+                seatInventory = new SeatInventory(eventDao);
+            } else {
+                orderJournal = new JournalingOrderDao(orders, Path.of(ORDER_JOURNAL));
+                orderDao = Instrumented.dao(OrderDao.class, orderJournal, registry);
+                seatInventory = new SeatInventory(eventDao, orderJournal::getUnappliedSeats);
+            }
+            analyticsDao = Instrumented.dao(AnalyticsDao.class,
+                    new AnalyticsDaoImpl(Database.getDataSource()), registry);
+            seatHolds = new SeatHoldManager(seatInventory, HOLD_TTL_MILLIS);
+            orderExporter = new OrderExporter(orderDao);
+            bookingService = new BookingService(eventDao, orderDao, userDao, seatInventory, seatHolds, Clock.systemDefaultZone());
+            catalogService = new CatalogService(eventDao, seatInventory);
+            credentials = new CredentialVerifier(new PasswordHasher(PASSWORD_ITERATIONS), PASSWORD_THREADS,
+                    LOGIN_TRACKED_USERS, CREDENTIAL_CACHE_TTL_MILLIS);
+            accountService = new AccountService(userDao, credentials,
+                    new LoginThrottle(LOGIN_MAX_FAILURES, LOGIN_FAILURE_WINDOW_MILLIS, LOGIN_TRACKED_USERS));
+            sessions = new SessionRegistry(bookingService::newCart, SESSION_IDLE_MILLIS, SESSION_MAX_BYTES);
+            registerGauges(registry, eventCache);
+            metricsFile = METRICS_FILE.isEmpty() ? null
+                    : new MetricsFileWriter(registry, Path.of(METRICS_FILE), METRICS_INTERVAL_SECONDS);
             // Load initial events from events.dat if database is empty
             if (eventDao.getAllEvents().isEmpty()) {
                 loadInitialEventsFromFile();
@@ -43,33 +118,44 @@ public class Model {
         }
     }
 
+    /**
+     * Exposes the pool, cache, session and journal counters as gauges, read at export time.
+     */
+    private void registerGauges(MetricsRegistry registry, CachingEventDao eventCache) {
+        PooledDataSource pool = Database.getDataSource();
+        registry.gauge("eventapp_db_connections_active", "Connections lent out.",
+                () -> pool.getMetrics().getActive());
+        registry.gauge("eventapp_db_connections_idle", "Connections waiting in the pool.",
+                () -> pool.getMetrics().getIdle());
+        registry.gauge("eventapp_db_borrow_timeouts", "Borrowers that gave up waiting for a connection.",
+                () -> pool.getMetrics().getTimeouts());
+        registry.gauge("eventapp_db_borrow_wait_mean_seconds", "Mean wait for a connection.",
+                () -> pool.getMetrics().getMeanWaitMicros() / 1e6);
+        registry.gauge("eventapp_db_statement_cache_hit_ratio", "Prepared statements served from the cache.",
+                () -> pool.getMetrics().getStatementHitRate());
+        registry.gauge("eventapp_event_cache_hits", "Event reads answered from the cached catalog.",
+                eventCache::getHitCount);
+        registry.gauge("eventapp_event_cache_misses", "Event reads that went to the database.",
+                eventCache::getMissCount);
+        registry.gauge("eventapp_sessions", "Sessions currently logged in.", sessions::getSessionCount);
+        registry.gauge("eventapp_session_bytes", "Estimated memory held by sessions.", sessions::getEstimatedBytes);
+        if (orderJournal != null) {
+            registry.gauge("eventapp_order_journal_backlog", "Confirmed orders not yet written to the database.",
+                    orderJournal::getBacklog);
+        }
+    }
+
     /**
      * Loads initial events from the events.dat resource file if the database is empty.
      */
     private void loadInitialEventsFromFile() {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                getClass().getResourceAsStream("/events.dat")))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(";");
-                if (parts.length == 6) {
-                    String title = parts[0].trim();
-                    String venue = parts[1].trim();
-                    String day = parts[2].trim();
-                    double price = Double.parseDouble(parts[3].trim());
-                    int sold = Integer.parseInt(parts[4].trim());
-                    int total = Integer.parseInt(parts[5].trim());
-                    int available = total - sold;
-                    Event event = new Event(title, day, venue, price, total, available, true);
-                    try {
-                        eventDao.addEvent(event);
-                    } catch (Exception ex) {
-                        // Ignore duplicates or errors
-                    }
-                }
+        try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/events.dat"), StandardCharsets.UTF_8)) {
+            EventImporter.Result result = new EventImporter(eventDao).importFrom(reader, ';', _ -> {});
+            for (EventImporter.RowError error : result.getErrors()) {
+                Log.warn("events.initial_row_rejected", null, "row", error);
             }
         } catch (Exception e) {
-            // Log error if needed
+            Log.error("events.initial_load_failed", e, "resource", "events.dat");
         }
     }
 
@@ -77,101 +163,184 @@ public class Model {
         userDao.setup();
     }
 
+    /**
+     * Stops the background tasks and writes every confirmed order to the database.
+     * Called when the application exits, before the database is shut down.
+     */
+    public void shutdown() {
+        sessions.shutdown();
+        seatHolds.shutdown();
+        credentials.shutdown();
+        if (orderJournal != null) {
+            try {
+                orderJournal.close();
+            } catch (Exception e) {
+                Log.error("orders.journal_close_failed", e);
+            }
+        }
+        if (metricsFile != null) metricsFile.close();
+    }
+
     public UserDao getUserDao() {
         return userDao;
     }
 
     public User getCurrentUser() {
-        return this.currentUser;
+        return currentSession != null ? currentSession.getUser() : null;
     }
 
+    /**
+     * Starts the JavaFX client's session for a user, ending any previous one.
+     * The session is not evicted when idle; it lasts until {@link #logout()}.
+     * @param user the authenticated user
+     */
     public void setCurrentUser(User user) {
-        this.currentUser = user;
+        logout();
+        currentSession = sessions.create(user, false);
+    }
+
+    /**
+     * Ends the JavaFX client's session and releases its cart.
+     */
+    public void logout() {
+        if (currentSession != null) {
+            sessions.remove(currentSession.getToken());
+            currentSession = null;
+        }
+    }
+
+    public Session getCurrentSession() {
+        return currentSession;
     }
 
     public Cart getCart() {
-        return cart;
+        return currentSession != null ? currentSession.getCart() : null;
     }
 
     public void clearCart() {
-        cart.clear();
+        Cart cart = getCart();
+        if (cart != null) cart.clear();
+    }
+
+    public SessionRegistry getSessionRegistry() {
+        return sessions;
+    }
+
+    public BookingService getBookingService() {
+        return bookingService;
+    }
+
+    public CatalogService getCatalogService() {
+        return catalogService;
+    }
+
+    public AccountService getAccountService() {
+        return accountService;
     }
 
     /**
-     * Adds an order for the current user, ensuring userId is set.
-     * @param order the order to add
+     * Adds an order for a session's user from the session's cart.
+     * @param session the session placing the order
+     * @param order the order to add; its order number is set once it has been saved
+     * @return the persisted order number
+     * @throws Exception if the seats are no longer available or the order cannot be saved
+     * @see BookingService#placeOrder(User, Cart, Order)
      */
-    public void addOrder(Order order) {
-        try {
-            int userId = -1;
-            if (currentUser != null && currentUser.getUserId() > 0) {
-                userId = currentUser.getUserId();
-            } else if (currentUser != null && currentUser.getUsername() != null) {
-                userId = getUserIdByUsername(currentUser.getUsername());
-            } else if (order.getCustomerName() != null) {
-                userId = getUserIdByPreferredName(order.getCustomerName());
-            }
-            if (userId <= 0) throw new SQLException("Could not determine user_id for order");
-            orderDao.addOrder(order, userId);
-        } catch (Exception e) {
-            // Log error if needed
-        }
+    public String addOrder(Session session, Order order) throws Exception {
+        return bookingService.placeOrder(session.getUser(), session.getCart(), order);
+    }
+
+    /**
+     * Returns the number of seats that can still be booked for an event.
+     * @param event the event
+     * @return the free seat count
+     */
+    public int getAvailableSeats(Event event) {
+        return bookingService.getAvailableSeats(event);
+    }
+
+    /**
+     * Returns the number of seats of an event currently held in carts or pending checkout.
+     * @param event the event
+     * @return the held seat count
+     */
+    public int getHeldSeats(Event event) {
+        return bookingService.getHeldSeats(event);
     }
 
     public List<Order> getOrders() {
         try {
             return orderDao.getAllOrders();
         } catch (Exception e) {
+            Log.warn("orders.load_failed", e, "scope", "all");
             return new ArrayList<>();
         }
     }
 
     public List<Order> getOrdersForCurrentUser() {
+        User currentUser = getCurrentUser();
         if (currentUser == null) return new ArrayList<>();
         try {
             return orderDao.getOrdersForUser(currentUser.getUserId());
         } catch (Exception e) {
+            Log.warn("orders.load_failed", e, "scope", "user", "user_id", currentUser.getUserId());
             return new ArrayList<>();
         }
     }
 
-    // Helper to get user_id by username (unique)
-    private int getUserIdByUsername(String username) {
-        String sql = "SELECT user_id FROM users WHERE username = ?";
-        try (PreparedStatement ps = dbConn.prepareStatement(sql)) {
-            ps.setString(1, username);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getInt("user_id");
-            }
-        } catch (SQLException e) {
-            // Log error if needed
-        }
-        return -1;
+    /**
+     * Streams the current user's orders to a file.
+     * @param file the file to write
+     * @param format the output format
+     * @param progress receives progress updates on the calling thread
+     * @return the number of orders exported
+     * @throws Exception if no user is logged in, or reading or writing fails
+     */
+    public int exportOrdersForCurrentUser(Path file, ExportFormat format, OrderExporter.Progress progress) throws Exception {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) throw new IllegalStateException("No user is logged in");
+        return orderExporter.exportForUser(currentUser.getUserId(), file, format, progress);
     }
 
-    // Helper to get user_id by preferredName (not recommended, but fallback)
-    private int getUserIdByPreferredName(String preferredName) {
-        String sql = "SELECT user_id FROM users WHERE preferred_name = ?";
-        try (PreparedStatement ps = dbConn.prepareStatement(sql)) {
-            ps.setString(1, preferredName);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getInt("user_id");
-            }
-        } catch (SQLException e) {
-            // Log error if needed
-        }
-        return -1;
+    /**
+     * Streams every user's orders to a file.
+     * @param file the file to write
+     * @param format the output format
+     * @param progress receives progress updates on the calling thread
+     * @return the number of orders exported
+     * @throws Exception if reading or writing fails
+     */
+    public int exportAllOrders(Path file, ExportFormat format, OrderExporter.Progress progress) throws Exception {
+        return orderExporter.exportAll(file, format, progress);
     }
 
-    public String getNextOrderNumber() {
-        String sql = "SELECT MAX(order_id) as max_id FROM orders";
-        try (PreparedStatement ps = dbConn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
-            int next = 1;
-            if (rs.next()) next = rs.getInt("max_id") + 1;
-            return String.format("%04d", next);
-        } catch (SQLException e) {
-            return "0001";
-        }
+    /**
+     * Returns one page of every user's orders, newest first.
+     * @param afterId the order ID the previous page ended with, or 0 for the first page
+     * @param limit the page size
+     * @return up to limit orders
+     * @throws Exception if a database error occurs
+     */
+    public List<Order> getOrdersPage(int afterId, int limit) throws Exception {
+        return orderDao.getOrders(afterId, limit);
+    }
+
+    /**
+     * Returns one page of the current user's orders, newest first.
+     * @param afterId the order ID the previous page ended with, or 0 for the first page
+     * @param limit the page size
+     * @return up to limit orders, or none if no user is logged in
+     * @throws Exception if a database error occurs
+     */
+    public List<Order> getOrdersPageForCurrentUser(int afterId, int limit) throws Exception {
+        return bookingService.getOrderHistory(getCurrentUser(), afterId, limit);
+    }
+
+    /**
+     * Returns the sales aggregates maintained as orders are placed.
+     */
+    public AnalyticsDao getAnalyticsDao() {
+        return analyticsDao;
     }
 
     public EventDao getEventDao() {
@@ -180,38 +349,62 @@ public class Model {
 
     // Event management methods for admin
     public List<Event> getAllEvents(boolean includeDisabled) {
-        List<Event> all = eventDao.getAllEvents();
-        if (includeDisabled) return all;
-        List<Event> enabled = new ArrayList<>();
-        for (Event e : all) if (e.isEnabled()) enabled.add(e);
-        return enabled;
+        return catalogService.getAllEvents(includeDisabled);
+    }
+
+    /**
+     * Returns one page of events in event ID order.
+     * @param afterId the event ID the previous page ended with, or 0 for the first page
+     * @param limit the page size
+     * @param filter the criteria events must match
+     * @return up to limit events
+     */
+    public List<Event> getEventsPage(int afterId, int limit, EventFilter filter) {
+        return catalogService.getEventsPage(afterId, limit, filter);
+    }
+
+    /**
+     * Searches the catalog by title and venue words, with filters and facet counts.
+     * @param query the search criteria
+     * @return the first matches and counts over all of them
+     */
+    public EventSearchResult searchEvents(EventQuery query) {
+        return catalogService.search(query);
+    }
+
+    /**
+     * Imports events in bulk from a file.
+     * @see CatalogService#importEvents(Path, EventImporter.Progress)
+     */
+    public EventImporter.Result importEvents(Path file, EventImporter.Progress progress) throws Exception {
+        return catalogService.importEvents(file, progress);
     }
 
     public List<String> getAllEventTitles() {
-        return eventDao.getAllEventTitles();
+        return catalogService.getAllEventTitles();
     }
 
     public List<Event> getEventsByTitle(String title) {
-        return eventDao.getEventsByTitle(title);
+        return catalogService.getEventsByTitle(title);
     }
 
     public void addEvent(Event event) throws Exception {
-        eventDao.addEvent(event);
+        catalogService.addEvent(event);
     }
 
     public void updateEvent(Event event) throws Exception {
-        eventDao.updateEvent(event);
+        catalogService.updateEvent(event);
     }
 
     public void deleteEvent(int eventId) throws Exception {
-        eventDao.deleteEvent(eventId);
+        catalogService.deleteEvent(eventId);
     }
 
     public void setEventEnabled(int eventId, boolean enabled) throws Exception {
-        eventDao.setEventEnabled(eventId, enabled);
+        catalogService.setEventEnabled(eventId, enabled);
     }
 
     public boolean eventExists(Event event) throws Exception {
-        return eventDao.eventExists(event);
+        return catalogService.eventExists(event);
     }
 }
@@ -5,7 +5,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public class Order implements Serializable {
-    private String orderNumber; // 4-digit string
+    private String orderNumber; // order ID padded to at least 4 digits
     private LocalDateTime dateTime;
     private List<OrderItem> items;
     private double totalPrice;
@@ -25,6 +25,7 @@ public class Order implements Serializable {
     }
 
     public String getOrderNumber() { return orderNumber; }
+    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
     public LocalDateTime getDateTime() { return dateTime; }
     public List<OrderItem> getItems() { return items; }
     public double getTotalPrice() { return totalPrice; }
@@ -0,0 +1,245 @@
+package model;
+
+import dao.OrderDao;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes orders to a file as they are streamed from the database.
+ * <p>
+ * Orders are read through a forward-only cursor and encoded into a fixed-size buffer
+ * that is flushed to a {@link FileChannel} whenever it fills up, so memory use does not
+ * depend on how many orders are exported.
+ * </p>
+ */
+public class OrderExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 256;
+    private static final String CSV_HEADER =
+            "order_no,order_date,customer,order_total,event,day,venue,quantity,price_per_ticket\n";
+
+    /**
+     * Receives export progress.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * @param exported orders written so far
+         * @param total orders expected, counted before the export started
+         */
+        void update(int exported, int total);
+    }
+
+    private final OrderDao orderDao;
+
+    public OrderExporter(OrderDao orderDao) {
+        this.orderDao = orderDao;
+    }
+
+    /**
+     * Exports the orders of one user.
+     * @param userId the user ID
+     * @param file the file to write; replaced if it exists
+     * @param format the output format
+     * @param progress receives progress updates on the exporting thread
+     * @return the number of orders written
+     * @throws Exception if reading or writing fails, or the exporting thread is interrupted
+     */
+    public int exportForUser(int userId, Path file, ExportFormat format, Progress progress) throws Exception {
+        int total = orderDao.countOrdersForUser(userId);
+        try (Writer writer = new Writer(file, format, total, progress)) {
+            return orderDao.streamOrdersForUser(userId, writer::write);
+        }
+    }
+
+    /**
+     * Exports every user's orders.
+     * @param file the file to write; replaced if it exists
+     * @param format the output format
+     * @param progress receives progress updates on the exporting thread
+     * @return the number of orders written
+     * @throws Exception if reading or writing fails, or the exporting thread is interrupted
+     */
+    public int exportAll(Path file, ExportFormat format, Progress progress) throws Exception {
+        int total = orderDao.countAllOrders();
+        try (Writer writer = new Writer(file, format, total, progress)) {
+            return orderDao.streamAllOrders(writer::write);
+        }
+    }
+
+    /**
+     * Formats orders into a reusable line buffer and encodes it into the channel buffer.
+     */
+    private static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ExportFormat format;
+        private final int total;
+        private final Progress progress;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder line = new StringBuilder(256);
+        private int exported;
+
+        private Writer(Path file, ExportFormat format, int total, Progress progress) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.format = format;
+            this.total = total;
+            this.progress = progress;
+            if (format == ExportFormat.CSV) {
+                line.append(CSV_HEADER);
+                emit();
+            }
+            progress.update(0, total);
+        }
+
+        private void write(Order order) throws IOException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Export cancelled");
+            switch (format) {
+                case CSV -> appendCsv(order);
+                case JSONL -> appendJson(order);
+                default -> appendText(order);
+            }
+            emit();
+            if (++exported % PROGRESS_INTERVAL == 0) progress.update(exported, Math.max(total, exported));
+        }
+
+        private void appendText(Order order) {
+            line.append("Order No: ").append(order.getOrderNumber())
+                .append(" | Date: ").append(order.getDateTime())
+                .append(" | Total: $").append(String.format("%.2f", order.getTotalPrice())).append('\n');
+            for (OrderItem item : order.getItems()) {
+                line.append("   - ").append(item.getTitle())
+                    .append(" (").append(item.getDay()).append(") x ")
+                    .append(item.getQuantity()).append('\n');
+            }
+            line.append('\n');
+        }
+
+        private void appendCsv(Order order) {
+            if (order.getItems().isEmpty()) {
+                appendCsvPrefix(order);
+                line.append(",,,,\n");
+                return;
+            }
+            for (OrderItem item : order.getItems()) {
+                appendCsvPrefix(order);
+                csv(item.getTitle()).append(',');
+                csv(item.getDay()).append(',');
+                csv(item.getVenue()).append(',');
+                line.append(item.getQuantity()).append(',')
+                    .append(item.getPricePerTicket()).append('\n');
+            }
+        }
+
+        private void appendCsvPrefix(Order order) {
+            line.append(order.getOrderNumber()).append(',')
+                .append(order.getDateTime()).append(',');
+            csv(order.getCustomerName()).append(',');
+            line.append(order.getTotalPrice()).append(',');
+        }
+
+        private StringBuilder csv(String value) {
+            if (value == null) return line;
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return line.append(value);
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            return line.append('"');
+        }
+
+        private void appendJson(Order order) {
+            line.append("{\"orderNo\":");
+            json(order.getOrderNumber());
+            line.append(",\"date\":");
+            json(order.getDateTime().toString());
+            line.append(",\"customer\":");
+            json(order.getCustomerName());
+            line.append(",\"total\":").append(order.getTotalPrice()).append(",\"items\":[");
+            boolean first = true;
+            for (OrderItem item : order.getItems()) {
+                if (!first) line.append(',');
+                first = false;
+                line.append("{\"event\":");
+                json(item.getTitle());
+                line.append(",\"day\":");
+                json(item.getDay());
+                line.append(",\"venue\":");
+                json(item.getVenue());
+                line.append(",\"quantity\":").append(item.getQuantity())
+                    .append(",\"pricePerTicket\":").append(item.getPricePerTicket()).append('}');
+            }
+            line.append("]}\n");
+        }
+
+        private void json(String value) {
+            if (value == null) {
+                line.append("null");
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> {
+                        if (c < 0x20) line.append(String.format("\\u%04x", (int) c));
+                        else line.append(c);
+                    }
+                }
+            }
+            line.append('"');
+        }
+
+        /**
+         * Encodes the pending line into the buffer, flushing to the channel whenever it fills up.
+         */
+        private void emit() throws IOException {
+            CharBuffer chars = CharBuffer.wrap(line);
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, false);
+                if (result.isOverflow()) {
+                    flush();
+                } else if (result.isUnderflow()) {
+                    break;
+                } else {
+                    result.throwException();
+                }
+            }
+            line.setLength(0);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                progress.update(exported, Math.max(total, exported));
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
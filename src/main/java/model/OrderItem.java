@@ -2,15 +2,47 @@ package model;
 
 import java.io.Serializable;
 
-public class OrderItem implements Serializable {
-    private Event event;
-    private int quantity;
+/**
+ * One line of an order, as it was when the order was placed. The event's title, day,
+ * venue and price are copied into the line, so later changes to the event, or deleting
+ * it, never alter order history.
+ */
+public final class OrderItem implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int eventId;
+    private final String title;
+    private final String day;
+    private final String venue;
+    private final double pricePerTicket;
+    private final int quantity;
 
+    /**
+     * Snapshots an event for a new order line.
+     */
     public OrderItem(Event event, int quantity) {
-        this.event = event;
+        this(event.getEventId(), event.getTitle(), event.getDay(), event.getVenue(), event.getPrice(), quantity);
+    }
+
+    public OrderItem(int eventId, String title, String day, String venue, double pricePerTicket, int quantity) {
+        this.eventId = eventId;
+        this.title = title;
+        this.day = day;
+        this.venue = venue;
+        this.pricePerTicket = pricePerTicket;
         this.quantity = quantity;
     }
 
-    public Event getEvent() { return event; }
+    public int getEventId() { return eventId; }
+    public String getTitle() { return title; }
+    public String getDay() { return day; }
+    public String getVenue() { return venue; }
+    public double getPricePerTicket() { return pricePerTicket; }
     public int getQuantity() { return quantity; }
+
+    /**
+     * Returns the price of this line at the time of the order.
+     */
+    public double getLineTotal() {
+        return pricePerTicket * quantity;
+    }
 }
@@ -0,0 +1,25 @@
+package model;
+
+import java.util.Map;
+
+/**
+ * The outcome of saving an order: its ID and the seats its events have left afterwards.
+ */
+public class OrderResult {
+    private final int orderId;
+    private final Map<Integer, Integer> availableSeats;
+
+    /**
+     * Constructs a result.
+     * @param orderId the ID the order was saved under
+     * @param availableSeats available_seats of each ordered event once the order was written,
+     *                       keyed by event ID; empty when the seats are written later
+     */
+    public OrderResult(int orderId, Map<Integer, Integer> availableSeats) {
+        this.orderId = orderId;
+        this.availableSeats = availableSeats;
+    }
+
+    public int getOrderId() { return orderId; }
+    public Map<Integer, Integer> getAvailableSeats() { return availableSeats; }
+}
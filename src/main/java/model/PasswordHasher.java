@@ -0,0 +1,120 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2 password hashes, and the legacy Caesar-shifted passwords they replace.
+ * <p>
+ * Hashes are stored as {@code pbkdf2-sha256$iterations$salt$hash} with Base64 salt and
+ * hash, so the iteration count can be raised later: hashes made with fewer iterations
+ * still verify but report {@link #needsRehash}. A stored value in any other format is a
+ * legacy Caesar shift, which verifies once and is then replaced.
+ * </p>
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param iterations PBKDF2 iterations for new hashes
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) throw new IllegalArgumentException("iterations must be positive");
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hashes a password with a fresh salt. This is deliberately slow.
+     * @param password the plain text password
+     * @return the value to store
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + '$' + base64.encodeToString(salt) + '$'
+                + base64.encodeToString(pbkdf2(password, salt, iterations, HASH_BITS));
+    }
+
+    /**
+     * Checks a password against a stored value in either format. This is deliberately slow.
+     * @param password the plain text password
+     * @param stored the stored hash or legacy password
+     * @return true if the password matches
+     */
+    public boolean verify(String password, String stored) {
+        if (stored == null) return false;
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(legacyEncrypt(password).getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(pbkdf2(password, salt, storedIterations, expected.length * 8), expected);
+        } catch (IllegalArgumentException e) {
+            // Malformed iteration count or Base64
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether a stored value should be replaced by a fresh hash after a successful login.
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) return true;
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations, int bits) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // Every Java SE runtime provides PBKDF2WithHmacSHA256
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * The original password format: letters and digits shifted by 3, everything else kept.
+     */
+    private static String legacyEncrypt(String password) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : password.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                if (Character.isLowerCase(c)) {
+                    sb.append((char) ('a' + (c - 'a' + 3) % 26));
+                } else if (Character.isUpperCase(c)) {
+                    sb.append((char) ('A' + (c - 'A' + 3) % 26));
+                } else if (Character.isDigit(c)) {
+                    sb.append((char) ('0' + (c - '0' + 3) % 10));
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package model;
+
+/**
+ * Sales totals for one group of orders, e.g. one event, venue, weekday or hour.
+ */
+public class SalesSummary {
+    private final String label;
+    private final int tickets;
+    private final double revenue;
+    private final int orders;
+
+    /**
+     * Constructs a summary.
+     * @param label what the totals are grouped by, e.g. an event title or a date
+     * @param tickets tickets sold
+     * @param revenue money taken for those tickets
+     * @param orders orders that included the group
+     */
+    public SalesSummary(String label, int tickets, double revenue, int orders) {
+        this.label = label;
+        this.tickets = tickets;
+        this.revenue = revenue;
+        this.orders = orders;
+    }
+
+    public String getLabel() { return label; }
+    public int getTickets() { return tickets; }
+    public double getRevenue() { return revenue; }
+    public int getOrders() { return orders; }
+}
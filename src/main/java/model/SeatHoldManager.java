@@ -0,0 +1,275 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived seat holds for items sitting in a cart.
+ * <p>
+ * A hold reserves seats in the {@link SeatInventory} so they count against availability
+ * while the owner shops. Every cart action renews the owner's holds; holds that are not
+ * renewed within the time-to-live are released by a background timer wheel. Scheduling,
+ * renewing and expiring a hold are all constant-time, so the cost of expiry does not
+ * grow with the number of outstanding holds.
+ * </p>
+ */
+public class SeatHoldManager {
+    private static final int ACTIVE = 0;
+    private static final int RELEASED = 1;
+    private static final int CLAIMED = 2;
+
+    private final SeatInventory inventory;
+    private final long ttlMillis;
+    private final Map<String, Map<Integer, Hold>> holdsByOwner = new ConcurrentHashMap<>();
+    private final TimerWheel wheel;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a hold manager and starts its expiry scheduler.
+     * @param inventory the seat inventory holds are taken from
+     * @param ttlMillis how long a hold lives without cart activity
+     */
+    public SeatHoldManager(SeatInventory inventory, long ttlMillis) {
+        this.inventory = inventory;
+        this.ttlMillis = ttlMillis;
+        long tickMillis = Math.max(100, Math.min(1_000, ttlMillis / 16));
+        this.wheel = new TimerWheel(tickMillis, 1024);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(() -> wheel.advance(System.currentTimeMillis()),
+                tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the number of seats an owner holds for an event, reserving or releasing the difference.
+     * @param ownerId the cart owner
+     * @param eventId the event ID
+     * @param quantity the total seats to hold; 0 releases the hold
+     * @return true if the hold now covers the quantity, false if not enough seats were free
+     */
+    public boolean hold(String ownerId, int eventId, int quantity) {
+        Map<Integer, Hold> holds = holdsByOwner.computeIfAbsent(ownerId, k -> new ConcurrentHashMap<>());
+        while (true) {
+            Hold hold = holds.computeIfAbsent(eventId, id -> new Hold(ownerId, id));
+            synchronized (hold) {
+                if (hold.state != ACTIVE) {
+                    // Expired or claimed concurrently; start over with a fresh hold
+                    holds.remove(eventId, hold);
+                    continue;
+                }
+                int delta = quantity - hold.quantity;
+                if (delta > 0 && !inventory.tryReserve(eventId, delta)) {
+                    if (hold.quantity == 0) {
+                        hold.state = RELEASED;
+                        holds.remove(eventId, hold);
+                    }
+                    return false;
+                }
+                if (delta < 0) inventory.release(eventId, -delta);
+                hold.quantity = quantity;
+                if (quantity == 0) {
+                    hold.state = RELEASED;
+                    holds.remove(eventId, hold);
+                    return true;
+                }
+                boolean scheduled = hold.deadline != 0;
+                hold.deadline = System.currentTimeMillis() + ttlMillis;
+                if (!scheduled) wheel.schedule(hold);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the seats an owner currently holds for an event.
+     * @param ownerId the cart owner
+     * @param eventId the event ID
+     * @return the held quantity, or 0 if there is no live hold
+     */
+    public int getHeld(String ownerId, int eventId) {
+        Map<Integer, Hold> holds = holdsByOwner.get(ownerId);
+        Hold hold = holds == null ? null : holds.get(eventId);
+        if (hold == null) return 0;
+        synchronized (hold) {
+            return hold.state == ACTIVE ? hold.quantity : 0;
+        }
+    }
+
+    /**
+     * Extends every hold of an owner by a full time-to-live.
+     * @param ownerId the cart owner
+     */
+    public void renew(String ownerId) {
+        Map<Integer, Hold> holds = holdsByOwner.get(ownerId);
+        if (holds == null) return;
+        long deadline = System.currentTimeMillis() + ttlMillis;
+        for (Hold hold : holds.values()) {
+            // The wheel re-checks the deadline when the old slot fires, so no re-bucketing here
+            hold.deadline = deadline;
+        }
+    }
+
+    /**
+     * Releases one hold.
+     * @param ownerId the cart owner
+     * @param eventId the event ID
+     */
+    public void release(String ownerId, int eventId) {
+        hold(ownerId, eventId, 0);
+    }
+
+    /**
+     * Releases every hold of an owner.
+     * @param ownerId the cart owner
+     */
+    public void releaseAll(String ownerId) {
+        Map<Integer, Hold> holds = holdsByOwner.remove(ownerId);
+        if (holds == null) return;
+        for (Hold hold : holds.values()) {
+            synchronized (hold) {
+                if (hold.state == ACTIVE) {
+                    hold.state = RELEASED;
+                    inventory.release(hold.eventId, hold.quantity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts an owner's holds into a checkout reservation covering exactly the given
+     * quantities. Held seats are taken over as they are; missing seats (e.g. from an expired
+     * hold) are reserved fresh. Either every quantity ends up reserved or nothing changes
+     * in the inventory beyond releasing the owner's holds.
+     * @param ownerId the cart owner
+     * @param quantities seats to check out keyed by event ID
+     * @return true if the reservation covers every quantity; the caller must then commit or
+     *         release it in the {@link SeatInventory}
+     */
+    public boolean claim(String ownerId, Map<Integer, Integer> quantities) {
+        Map<Integer, Hold> holds = holdsByOwner.remove(ownerId);
+        Map<Integer, Integer> taken = new HashMap<>();
+        if (holds != null) {
+            for (Hold hold : holds.values()) {
+                synchronized (hold) {
+                    if (hold.state == ACTIVE) {
+                        hold.state = CLAIMED;
+                        taken.put(hold.eventId, hold.quantity);
+                    }
+                }
+            }
+        }
+        Map<Integer, Integer> reserved = new HashMap<>();
+        boolean ok = true;
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            int eventId = entry.getKey();
+            int missing = entry.getValue() - taken.getOrDefault(eventId, 0);
+            if (missing > 0) {
+                if (!inventory.tryReserve(eventId, missing)) {
+                    ok = false;
+                    break;
+                }
+                reserved.put(eventId, missing);
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : taken.entrySet()) {
+            int wanted = ok ? quantities.getOrDefault(entry.getKey(), 0) : 0;
+            int surplus = entry.getValue() - wanted;
+            if (surplus > 0) inventory.release(entry.getKey(), surplus);
+        }
+        if (!ok) inventory.releaseAll(reserved);
+        return ok;
+    }
+
+    /**
+     * Stops the expiry scheduler. Outstanding holds are left in the inventory.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Called by the timer wheel when a hold's slot comes due.
+     * @return true if the hold is still alive and must be rescheduled
+     */
+    private boolean expire(Hold hold, long now) {
+        synchronized (hold) {
+            if (hold.state != ACTIVE) return false;
+            if (hold.deadline > now) return true;
+            hold.state = RELEASED;
+            inventory.release(hold.eventId, hold.quantity);
+        }
+        Map<Integer, Hold> holds = holdsByOwner.get(hold.ownerId);
+        if (holds != null) holds.remove(hold.eventId, hold);
+        return false;
+    }
+
+    /**
+     * Seats one owner holds for one event.
+     */
+    private static final class Hold {
+        private final String ownerId;
+        private final int eventId;
+        private int quantity;
+        private int state = ACTIVE;
+        private volatile long deadline;
+
+        private Hold(String ownerId, int eventId) {
+            this.ownerId = ownerId;
+            this.eventId = eventId;
+        }
+    }
+
+    /**
+     * A hashed timer wheel: one slot per tick, a hold lands in the slot of its deadline.
+     * Deadlines further out than one revolution, or pushed back by a renewal, are simply
+     * rescheduled when their slot fires.
+     */
+    private final class TimerWheel {
+        private final long tickMillis;
+        private final ConcurrentLinkedQueue<Hold>[] slots;
+        private volatile long lastTick;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private TimerWheel(long tickMillis, int size) {
+            this.tickMillis = tickMillis;
+            this.slots = new ConcurrentLinkedQueue[size];
+            for (int i = 0; i < size; i++) slots[i] = new ConcurrentLinkedQueue<>();
+            this.lastTick = System.currentTimeMillis() / tickMillis;
+        }
+
+        private void schedule(Hold hold) {
+            long tick = Math.max(hold.deadline / tickMillis, lastTick + 1);
+            slots[(int) (tick % slots.length)].add(hold);
+        }
+
+        /**
+         * Fires every slot between the previous call and now. Runs on the scheduler thread only.
+         */
+        private void advance(long now) {
+            long currentTick = now / tickMillis;
+            for (long tick = lastTick + 1; tick <= currentTick; tick++) {
+                ConcurrentLinkedQueue<Hold> slot = slots[(int) (tick % slots.length)];
+                int due = slot.size();
+                for (int i = 0; i < due; i++) {
+                    Hold hold = slot.poll();
+                    if (hold == null) break;
+                    if (expire(hold, now)) {
+                        long next = Math.max(hold.deadline / tickMillis, currentTick + 1);
+                        slots[(int) (next % slots.length)].add(hold);
+                    }
+                }
+                // Stop catching up after a full revolution; every slot has been visited
+                if (tick - lastTick >= slots.length) break;
+            }
+            lastTick = currentTick;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package model;
+
+import dao.EventDao;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * In-memory seat counters for every event, reconciled with events.available_seats.
+ * <p>
+ * Each event has one lock-free counter packing the seats still free and the seats
+ * reserved by checkouts that have not committed yet. A reservation is a single
+ * compare-and-set that fails instead of going below zero, so concurrent buyers are
+ * rejected here before they reach the database. When orders are written directly, the
+ * guarded UPDATE in OrderDaoImpl.addOrder remains the final authority if the two ever
+ * drift apart.
+ * </p>
+ * <p>
+ * When orders reach the events table some time after they are confirmed, as with the
+ * order journal, seats of confirmed orders not written yet are subtracted whenever a
+ * counter is loaded from the database. This inventory is then the only check: a journaled
+ * order has already been confirmed to the buyer, so if the database finds too few seats
+ * it takes the seats that are left, sets available_seats to 0 and logs the oversell.
+ * </p>
+ */
+public class SeatInventory {
+    private final EventDao eventDao;
+    private final IntUnaryOperator unappliedSeats;
+    private final ConcurrentHashMap<Integer, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the inventory. Counters are loaded lazily from the event DAO.
+     * @param eventDao the DAO used to read current seat availability
+     */
+    public SeatInventory(EventDao eventDao) {
+        this(eventDao, _ -> 0);
+    }
+
+    /**
+     * Constructs the inventory for orders that are written to the database after they are confirmed.
+     * @param eventDao the DAO used to read current seat availability
+     * @param unappliedSeats returns the seats of an event sold by confirmed orders that are
+     *                       not yet reflected in its available_seats
+     */
+    public SeatInventory(EventDao eventDao, IntUnaryOperator unappliedSeats) {
+        this.eventDao = eventDao;
+        this.unappliedSeats = unappliedSeats;
+    }
+
+    /**
+     * Returns the seats that can still be reserved for an event.
+     * @param eventId the event ID
+     * @return the free seat count
+     */
+    public int getAvailable(int eventId) {
+        return free(counter(eventId).get());
+    }
+
+    /**
+     * Returns the seats currently reserved but not yet committed for an event.
+     * @param eventId the event ID
+     * @return the reserved seat count
+     */
+    public int getReserved(int eventId) {
+        return reserved(counter(eventId).get());
+    }
+
+    /**
+     * Atomically reserves seats for a single event.
+     * @param eventId the event ID
+     * @param quantity the number of seats
+     * @return true if the seats were reserved, false if not enough were free
+     */
+    public boolean tryReserve(int eventId, int quantity) {
+        if (quantity <= 0) return quantity == 0;
+        AtomicLong counter = counter(eventId);
+        while (true) {
+            long current = counter.get();
+            int free = free(current);
+            if (free < quantity) return false;
+            if (counter.compareAndSet(current, pack(free - quantity, reserved(current) + quantity))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserves seats for several events, all or nothing.
+     * @param quantities seats to reserve keyed by event ID
+     * @return true if every reservation succeeded; false leaves no seats reserved
+     */
+    public boolean tryReserveAll(Map<Integer, Integer> quantities) {
+        List<Map.Entry<Integer, Integer>> done = new ArrayList<>(quantities.size());
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            if (!tryReserve(entry.getKey(), entry.getValue())) {
+                for (Map.Entry<Integer, Integer> reserved : done) {
+                    release(reserved.getKey(), reserved.getValue());
+                }
+                return false;
+            }
+            done.add(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Returns reserved seats to the free pool, e.g. when a checkout fails.
+     * @param eventId the event ID
+     * @param quantity the number of seats
+     */
+    public void release(int eventId, int quantity) {
+        adjust(eventId, quantity, -quantity);
+    }
+
+    /**
+     * Releases reservations for several events.
+     * @param quantities seats to release keyed by event ID
+     */
+    public void releaseAll(Map<Integer, Integer> quantities) {
+        quantities.forEach(this::release);
+    }
+
+    /**
+     * Marks reserved seats as sold once the order has been committed to the database.
+     * @param eventId the event ID
+     * @param quantity the number of seats
+     */
+    public void commit(int eventId, int quantity) {
+        adjust(eventId, 0, -quantity);
+    }
+
+    /**
+     * Commits reservations for several events.
+     * @param quantities seats sold keyed by event ID
+     */
+    public void commitAll(Map<Integer, Integer> quantities) {
+        quantities.forEach(this::commit);
+    }
+
+    /**
+     * Resets an event's free seats from the database, keeping outstanding reservations.
+     * @param eventId the event ID
+     */
+    public void reconcile(int eventId) {
+        Event event = eventDao.getEventById(eventId);
+        if (event == null) {
+            counters.remove(eventId);
+            return;
+        }
+        AtomicLong counter = counter(eventId);
+        while (true) {
+            long current = counter.get();
+            int reserved = reserved(current);
+            int free = Math.max(0, availableSeats(event) - reserved);
+            if (counter.compareAndSet(current, pack(free, reserved))) return;
+        }
+    }
+
+    /**
+     * Drops the counter of a deleted event.
+     * @param eventId the event ID
+     */
+    public void remove(int eventId) {
+        counters.remove(eventId);
+    }
+
+    private AtomicLong counter(int eventId) {
+        AtomicLong counter = counters.get(eventId);
+        if (counter != null) return counter;
+        return counters.computeIfAbsent(eventId, id -> {
+            Event event = eventDao.getEventById(id);
+            return new AtomicLong(pack(event == null ? 0 : Math.max(0, availableSeats(event)), 0));
+        });
+    }
+
+    private int availableSeats(Event event) {
+        return event.getAvailableSeats() - unappliedSeats.applyAsInt(event.getEventId());
+    }
+
+    private void adjust(int eventId, int freeDelta, int reservedDelta) {
+        AtomicLong counter = counter(eventId);
+        while (true) {
+            long current = counter.get();
+            long next = pack(free(current) + freeDelta, Math.max(0, reserved(current) + reservedDelta));
+            if (counter.compareAndSet(current, next)) return;
+        }
+    }
+
+    private static long pack(int free, int reserved) {
+        return ((long) reserved << 32) | (free & 0xFFFFFFFFL);
+    }
+
+    private static int free(long packed) {
+        return (int) packed;
+    }
+
+    private static int reserved(long packed) {
+        return (int) (packed >>> 32);
+    }
+}
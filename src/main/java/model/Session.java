@@ -0,0 +1,52 @@
+package model;
+
+/**
+ * One logged-in user's state: who they are and what is in their cart.
+ * Obtained from a {@link SessionRegistry}; the cart must only be changed while
+ * holding the cart's monitor when a session can be used from several threads.
+ */
+public class Session {
+    private final String token;
+    private final User user;
+    private final Cart cart;
+    private final boolean idleEviction;
+    private final long createdAt;
+    private volatile long lastAccess;
+
+    Session(String token, User user, Cart cart, boolean idleEviction) {
+        this.token = token;
+        this.user = user;
+        this.cart = cart;
+        this.idleEviction = idleEviction;
+        this.createdAt = System.currentTimeMillis();
+        this.lastAccess = createdAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    boolean isIdleEviction() {
+        return idleEviction;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+}
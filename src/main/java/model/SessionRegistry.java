@@ -0,0 +1,168 @@
+package model;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * All logged-in sessions of the process, keyed by an unguessable token.
+ * <p>
+ * Lookups are lock-free. A background sweep removes sessions that have been idle longer
+ * than the idle timeout and, if the estimated memory of all sessions exceeds the budget,
+ * the least recently used ones until it fits again. Removing a session empties its cart,
+ * which releases its seat holds.
+ * </p>
+ */
+public final class SessionRegistry {
+    // Rough per-object footprints used for memory accounting
+    static final long SESSION_BYTES = 512;
+    static final long CART_LINE_BYTES = 128;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Supplier<Cart> cartFactory;
+    private final long idleTimeoutMillis;
+    private final long maxBytes;
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a registry and starts its eviction sweep.
+     * @param cartFactory creates the empty cart of a new session
+     * @param idleTimeoutMillis how long a session may go unused before it is removed
+     * @param maxBytes the estimated memory budget for all sessions
+     */
+    public SessionRegistry(Supplier<Cart> cartFactory, long idleTimeoutMillis, long maxBytes) {
+        this.cartFactory = cartFactory;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxBytes = maxBytes;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, Math.min(60_000, idleTimeoutMillis / 4));
+        sweeper.scheduleAtFixedRate(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a session for a user.
+     * @param user the authenticated user
+     * @param idleEviction false for sessions that must live until removed explicitly,
+     *                     such as the desktop client's
+     * @return the new session
+     */
+    public Session create(User user, boolean idleEviction) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session session = new Session(token, user, cartFactory.get(), idleEviction);
+        sessions.put(token, session);
+        created.increment();
+        return session;
+    }
+
+    /**
+     * Looks up a session and marks it as used.
+     * @param token the session token
+     * @return the session, or null if the token is unknown or the session was removed
+     */
+    public Session get(String token) {
+        if (token == null) return null;
+        Session session = sessions.get(token);
+        if (session != null) session.touch();
+        return session;
+    }
+
+    /**
+     * Ends a session and releases its cart.
+     * @param token the session token
+     * @return true if the session existed
+     */
+    public boolean remove(String token) {
+        Session session = token == null ? null : sessions.remove(token);
+        if (session == null) return false;
+        release(session);
+        return true;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * Returns the estimated memory held by all sessions and their carts.
+     */
+    public long getEstimatedBytes() {
+        long bytes = 0;
+        for (Session session : sessions.values()) bytes += estimate(session);
+        return bytes;
+    }
+
+    /**
+     * Stops the eviction sweep. Sessions are left as they are.
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Removes idle sessions, then the least recently used ones while over the memory budget.
+     */
+    void sweep() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        long bytes = 0;
+        List<Session> evictable = new ArrayList<>();
+        for (Session session : sessions.values()) {
+            if (session.isIdleEviction() && session.getLastAccess() < cutoff) {
+                evict(session);
+                continue;
+            }
+            bytes += estimate(session);
+            if (session.isIdleEviction()) evictable.add(session);
+        }
+        if (bytes <= maxBytes) return;
+        evictable.sort(Comparator.comparingLong(Session::getLastAccess));
+        for (Session session : evictable) {
+            if (bytes <= maxBytes) break;
+            bytes -= estimate(session);
+            evict(session);
+        }
+    }
+
+    private void evict(Session session) {
+        if (sessions.remove(session.getToken(), session)) {
+            evicted.increment();
+            release(session);
+        }
+    }
+
+    private static void release(Session session) {
+        Cart cart = session.getCart();
+        synchronized (cart) {
+            cart.clear();
+        }
+    }
+
+    private static long estimate(Session session) {
+        return SESSION_BYTES + CART_LINE_BYTES * session.getCart().getLineCount();
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Thrown when an order or cart change needs more seats of an event than are left.
+ * Being an IllegalStateException, it is reported as a conflict (409) by the API.
+ */
+public class SoldOutException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public SoldOutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,147 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import model.Event;
+import model.EventFilter;
+import model.Order;
+import model.OrderItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs each DAO method, then checks the query plan of every statement it prepared: every
+ * table must be searched through an index, never scanned. Methods that read a whole table
+ * by design (getAllEvents, getAllEventTitles, getAllOrders, streamAllOrders, countAllOrders
+ * and the uncached similarEventExists) are not listed.
+ */
+class QueryPlanTest {
+    // A plan step that walks a whole table or a whole index, as opposed to a SEARCH
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN \\w+( USING (COVERING )?INDEX \\w+)?$");
+
+    @TempDir
+    Path dir;
+
+    private PooledDataSource pool;
+    private final List<String> prepared = new ArrayList<>();
+    private EventDaoImpl events;
+    private OrderDaoImpl orders;
+    private UserDaoImpl users;
+    private Event event;
+    private int userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new PooledDataSource("jdbc:sqlite:" + dir.resolve("test.db"), 2, 0);
+        SchemaMigrator.migrate(pool);
+        DataSource recording = recording(pool);
+        events = new EventDaoImpl(recording);
+        orders = new OrderDaoImpl(recording, events);
+        users = new UserDaoImpl(recording);
+        event = new Event("Concert", "Sat", "Hall", 25.0, 100, 100, true);
+        events.addEvent(event);
+        users.createUser("alice", "x", "Alice");
+        userId = users.getUserIdByUsername("alice");
+        orders.addOrder(order(), userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> daoQueriesUseIndexes() {
+        Map<String, Call> calls = new LinkedHashMap<>();
+        calls.put("EventDao.getEvents", () -> events.getEvents(0, 10, new EventFilter(false, "Con", "Sat")));
+        calls.put("EventDao.getEventsByTitle", () -> events.getEventsByTitle("Concert"));
+        calls.put("EventDao.getEventById", () -> events.getEventById(event.getEventId()));
+        calls.put("EventDao.eventExists", () -> events.eventExists(event));
+        calls.put("EventDao.updateEvent", () -> events.updateEvent(event));
+        calls.put("EventDao.setEventEnabled", () -> events.setEventEnabled(event.getEventId(), true));
+        calls.put("EventDao.deleteEvent", () -> events.deleteEvent(Integer.MAX_VALUE));
+        calls.put("OrderDao.addOrder", () -> orders.addOrder(order(), userId));
+        calls.put("OrderDao.getOrdersForUser", () -> orders.getOrdersForUser(userId));
+        calls.put("OrderDao.getOrders", () -> orders.getOrders(Integer.MAX_VALUE, 10));
+        calls.put("OrderDao.getOrdersForUser(page)", () -> orders.getOrdersForUser(userId, Integer.MAX_VALUE, 10));
+        calls.put("OrderDao.countOrdersForUser", () -> orders.countOrdersForUser(userId));
+        calls.put("OrderDao.streamOrdersForUser", () -> orders.streamOrdersForUser(userId, o -> {}));
+        calls.put("UserDao.getUserByUsername", () -> users.getUserByUsername("alice"));
+        calls.put("UserDao.getUserIdByUsername", () -> users.getUserIdByUsername("alice"));
+        calls.put("UserDao.getUserIdByPreferredName", () -> users.getUserIdByPreferredName("Alice"));
+        calls.put("UserDao.changePassword", () -> users.changePassword("alice", "y"));
+        calls.put("UserDao.replacePasswordHash", () -> users.replacePasswordHash("alice", "y", "x"));
+        return calls.entrySet().stream().map(e -> DynamicTest.dynamicTest(e.getKey(), () -> {
+            prepared.clear();
+            e.getValue().run();
+            assertFalse(prepared.isEmpty(), "no statements were prepared");
+            for (String sql : prepared) assertIndexed(sql);
+        }));
+    }
+
+    private void assertIndexed(String sql) throws Exception {
+        List<String> plan = new ArrayList<>();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) ps.setObject(i, null);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) plan.add(rs.getString("detail"));
+            }
+        }
+        for (String step : plan) {
+            if (FULL_SCAN.matcher(step).matches()) fail("Full table scan in " + sql + "\nplan: " + plan);
+        }
+    }
+
+    private Order order() {
+        return new Order(null, LocalDateTime.now(), List.of(new OrderItem(event, 1)), event.getPrice());
+    }
+
+    /**
+     * Wraps a data source so every SQL string passed to prepareStatement is recorded.
+     */
+    private DataSource recording(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (!(result instanceof Connection conn)) return result;
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                            (connProxy, connMethod, connArgs) -> {
+                                if (connMethod.getName().equals("prepareStatement")) prepared.add((String) connArgs[0]);
+                                return invoke(conn, connMethod, connArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws Exception;
+    }
+}
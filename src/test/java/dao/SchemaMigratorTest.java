@@ -0,0 +1,147 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Upgrades a database left at schema version 2 by an earlier release, with orders in it,
+ * to the latest version. The events table is created both ways it exists in the field:
+ * plain, as migration 1 creates it, and with UNIQUE (title, date, location), as in the
+ * shipped application.db.
+ */
+class SchemaMigratorTest {
+    private static final String EVENT_COLUMNS = "event_id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, "
+            + "date TEXT NOT NULL, location TEXT NOT NULL, total_seats INTEGER NOT NULL, "
+            + "available_seats INTEGER NOT NULL, enabled INTEGER NOT NULL DEFAULT 1, price REAL DEFAULT 0.0";
+
+    @TempDir
+    Path dir;
+
+    private PooledDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new PooledDataSource("jdbc:sqlite:" + dir.resolve("test.db"), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void upgradesVersion2Database() throws Exception {
+        createVersion2("CREATE TABLE events (" + EVENT_COLUMNS + ")");
+        assertUpgraded();
+        assertEquals(List.of("ux_events_title_date_location"), eventIdentityIndexes());
+    }
+
+    @Test
+    void upgradesVersion2DatabaseWithIdentityConstraint() throws Exception {
+        createVersion2("CREATE TABLE events (" + EVENT_COLUMNS + ", UNIQUE (title, date, location))");
+        assertUpgraded();
+        assertEquals(List.of("sqlite_autoindex_events_1"), eventIdentityIndexes());
+    }
+
+    /**
+     * Creates the schema migrations 1 and 2 left behind, with two events, one of them since
+     * deleted, and two orders.
+     */
+    private void createVersion2(String eventsTable) throws SQLException {
+        execute("CREATE TABLE users (user_id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT NOT NULL UNIQUE, "
+                        + "password TEXT NOT NULL, role TEXT NOT NULL DEFAULT 'user', preferred_name VARCHAR (22))",
+                eventsTable,
+                "CREATE TABLE orders (order_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL, "
+                        + "order_date TEXT NOT NULL, total_price REAL NOT NULL)",
+                "CREATE TABLE order_items (order_item_id INTEGER PRIMARY KEY AUTOINCREMENT, order_id INTEGER NOT NULL, "
+                        + "event_id INTEGER NOT NULL, quantity INTEGER NOT NULL, price_per_ticket REAL NOT NULL, "
+                        + "FOREIGN KEY (event_id) REFERENCES events (event_id))",
+                "CREATE UNIQUE INDEX ux_events_title_date_location ON events (title, date, location)",
+                "CREATE INDEX idx_orders_user_order ON orders (user_id, order_id, order_date, total_price)",
+                "CREATE INDEX idx_order_items_order ON order_items (order_id, event_id, quantity, price_per_ticket)",
+                "CREATE INDEX idx_users_preferred_name ON users (preferred_name)",
+                "CREATE TABLE schema_version (version INTEGER PRIMARY KEY, description TEXT NOT NULL, "
+                        + "applied_at TEXT NOT NULL)",
+                "INSERT INTO schema_version VALUES (1, 'Create core tables', '2026-01-01T00:00'), "
+                        + "(2, 'Indexes for DAO access paths', '2026-01-01T00:00')",
+                "INSERT INTO users (user_id, username, password) VALUES (1, 'alice', 'x')",
+                "INSERT INTO events (event_id, title, date, location, total_seats, available_seats, price) "
+                        + "VALUES (1, 'Concert', 'Sat', 'Hall', 100, 95, 25.0), (2, 'Play', 'Sun', 'Stage', 50, 48, 10.0)",
+                "INSERT INTO orders (order_id, user_id, order_date, total_price) "
+                        + "VALUES (7, 1, '2026-03-01T18:15:00', 95.0), (9, 1, '2026-03-01T18:40:00', 25.0)",
+                "INSERT INTO order_items (order_id, event_id, quantity, price_per_ticket) "
+                        + "VALUES (7, 1, 3, 25.0), (7, 2, 2, 10.0), (9, 1, 1, 25.0)",
+                "DELETE FROM events WHERE event_id = 2");
+    }
+
+    private void assertUpgraded() throws Exception {
+        assertEquals(SchemaMigrator.latestVersion() - 2, SchemaMigrator.migrate(dataSource));
+        assertEquals(0, SchemaMigrator.migrate(dataSource));
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            assertEquals(SchemaMigrator.latestVersion(), queryInt(stmt, "SELECT MAX(version) FROM schema_version"));
+            assertEquals(SchemaMigrator.latestVersion(), queryInt(stmt, "SELECT COUNT(*) FROM schema_version"));
+            // New order IDs continue after the existing ones
+            assertEquals(10, queryInt(stmt, "SELECT next_value FROM order_sequence WHERE name = 'orders'"));
+            assertEquals(4, queryInt(stmt, "SELECT tickets FROM sales_by_event WHERE event_id = 1"));
+            assertEquals(2, queryInt(stmt, "SELECT orders FROM sales_by_event WHERE event_id = 1"));
+            assertEquals(2, queryInt(stmt, "SELECT tickets FROM sales_by_event WHERE event_id = 2"));
+            assertEquals(6, queryInt(stmt, "SELECT tickets FROM sales_by_hour WHERE hour = '2026-03-01T18'"));
+            assertEquals(2, queryInt(stmt, "SELECT COUNT(*) FROM order_items "
+                    + "WHERE event_title = 'Concert' AND event_day = 'Sat' AND event_venue = 'Hall'"));
+            assertEquals(1, queryInt(stmt, "SELECT COUNT(*) FROM order_items "
+                    + "WHERE event_title = 'Deleted event 2' AND event_day = '' AND event_venue = ''"));
+            // Event identity is still enforced
+            assertThrows(SQLException.class, () -> stmt.executeUpdate("INSERT INTO events "
+                    + "(title, date, location, total_seats, available_seats) VALUES ('Concert', 'Sat', 'Hall', 1, 1)"));
+        }
+    }
+
+    /**
+     * Returns the names of the unique indexes on events (title, date, location).
+     */
+    private List<String> eventIdentityIndexes() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            List<String> unique = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA index_list(events)")) {
+                while (rs.next()) {
+                    if (rs.getInt("unique") == 1) unique.add(rs.getString("name"));
+                }
+            }
+            for (String index : unique) {
+                List<String> columns = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery("PRAGMA index_info(" + index + ")")) {
+                    while (rs.next()) columns.add(rs.getString("name"));
+                }
+                if (columns.equals(List.of("title", "date", "location"))) names.add(index);
+            }
+        }
+        return names;
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String sql : statements) stmt.executeUpdate(sql);
+        }
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dao.CachingEventDao;
+import dao.EventDao;
+import dao.EventDaoImpl;
+import dao.JournalingOrderDao;
+import dao.OrderDao;
+import dao.OrderDaoImpl;
+import dao.PooledDataSource;
+import dao.SchemaMigrator;
+import dao.UserDao;
+import dao.UserDaoImpl;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Many buyers checking out the same event at once must sell every seat exactly once.
+ */
+class ConcurrentCheckoutTest {
+    private static final int SEATS = 50;
+    private static final int BUYERS = 200;
+    private static final int THREADS = 16;
+    // A Monday, so no day of the week has passed yet
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-19T12:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path dir;
+
+    private PooledDataSource dataSource;
+    private EventDao eventDao;
+    private UserDao userDao;
+    private OrderDaoImpl orders;
+    private Event event;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new PooledDataSource("jdbc:sqlite:" + dir.resolve("test.db"), 8);
+        SchemaMigrator.migrate(dataSource);
+        eventDao = new CachingEventDao(new EventDaoImpl(dataSource));
+        userDao = new UserDaoImpl(dataSource);
+        orders = new OrderDaoImpl(dataSource, eventDao);
+        event = new Event("Concert", "Sun", "Hall", 25.0, SEATS, SEATS, true);
+        eventDao.addEvent(event);
+        for (int i = 0; i < BUYERS; i++) userDao.createUser("buyer" + i, "x", "Buyer " + i);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void sellsEachSeatOnceWritingOrdersDirectly() throws Exception {
+        SeatInventory inventory = new SeatInventory(eventDao);
+        assertEquals(SEATS, runBuyers(orders, inventory));
+        assertSoldOut();
+    }
+
+    @Test
+    void sellsEachSeatOnceThroughTheOrderJournal() throws Exception {
+        JournalingOrderDao journal = new JournalingOrderDao(orders, dir.resolve("orders.journal"));
+        SeatInventory inventory = new SeatInventory(eventDao, journal::getUnappliedSeats);
+        int sold;
+        try {
+            sold = runBuyers(journal, inventory);
+        } finally {
+            journal.close();
+        }
+        assertEquals(SEATS, sold);
+        assertSoldOut();
+    }
+
+    /**
+     * Each buyer adds one seat and checks out; a buyer that finds the event full gives up.
+     * @return the seats sold by successful checkouts
+     */
+    private int runBuyers(OrderDao orderDao, SeatInventory inventory) throws Exception {
+        SeatHoldManager holds = new SeatHoldManager(inventory, 60_000);
+        BookingService booking = new BookingService(eventDao, orderDao, userDao, inventory, holds, CLOCK);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService buyers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                User user = userDao.getUserByUsername("buyer" + i);
+                results.add(buyers.submit(() -> {
+                    Cart cart = booking.newCart();
+                    try {
+                        booking.addToCart(cart, event, 1);
+                        booking.checkout(user, cart);
+                        sold.incrementAndGet();
+                    } catch (SoldOutException e) {
+                        cart.clear();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) result.get();
+        } finally {
+            buyers.shutdown();
+            assertTrue(buyers.awaitTermination(30, TimeUnit.SECONDS));
+            holds.shutdown();
+        }
+        assertEquals(0, inventory.getAvailable(event.getEventId()));
+        return sold.get();
+    }
+
+    private void assertSoldOut() throws Exception {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            assertEquals(0, queryInt(stmt, "SELECT available_seats FROM events WHERE event_id = " + event.getEventId()));
+            assertEquals(SEATS, queryInt(stmt, "SELECT SUM(quantity) FROM order_items"));
+            assertEquals(SEATS, queryInt(stmt, "SELECT COUNT(*) FROM orders"));
+            assertEquals(SEATS, queryInt(stmt, "SELECT tickets FROM sales_by_event WHERE event_id = " + event.getEventId()));
+        }
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws Exception {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}